@@ -0,0 +1,130 @@
+package com.liyang.benchmark;
+
+import com.liyang.core.chunk.ChunkedJobRunner;
+import com.liyang.core.cluster.ClusterMembership;
+import com.liyang.core.cluster.InMemoryMembershipStore;
+import com.liyang.core.limit.ClusterLimiter;
+import com.liyang.core.lock.LocalLockProvider;
+import com.liyang.core.lock.LockProviders;
+import com.liyang.core.redis.aop.DistributionAop;
+import com.liyang.core.redis.aop.LockWatchdog;
+import com.liyang.core.redis.aop.StandbyScheduler;
+import com.liyang.core.shard.ShardCoordinator;
+import com.liyang.core.task.TaskDescriptor;
+import com.liyang.core.task.TaskDescriptorRegistry;
+import com.liyang.core.wheel.HashedWheelTimer;
+import com.liyang.operation.ExecutionLogWriter;
+import com.liyang.operation.SchedulerMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DistributionAop.aroundSchedule 每次触发的开销，锁使用进程内的 {@link LocalLockProvider}
+ * <p>
+ * 任务 bean 通过 AspectJProxyFactory 织入真实切面，测到的是代理 + 切面 + 描述符查找 + 锁协议 + 看门狗登记/取消 + 耗时记录与指标埋点，
+ * 不含网络往返。执行历史写入器未启动（只测切面本身），日志级别由 logback.xml 压到 WARN。
+ * <ul>
+ *     <li>direct：不经过切面直接调用，作为基线</li>
+ *     <li>lockWon：抢到锁并执行</li>
+ *     <li>lockLost：锁被其他节点持有，交给备机处理后立即返回</li>
+ *     <li>owner：集群归属模式下的托管任务，不抢锁</li>
+ * </ul>
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AspectOverheadBenchmark {
+
+    public static class SampleJob {
+        private long counter;
+
+        @Scheduled(fixedRate = 5000)
+        public void run() {
+            counter++;
+        }
+    }
+
+    @Param({"direct", "lockWon", "lockLost", "owner"})
+    public String mode;
+
+    private HashedWheelTimer timer;
+    private SampleJob target;
+    private SampleJob job;
+
+    @Setup
+    public void setup() throws Exception {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("bench-deferred-");
+        threadFactory.setDaemon(true);
+        timer = new HashedWheelTimer("bench-deferred-wheel", 10, TimeUnit.MILLISECONDS, 512,
+                Executors.newSingleThreadExecutor(threadFactory));
+        target = new SampleJob();
+        if ("direct".equals(mode)) {
+            job = target;
+            return;
+        }
+
+        TaskDescriptorRegistry registry = new TaskDescriptorRegistry();
+        BenchmarkSupport.setField(registry, "appName", "ly-job");
+        LockWatchdog watchdog = new LockWatchdog();
+        BenchmarkSupport.setField(watchdog, "deferredTimer", timer);
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        if ("owner".equals(mode)) {
+            // 归属模式只对托管任务生效：先按 DynamicTaskManager 的方式注册描述符
+            registry.register(target, "run", 0, null);
+            beanFactory.registerSingleton("clusterMembership",
+                    new ClusterMembership(new InMemoryMembershipStore(), "bench-node", 10_000, 64));
+        }
+        LocalLockProvider lock = new LocalLockProvider();
+        if ("lockLost".equals(mode)) {
+            // 模拟锁被其他节点长期持有
+            TaskDescriptor descriptor = registry.resolve(SampleJob.class, SampleJob.class.getMethod("run"));
+            lock.acquire(descriptor.getLockKey(), descriptor.getTimeSyncKey(), "other-node", TimeUnit.DAYS.toMillis(1));
+        }
+        LockProviders lockProviders = new LockProviders(Collections.singletonList(lock), LocalLockProvider.NAME);
+        DistributionAop aspect = new DistributionAop(new StandbyScheduler(), watchdog, registry, lockProviders,
+                beanFactory.getBeanProvider(ClusterMembership.class), new ExecutionLogWriter(),
+                new ShardCoordinator(BenchmarkSupport.noopRedisson()), new SchedulerMetrics(new SimpleMeterRegistry()),
+                new ChunkedJobRunner(BenchmarkSupport.noopRedisson()), new ClusterLimiter(BenchmarkSupport.noopRedisson()));
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        job = factory.getProxy();
+    }
+
+    @TearDown
+    public void tearDown() {
+        timer.stop();
+    }
+
+    @Benchmark
+    public long fire() {
+        job.run();
+        return target.counter;
+    }
+}
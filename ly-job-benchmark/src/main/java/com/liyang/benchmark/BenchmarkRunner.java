@@ -0,0 +1,50 @@
+package com.liyang.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * 基准入口
+ * <p>
+ * 参数与 JMH 自带的 Main 相同（如 {@code AspectOverhead -p mode=lockWon -prof gc}），
+ * 区别是默认以 JSON 输出结果到 target/jmh-result.json，便于用 {@link CompareResults} 对比两次构建：
+ * <pre>
+ * java -jar target/benchmarks.jar
+ * java -cp target/benchmarks.jar com.liyang.benchmark.CompareResults base.json target/jmh-result.json 10
+ * </pre>
+ * 显式指定了 -rf / -rff 时以命令行为准。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+public class BenchmarkRunner {
+
+    private static final String DEFAULT_RESULT = "target/jmh-result.json";
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        if (cli.shouldHelp() || cli.shouldList() || cli.shouldListWithParams() || cli.shouldListProfilers()
+                || cli.shouldListResultFormats()) {
+            // 帮助、列表类命令交给 JMH 原样处理
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(cli);
+        if (!cli.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cli.getResult().hasValue()) {
+            File result = new File(DEFAULT_RESULT);
+            if (result.getParentFile() != null) {
+                result.getParentFile().mkdirs();
+            }
+            builder.result(result.getPath());
+        }
+        new Runner(builder.build()).run();
+    }
+}
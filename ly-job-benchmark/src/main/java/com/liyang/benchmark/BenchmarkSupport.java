@@ -0,0 +1,46 @@
+package com.liyang.benchmark;
+
+import org.redisson.api.RedissonClient;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+
+/**
+ * 基准中手工装配组件用的工具：不启动 Spring 容器，直接给 @Resource / @Value 字段赋值
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    static void setField(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        if (field == null) {
+            throw new IllegalArgumentException(target.getClass().getName() + " 没有字段 " + name);
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T getField(Object target, String name) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        if (field == null) {
+            throw new IllegalArgumentException(target.getClass().getName() + " 没有字段 " + name);
+        }
+        ReflectionUtils.makeAccessible(field);
+        return (T) ReflectionUtils.getField(field, target);
+    }
+
+    /**
+     * 只用于满足构造参数的 RedissonClient，任何调用都返回 null
+     */
+    static RedissonClient noopRedisson() {
+        return (RedissonClient) Proxy.newProxyInstance(RedissonClient.class.getClassLoader(),
+                new Class<?>[]{RedissonClient.class}, (proxy, method, args) -> null);
+    }
+}
@@ -0,0 +1,90 @@
+package com.liyang.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 对比两次 JMH JSON 结果
+ * <p>
+ * 按 benchmark + 参数逐项比较主指标，吞吐量模式越大越好，其余模式（平均耗时、单次耗时、采样）越小越好。
+ * 任一项变差超过阈值（默认 10%）时以退出码 1 结束，可直接挂在 CI 上：
+ * {@code CompareResults <base.json> <current.json> [thresholdPercent]}
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+public class CompareResults {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("用法: CompareResults <base.json> <current.json> [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+        Map<String, JsonNode> base = load(new File(args[0]));
+        Map<String, JsonNode> current = load(new File(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %9s%n", "benchmark", "base", "current", "change");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode now = entry.getValue();
+            JsonNode before = base.get(entry.getKey());
+            String unit = now.path("primaryMetric").path("scoreUnit").asText();
+            double score = now.path("primaryMetric").path("score").asDouble();
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %9s  %s%n", entry.getKey(), "-", score, "new", unit);
+                continue;
+            }
+            double baseScore = before.path("primaryMetric").path("score").asDouble();
+            double change = baseScore == 0 ? 0 : (score - baseScore) * 100 / baseScore;
+            // 吞吐量下降或耗时上升都算变差
+            double worse = "thrpt".equals(now.path("mode").asText()) ? -change : change;
+            boolean regressed = worse > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%%  %s%s%n", entry.getKey(), baseScore, score, change, unit,
+                    regressed ? "  <-- REGRESSION" : "");
+        }
+        for (String removed : base.keySet()) {
+            if (!current.containsKey(removed)) {
+                System.out.printf("%-90s %14s %14s %9s%n", removed, "", "-", "removed");
+            }
+        }
+        System.out.printf("%d 项变差超过 %.1f%%%n", regressions, threshold);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    /**
+     * benchmark(参数) -> 结果，key 形如 com.liyang.benchmark.CronEvaluationBenchmark.compiledCron(expression=0 30 2 * * ?)
+     */
+    private static Map<String, JsonNode> load(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            JsonNode params = result.path("params");
+            if (params.size() > 0) {
+                Map<String, String> sorted = new TreeMap<>();
+                Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> param = fields.next();
+                    sorted.put(param.getKey(), param.getValue().asText());
+                }
+                key.append(sorted.toString().replace('{', '(').replace('}', ')'));
+            }
+            int threads = result.path("threads").asInt(1);
+            if (threads > 1) {
+                key.append("@").append(threads).append("t");
+            }
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,84 @@
+package com.liyang.benchmark;
+
+import com.liyang.utils.CompiledCron;
+import com.liyang.utils.CronExpressionParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.scheduling.support.CronSequenceGenerator;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 下一次触发时间计算：原来每次新建的 CronSequenceGenerator、Spring 的 CronExpression（预先解析）、CompiledCron（缓存查找 + 位图跳转）
+ * <p>
+ * 以及对外入口 CronExpressionParser（触发器、描述符构建都经由它）的下一次时间与固定间隔计算。
+ * 用 -prof gc 观察每次调用的分配量，CompiledCron 应为 0
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CronEvaluationBenchmark {
+
+    @Param({"0/5 * * * * ?", "0 30 2 * * ?", "0 */2 9-17 * * MON-FRI"})
+    public String expression;
+
+    private CronExpression spring;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private long from = 1_700_000_000_000L;
+
+    @Setup
+    public void setup() {
+        spring = CronExpression.parse(expression);
+        CompiledCron.of(expression);
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public long legacyGenerator() {
+        from += 997;
+        return new CronSequenceGenerator(expression).next(new Date(from)).getTime();
+    }
+
+    @Benchmark
+    public long springCronExpression() {
+        from += 997;
+        return spring.next(ZonedDateTime.ofInstant(Instant.ofEpochMilli(from), zone)).toInstant().toEpochMilli();
+    }
+
+    @Benchmark
+    public long compiledCron() {
+        from += 997;
+        return CompiledCron.of(expression).next(from);
+    }
+
+    @Benchmark
+    public long parserNextExecutionTime() {
+        from += 997;
+        return CronExpressionParser.getNextExecutionTime(expression, from);
+    }
+
+    @Benchmark
+    public long parserInterval() {
+        return CronExpressionParser.parseCronToInterval(expression);
+    }
+}
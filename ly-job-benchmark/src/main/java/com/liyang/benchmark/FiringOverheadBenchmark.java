@@ -0,0 +1,80 @@
+package com.liyang.benchmark;
+
+import com.liyang.annotation.Exclude;
+import com.liyang.core.task.TaskDescriptor;
+import com.liyang.core.task.TaskDescriptorRegistry;
+import com.liyang.core.task.TaskInvoker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每次触发的元数据解析 + 调用开销：原来的反射路径 vs 预先构建的描述符 + MethodHandle 调用器
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FiringOverheadBenchmark {
+
+    public static class SampleJob {
+        private long counter;
+
+        @Scheduled(fixedRate = 5000)
+        public void run() {
+            counter++;
+        }
+    }
+
+    private final SampleJob bean = new SampleJob();
+    private final String appName = "ly-job";
+    private TaskDescriptorRegistry registry;
+    private Method method;
+    private TaskInvoker invoker;
+
+    @Setup
+    public void setup() throws Exception {
+        registry = new TaskDescriptorRegistry();
+        BenchmarkSupport.setField(registry, "appName", appName);
+        invoker = registry.register(bean, "run", 0, null).getInvoker();
+        method = SampleJob.class.getMethod("run");
+    }
+
+    @Benchmark
+    public void reflection(Blackhole bh) throws Exception {
+        Exclude exclude = bean.getClass().getMethod("run").getAnnotation(Exclude.class);
+        String taskName = bean.getClass().getSimpleName() + "." + "run";
+        String lockKey = String.format("lock:schedule:%s[%s]", taskName, appName);
+        Scheduled scheduled = bean.getClass().getMethod("run").getAnnotation(Scheduled.class);
+        bh.consume(exclude);
+        bh.consume(lockKey);
+        bh.consume(scheduled.fixedRate());
+        bean.getClass().getMethod("run").invoke(bean);
+    }
+
+    @Benchmark
+    public void descriptor(Blackhole bh) throws Throwable {
+        TaskDescriptor descriptor = registry.resolve(SampleJob.class, method);
+        bh.consume(descriptor.isExcluded());
+        bh.consume(descriptor.getLockKey());
+        bh.consume(descriptor.getInterval());
+        invoker.invoke();
+    }
+}
@@ -0,0 +1,122 @@
+package com.liyang.benchmark;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.MybatisSqlSessionFactoryBuilder;
+import com.liyang.core.lock.JdbcLockProvider;
+import com.liyang.core.lock.LocalLockProvider;
+import com.liyang.core.lock.LockProvider;
+import com.liyang.core.redis.lock.RedisScheduleLock;
+import com.liyang.dao.TbTaskLockDao;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.SqlSessionManager;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每次触发的锁开销：抢锁 + 释放（won），以及锁被他人持有时的一次抢锁（lost）
+ * <ul>
+ *     <li>local：进程内分段锁</li>
+ *     <li>jdbc：H2 内存库上的 tb_task_lock 行锁，只能代表 SQL 与 MyBatis 的开销，真实数据库还要加上网络往返</li>
+ *     <li>redis：连接 -Dly-job.bench.redis（默认 redis://127.0.0.1:6379），需要先启动 Redis</li>
+ * </ul>
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LockProviderBenchmark {
+
+    private static final String LOCK_KEY = "lock:schedule:BenchJob.run[ly-job]";
+    private static final String HELD_KEY = "lock:schedule:BenchJob.held[ly-job]";
+    private static final long LEASE = 30_000;
+
+    @Param({"local", "jdbc", "redis"})
+    public String provider;
+
+    private LockProvider lock;
+    private RedissonClient redisson;
+    private long sequence;
+
+    @Setup
+    public void setup() throws Exception {
+        switch (provider) {
+            case LocalLockProvider.NAME:
+                lock = new LocalLockProvider();
+                break;
+            case JdbcLockProvider.NAME:
+                lock = new JdbcLockProvider(h2TaskLockDao());
+                break;
+            default:
+                Config config = new Config();
+                config.useSingleServer().setAddress(System.getProperty("ly-job.bench.redis", "redis://127.0.0.1:6379"));
+                redisson = Redisson.create(config);
+                lock = new RedisScheduleLock(redisson);
+        }
+        lock.acquire(HELD_KEY, "lastSyncTime:BenchJob.held", "other-node", TimeUnit.DAYS.toMillis(1));
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (redisson != null) {
+            redisson.getKeys().delete(HELD_KEY, LOCK_KEY, "lastSyncTime:BenchJob.held", "lastSyncTime:BenchJob.run",
+                    "lastDuration:BenchJob.run");
+            redisson.shutdown();
+        }
+    }
+
+    @Benchmark
+    public long won() {
+        String owner = "owner-" + (++sequence);
+        LockProvider.AcquireResult result = lock.acquire(LOCK_KEY, "lastSyncTime:BenchJob.run", owner, LEASE);
+        if (!result.isAcquired()) {
+            throw new IllegalStateException("锁没有被上一次释放");
+        }
+        return lock.release(LOCK_KEY, "lastDuration:BenchJob.run", owner, result.getServerTime());
+    }
+
+    @Benchmark
+    public boolean lost() {
+        return lock.acquire(HELD_KEY, "lastSyncTime:BenchJob.held", "owner", LEASE).isAcquired();
+    }
+
+    /**
+     * 不启动 Spring，直接在 H2 内存库上装配 MyBatis-Plus 的 TbTaskLockDao
+     */
+    private static TbTaskLockDao h2TaskLockDao() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:ly-job-bench;DB_CLOSE_DELAY=-1;MODE=MySQL");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS tb_task_lock (lock_key VARCHAR(255) PRIMARY KEY, "
+                    + "owner VARCHAR(64), expire_at BIGINT, last_run_time BIGINT, last_duration BIGINT)");
+        }
+        MybatisConfiguration configuration = new MybatisConfiguration(
+                new Environment("bench", new JdbcTransactionFactory(), dataSource));
+        configuration.addMapper(TbTaskLockDao.class);
+        SqlSessionManager sessions = SqlSessionManager.newInstance(new MybatisSqlSessionFactoryBuilder().build(configuration));
+        return sessions.getMapper(TbTaskLockDao.class);
+    }
+}
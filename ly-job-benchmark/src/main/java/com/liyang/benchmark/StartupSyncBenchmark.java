@@ -0,0 +1,110 @@
+package com.liyang.benchmark;
+
+import com.liyang.core.task.ScheduledMethodRegistry;
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ScanResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 启动时任务发现 + 配置同步耗时（冷启动，单次执行）
+ * <ul>
+ *     <li>legacy：ClassGraph 扫描并加载基础包下所有类，每个 @Scheduled 方法 getOneByName + insert 各一次往返，最后再 selectList 一次</li>
+ *     <li>registry：BeanPostProcessor 只检查已创建的 bean，selectList 一次 + 批量插入一次</li>
+ * </ul>
+ * 数据库往返用固定延迟模拟，roundTripMicros 取内网 MySQL 的典型值。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(3)
+@State(Scope.Benchmark)
+public class StartupSyncBenchmark {
+
+    public static class SampleJob {
+        @Scheduled(fixedRate = 5000)
+        public void run() {
+        }
+
+        @Scheduled(cron = "0/5 * * * * ?")
+        public void report() {
+        }
+    }
+
+    public static class PlainBean {
+        public void handle() {
+        }
+    }
+
+    /**
+     * 任务 bean 数量，每个 bean 两个 @Scheduled 方法
+     */
+    @Param({"50", "250"})
+    public int jobBeans;
+
+    /**
+     * 与任务 bean 一起创建的普通 bean 数量
+     */
+    @Param({"500"})
+    public int plainBeans;
+
+    @Param({"500"})
+    public long roundTripMicros;
+
+    @Benchmark
+    public void legacy(Blackhole bh) {
+        try (ScanResult scanResult = new ClassGraph().whitelistPackages("com.liyang").enableMethodInfo()
+                .enableAnnotationInfo().disableRuntimeInvisibleAnnotations().ignoreClassVisibility().scan()) {
+            for (Class<?> beanClass : scanResult.getAllClasses().loadClasses()) {
+                for (Method method : beanClass.getDeclaredMethods()) {
+                    bh.consume(method.isAnnotationPresent(Scheduled.class));
+                }
+            }
+        }
+        int scheduledMethods = jobBeans * 2;
+        for (int i = 0; i < scheduledMethods; i++) {
+            // getOneByName + insert
+            roundTrip();
+            roundTrip();
+        }
+        // initAllTasks 中再次 selectList
+        roundTrip();
+    }
+
+    @Benchmark
+    public void registry(Blackhole bh) {
+        ScheduledMethodRegistry registry = new ScheduledMethodRegistry();
+        for (int i = 0; i < plainBeans; i++) {
+            registry.postProcessAfterInitialization(new PlainBean(), "plainBean" + i);
+        }
+        for (int i = 0; i < jobBeans; i++) {
+            registry.postProcessAfterInitialization(new SampleJob(), "sampleJob" + i);
+        }
+        bh.consume(registry.getScheduledMethods());
+        // selectList + saveBatch
+        roundTrip();
+        roundTrip();
+    }
+
+    private void roundTrip() {
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(roundTripMicros));
+    }
+}
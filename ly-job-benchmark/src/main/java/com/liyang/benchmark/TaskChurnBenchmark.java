@@ -0,0 +1,147 @@
+package com.liyang.benchmark;
+
+import com.liyang.config.LimitProperties;
+import com.liyang.config.PartitionProperties;
+import com.liyang.core.limit.ClusterLimiter;
+import com.liyang.core.task.TaskDescriptorRegistry;
+import com.liyang.core.wheel.WheelTaskScheduler;
+import com.liyang.entity.TbScheduledTaskConfig;
+import com.liyang.operation.DynamicTaskManager;
+import com.liyang.operation.PartitionExecutors;
+import com.liyang.operation.SchedulerMetrics;
+import com.liyang.operation.TaskDagScheduler;
+import com.liyang.operation.TaskStatusBoard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DynamicTaskManager 在大量任务下的暂停/启动抖动
+ * <p>
+ * 预先装填 tasks 个任务，每次随机挑一个先 pauseTask 再 startTask，覆盖取消触发器、重新注册描述符和调用器、
+ * 解析 cron、装填触发器的完整路径。任务配置已是启用状态，startTask 不会写库和广播，测到的只是本地开销。
+ * cron 取每年一次，测量期间不会真正触发。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class TaskChurnBenchmark {
+
+    public static class ChurnJob {
+        public void run() {
+        }
+    }
+
+    private static final String YEARLY = "0 0 0 1 1 ?";
+
+    @Param({"10000", "100000"})
+    public int tasks;
+
+    @Param({"pool", "wheel"})
+    public String engine;
+
+    private String[] taskIds;
+    private DynamicTaskManager manager;
+    private TaskScheduler scheduler;
+    private PartitionExecutors partitionExecutors;
+    private StaticApplicationContext context;
+    private ClusterLimiter clusterLimiter;
+
+    @Setup
+    public void setup() {
+        if ("wheel".equals(engine)) {
+            scheduler = new WheelTaskScheduler(10, 512, 10, "churn-");
+        } else {
+            ThreadPoolTaskScheduler pool = new ThreadPoolTaskScheduler();
+            pool.setPoolSize(10);
+            pool.setRemoveOnCancelPolicy(true);
+            pool.initialize();
+            scheduler = pool;
+        }
+        context = new StaticApplicationContext();
+        context.getBeanFactory().registerSingleton("churnJob", new ChurnJob());
+        context.refresh();
+
+        partitionExecutors = new PartitionExecutors();
+        BenchmarkSupport.setField(partitionExecutors, "partitionProperties", new PartitionProperties());
+        partitionExecutors.init();
+
+        TaskDescriptorRegistry registry = new TaskDescriptorRegistry();
+        BenchmarkSupport.setField(registry, "appName", "ly-job");
+
+        manager = new DynamicTaskManager();
+        BenchmarkSupport.setField(manager, "taskScheduler", scheduler);
+        BenchmarkSupport.setField(manager, "applicationContext", context);
+        BenchmarkSupport.setField(manager, "partitionExecutors", partitionExecutors);
+        BenchmarkSupport.setField(manager, "descriptorRegistry", registry);
+        BenchmarkSupport.setField(manager, "schedulerMetrics", new SchedulerMetrics(new SimpleMeterRegistry()));
+        BenchmarkSupport.setField(manager, "appName", "ly-job");
+        // 没有任务配置上游，依赖图为空，不影响装填路径
+        TaskDagScheduler taskDag = new TaskDagScheduler();
+        BenchmarkSupport.setField(taskDag, "historySize", 200);
+        BenchmarkSupport.setField(manager, "taskDag", taskDag);
+        // 任务都没有配置限制，装填时只解除绑定，不访问 Redis
+        clusterLimiter = new ClusterLimiter(BenchmarkSupport.noopRedisson());
+        BenchmarkSupport.setField(clusterLimiter, "limitProperties", new LimitProperties());
+        BenchmarkSupport.setField(manager, "clusterLimiter", clusterLimiter);
+        // 没有长轮询等待时标记快照过期只写一个标志，不需要时间轮
+        BenchmarkSupport.setField(manager, "statusBoard", new TaskStatusBoard());
+
+        Map<String, TbScheduledTaskConfig> configs = BenchmarkSupport.getField(manager, "taskConfigs");
+        taskIds = new String[tasks];
+        for (int i = 0; i < tasks; i++) {
+            taskIds[i] = "churn-" + i;
+            TbScheduledTaskConfig config = new TbScheduledTaskConfig();
+            config.setTaskId(taskIds[i]);
+            config.setTaskName(taskIds[i]);
+            config.setTaskBean("churnJob");
+            config.setTaskMethod("run");
+            config.setCronExpression(YEARLY);
+            config.setEnabled(true);
+            configs.put(config.getTaskId(), config);
+            manager.startTask(config.getTaskId());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (scheduler instanceof WheelTaskScheduler) {
+            ((WheelTaskScheduler) scheduler).destroy();
+        } else {
+            ((ThreadPoolTaskScheduler) scheduler).shutdown();
+        }
+        partitionExecutors.shutdown();
+        clusterLimiter.destroy();
+        context.close();
+    }
+
+    @Benchmark
+    public boolean pauseAndStart() {
+        String taskId = taskIds[ThreadLocalRandom.current().nextInt(tasks)];
+        manager.pauseTask(taskId);
+        return manager.startTask(taskId);
+    }
+}
@@ -0,0 +1,99 @@
+package com.liyang.benchmark;
+
+import com.liyang.utils.DurationSnapshot;
+import com.liyang.utils.TaskExecutionRecorder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TaskExecutionRecorder 并发写入：环形缓冲区实现 vs 原 CopyOnWriteArrayList 实现
+ * <p>
+ * tasks=1 时所有线程写同一个任务（最坏的竞争），tasks=64 时写入分散到多个任务；
+ * mixed 组模拟 7 个执行线程写入的同时 1 个线程在读指标接口的快照。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class TaskExecutionRecorderBenchmark {
+
+    @Param({"1", "64"})
+    public int tasks;
+
+    private String[] taskNames;
+
+    private final Map<String, List<Long>> legacy = new ConcurrentHashMap<>();
+
+    @Setup
+    public void setup() {
+        taskNames = new String[tasks];
+        for (int i = 0; i < tasks; i++) {
+            taskNames[i] = "JobTest.test" + i;
+            TaskExecutionRecorder.record(taskNames[i], 1);
+        }
+    }
+
+    private String pick() {
+        return tasks == 1 ? taskNames[0] : taskNames[ThreadLocalRandom.current().nextInt(tasks)];
+    }
+
+    @Benchmark
+    public void ringBuffer() {
+        TaskExecutionRecorder.record(pick(), ThreadLocalRandom.current().nextInt(10_000));
+    }
+
+    @Benchmark
+    public void copyOnWriteList() {
+        String task = pick();
+        legacy.computeIfAbsent(task, k -> new CopyOnWriteArrayList<>());
+        List<Long> durations = legacy.get(task);
+        durations.add((long) ThreadLocalRandom.current().nextInt(10_000));
+        if (durations.size() > 30) {
+            durations.remove(0);
+        }
+    }
+
+    @Benchmark
+    public long leaseTime() {
+        return TaskExecutionRecorder.getLeaseTime(pick());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(7)
+    public void mixedRecord() {
+        TaskExecutionRecorder.record(pick(), ThreadLocalRandom.current().nextInt(10_000));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public DurationSnapshot mixedSnapshot() {
+        return TaskExecutionRecorder.snapshot(pick());
+    }
+}
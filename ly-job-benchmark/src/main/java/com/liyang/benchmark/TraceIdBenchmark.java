@@ -0,0 +1,48 @@
+package com.liyang.benchmark;
+
+import com.liyang.utils.TraceContext;
+import com.liyang.utils.TraceIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每次触发生成链路id的开销：原来的 UUID.randomUUID + replaceAll（共享 SecureRandom + 每次编译正则）与 TraceIdGenerator；
+ * begin 包含写入 ThreadLocal 和 MDC 并清除。多线程下观察 SecureRandom 的竞争
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class TraceIdBenchmark {
+
+    @Benchmark
+    public String uuidReplaceAll() {
+        return UUID.randomUUID().toString().replaceAll("-", "");
+    }
+
+    @Benchmark
+    public String generator() {
+        return TraceIdGenerator.next();
+    }
+
+    @Benchmark
+    public String beginAndClear() {
+        String traceId = TraceContext.begin();
+        TraceContext.clear();
+        return traceId;
+    }
+}
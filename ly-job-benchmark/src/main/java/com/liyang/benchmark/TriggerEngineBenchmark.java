@@ -0,0 +1,90 @@
+package com.liyang.benchmark;
+
+import com.liyang.core.wheel.WheelTaskScheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 触发引擎装填/取消吞吐：常驻 residentTasks 个任务的情况下，多线程并发 schedule + cancel
+ * <p>
+ * 运行：java -jar ly-job-benchmark/target/benchmarks.jar TriggerEngine
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TriggerEngineBenchmark {
+
+    @Param({"pool", "wheel"})
+    public String engine;
+
+    @Param({"100000"})
+    public int residentTasks;
+
+    private TaskScheduler scheduler;
+    private final List<ScheduledFuture<?>> resident = new ArrayList<>();
+    private static final Runnable NOOP = () -> {
+    };
+
+    @Setup(Level.Trial)
+    public void setup() {
+        if ("wheel".equals(engine)) {
+            scheduler = new WheelTaskScheduler(10, 512, 4, "bench-");
+        } else {
+            ThreadPoolTaskScheduler pool = new ThreadPoolTaskScheduler();
+            pool.setPoolSize(4);
+            pool.setRemoveOnCancelPolicy(true);
+            pool.initialize();
+            scheduler = pool;
+        }
+        long base = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+        for (int i = 0; i < residentTasks; i++) {
+            resident.add(scheduler.schedule(NOOP, new Date(base + i)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        resident.forEach(f -> f.cancel(false));
+        resident.clear();
+        if (scheduler instanceof WheelTaskScheduler) {
+            ((WheelTaskScheduler) scheduler).destroy();
+        } else {
+            ((ThreadPoolTaskScheduler) scheduler).shutdown();
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean armAndCancel() {
+        long delay = 60_000 + ThreadLocalRandom.current().nextInt(600_000);
+        ScheduledFuture<?> future = scheduler.schedule(NOOP, new Date(System.currentTimeMillis() + delay));
+        return future.cancel(false);
+    }
+}
@@ -0,0 +1,70 @@
+package com.liyang.benchmark;
+
+import com.liyang.core.wheel.WheelTaskScheduler;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 触发抖动：在 spreadMillis 内随机装填 tasks 个一次性任务，统计实际触发时间与计划时间的偏差
+ * <p>
+ * 抖动是单次长时间的分布统计，不适合放进 JMH 的迭代模型，直接以 main 方法运行：
+ * {@code TriggerJitterBenchmark [tasks] [spreadMillis]}
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+public class TriggerJitterBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        long spread = args.length > 1 ? Long.parseLong(args[1]) : 5_000;
+
+        ThreadPoolTaskScheduler pool = new ThreadPoolTaskScheduler();
+        pool.setPoolSize(10);
+        pool.initialize();
+        report("pool", run(pool, tasks, spread));
+        pool.shutdown();
+
+        WheelTaskScheduler wheel = new WheelTaskScheduler(10, 512, 10, "jitter-");
+        report("wheel", run(wheel, tasks, spread));
+        wheel.destroy();
+    }
+
+    private static long[] run(TaskScheduler scheduler, int tasks, long spread) throws InterruptedException {
+        long[] lags = new long[tasks];
+        AtomicInteger index = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(tasks);
+        long base = System.currentTimeMillis() + 500;
+        long armStart = System.nanoTime();
+        for (int i = 0; i < tasks; i++) {
+            long planned = base + ThreadLocalRandom.current().nextLong(spread);
+            scheduler.schedule(() -> {
+                lags[index.getAndIncrement()] = System.currentTimeMillis() - planned;
+                done.countDown();
+            }, new Date(planned));
+        }
+        long armNanos = System.nanoTime() - armStart;
+        System.out.printf("armed %d tasks in %d ms (%.0f ops/ms)%n", tasks, armNanos / 1_000_000,
+                tasks / (armNanos / 1_000_000.0));
+        done.await(spread + 60_000, TimeUnit.MILLISECONDS);
+        return Arrays.copyOf(lags, index.get());
+    }
+
+    private static void report(String engine, long[] lags) {
+        Arrays.sort(lags);
+        System.out.printf("[%s] fired=%d lag(ms) p50=%d p99=%d p999=%d max=%d%n", engine, lags.length,
+                percentile(lags, 0.50), percentile(lags, 0.99), percentile(lags, 0.999), lags[lags.length - 1]);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int idx = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(idx, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,45 @@
+package com.liyang.config;
+
+import com.liyang.core.cluster.ClusterMembership;
+import com.liyang.core.cluster.RedisMembershipStore;
+import com.liyang.core.wheel.HashedWheelTimer;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+
+/**
+ * 集群归属模式配置
+ * <p>
+ * ly-job.cluster.mode=lock（默认）：每个节点都触发，每次触发抢锁；
+ * ly-job.cluster.mode=ownership：节点通过心跳组成集群，任务按一致性哈希分给唯一主节点，只有主节点触发，不再抢锁。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Configuration
+@ConditionalOnProperty(name = "ly-job.cluster.mode", havingValue = "ownership")
+public class ClusterConfig {
+
+    @Bean(destroyMethod = "stop")
+    public ClusterMembership clusterMembership(RedissonClient redissonClient, HashedWheelTimer deferredTimer,
+                                               @Value("${spring.application.name}") String appName,
+                                               @Value("${ly-job.cluster.node-id:}") String nodeId,
+                                               @Value("${ly-job.cluster.heartbeat-ms:3000}") long heartbeatMillis,
+                                               @Value("${ly-job.cluster.ttl-ms:10000}") long ttlMillis,
+                                               @Value("${ly-job.cluster.virtual-nodes:64}") int virtualNodes) {
+        if (!StringUtils.hasText(nodeId)) {
+            // pid@host 加随机后缀，同一主机重启后不会沿用尚未过期的旧心跳
+            nodeId = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        }
+        RedisMembershipStore store = new RedisMembershipStore(redissonClient, "ly-job:members:" + appName);
+        ClusterMembership membership = new ClusterMembership(store, nodeId, ttlMillis, virtualNodes);
+        membership.start(deferredTimer, heartbeatMillis);
+        return membership;
+    }
+}
@@ -0,0 +1,61 @@
+package com.liyang.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 集群级并发与频率限制配置
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ly-job.limit")
+public class LimitProperties {
+
+    /**
+     * 限制组名 -> 限制。任务通过 limit_group 加入；未指定时，与任务分区同名的组对该分区的任务生效
+     */
+    private Map<String, Group> groups = new LinkedHashMap<>();
+
+    /**
+     * 节点持有并发名额的租期，节点宕机后名额在租期到期后归还
+     */
+    private long leaseMs = 10000;
+
+    /**
+     * 续期间隔：有名额的组按此间隔续期，本地已空闲的名额在续期时归还集群
+     */
+    private long renewMs = 1000;
+
+    /**
+     * 本地缓存令牌时一次预取的个数，不超过桶容量
+     */
+    private int tokenBatch = 5;
+
+    /**
+     * 预取的令牌在本地的有效期，过期未用的作废
+     */
+    private long tokenTtlMs = 1000;
+
+    @Data
+    public static class Group {
+        /**
+         * 全集群最多同时执行的次数，0 表示不限制
+         */
+        private int maxConcurrency;
+        /**
+         * 令牌桶每秒生成的令牌数（每次触发消耗一个），0 表示不限制
+         */
+        private double rate;
+        /**
+         * 令牌桶容量，0 表示取 max(1, rate)
+         */
+        private int burst;
+    }
+}
@@ -0,0 +1,55 @@
+package com.liyang.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 执行分区配置，每个分区对应一个独立的有界线程池
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ly-job.partition")
+public class PartitionProperties {
+
+    public static final String DEFAULT_PARTITION = "default";
+
+    /**
+     * 分区名 -> 线程池配置
+     */
+    private Map<String, Pool> pools = new LinkedHashMap<>();
+
+    @Data
+    public static class Pool {
+        private int coreSize = 4;
+        private int maxSize = 4;
+        private int queueCapacity = 200;
+        private long keepAliveSeconds = 60;
+        private RejectPolicy rejectPolicy = RejectPolicy.ABORT;
+    }
+
+    public enum RejectPolicy {
+        /**
+         * 拒绝本次触发并记录
+         */
+        ABORT,
+        /**
+         * 静默丢弃本次触发
+         */
+        DISCARD,
+        /**
+         * 丢弃队列中最早的一次触发
+         */
+        DISCARD_OLDEST,
+        /**
+         * 由触发线程直接执行，会阻塞触发，仅用于兜底
+         */
+        CALLER_RUNS
+    }
+}
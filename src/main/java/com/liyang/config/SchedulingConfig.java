@@ -1,12 +1,22 @@
 package com.liyang.config;
 
+import com.liyang.core.wheel.HashedWheelTimer;
+import com.liyang.core.wheel.WheelTaskScheduler;
+import com.liyang.utils.TraceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
 import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 
 import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * SchedulingConfig 类的简要描述
@@ -25,7 +35,11 @@ public class SchedulingConfig implements SchedulingConfigurer {
         taskRegistrar.setFixedRateTasksList(new ArrayList<>());
     }
 
+    /**
+     * 默认触发引擎：单个 DelayedWorkQueue 堆
+     */
     @Bean
+    @ConditionalOnProperty(name = "ly-job.trigger.engine", havingValue = "pool", matchIfMissing = true)
     public ThreadPoolTaskScheduler taskScheduler() {
         ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
         scheduler.setPoolSize(10);
@@ -33,4 +47,34 @@ public class SchedulingConfig implements SchedulingConfigurer {
         scheduler.initialize();
         return scheduler;
     }
-}
\ No newline at end of file
+
+    /**
+     * 时间轮触发引擎：装填、取消均为 O(1)，适合大量动态注册的任务
+     */
+    @Bean(destroyMethod = "destroy")
+    @ConditionalOnProperty(name = "ly-job.trigger.engine", havingValue = "wheel")
+    public WheelTaskScheduler wheelTaskScheduler(@Value("${ly-job.trigger.wheel.tick-ms:10}") long tickMillis,
+                                                 @Value("${ly-job.trigger.wheel.size:512}") int wheelSize,
+                                                 @Value("${ly-job.trigger.wheel.pool-size:10}") int poolSize) {
+        return new WheelTaskScheduler(tickMillis, wheelSize, poolSize, "manual-task-");
+    }
+
+    /**
+     * Spring Boot 自动配置的 ThreadPoolTaskExecutor（@Async 等）使用唯一的 TaskDecorator，任务提交的异步工作带上链路id
+     */
+    @Bean
+    public TaskDecorator traceTaskDecorator() {
+        return TraceContext::wrap;
+    }
+
+    /**
+     * 共享的延迟回调时间轮：备机复查等需要"过一会儿再看"的逻辑都登记在这里，不占用调度线程等待
+     */
+    @Bean(destroyMethod = "stop")
+    public HashedWheelTimer deferredTimer(@Value("${ly-job.deferred-timer.tick-ms:10}") long tickMillis) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("ly-job-deferred-");
+        threadFactory.setDaemon(true);
+        ExecutorService callbackExecutor = Executors.newSingleThreadExecutor(threadFactory);
+        return new HashedWheelTimer("ly-job-deferred-wheel", tickMillis, TimeUnit.MILLISECONDS, 512, callbackExecutor);
+    }
+}
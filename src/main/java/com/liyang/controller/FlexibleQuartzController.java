@@ -1,14 +1,37 @@
 package com.liyang.controller;
 
+import com.liyang.core.chunk.ChunkedJobRunner;
+import com.liyang.core.cluster.ClusterMembership;
+import com.liyang.core.dag.DagRun;
+import com.liyang.core.delay.DelayedJobQueue;
+import com.liyang.core.dag.TaskDag;
+import com.liyang.core.limit.ClusterLimiter;
+import com.liyang.core.redis.aop.LockWatchdog;
+import com.liyang.core.redis.aop.StandbyScheduler;
+import com.liyang.core.shard.ShardCoordinator;
+import com.liyang.core.task.TaskDescriptorRegistry;
+import com.liyang.core.tracelog.TraceLogAppender;
+import com.liyang.core.tracelog.TraceLogStore;
 import com.liyang.entity.TbScheduledTaskConfig;
 import com.liyang.operation.DynamicTaskManager;
+import com.liyang.operation.TaskConfigSync;
+import com.liyang.operation.TaskDagScheduler;
+import com.liyang.operation.TaskStatusBoard;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
+import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import javax.annotation.Resource;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -22,13 +45,92 @@ import java.util.Map;
 @Slf4j
 @Api(tags ="轮询调度")
 public class FlexibleQuartzController {
+    /**
+     * 长轮询最长挂起时间
+     */
+    private static final long MAX_STATUS_WAIT_MS = 60000;
+
     @Resource
     private DynamicTaskManager taskManager;
 
+    @Resource
+    private StandbyScheduler standbyScheduler;
+
+    @Resource
+    private LockWatchdog lockWatchdog;
+
+    @Resource
+    private TaskConfigSync taskConfigSync;
+
+    @Resource
+    private ShardCoordinator shardCoordinator;
+
+    @Resource
+    private TaskDagScheduler taskDagScheduler;
+
+    @Resource
+    private ChunkedJobRunner chunkedJobRunner;
+
+    @Resource
+    private TaskDescriptorRegistry descriptorRegistry;
+
+    @Resource
+    private ClusterLimiter clusterLimiter;
+
+    @Resource
+    private TaskStatusBoard taskStatusBoard;
+
+    @Resource
+    private DelayedJobQueue delayedJobQueue;
+
+    @Autowired(required = false)
+    private ClusterMembership clusterMembership;
+
     @GetMapping("/all")
     @ApiOperation(value = "获取所有任务状态")
-    public Map<String, DynamicTaskManager.TaskStatus> getAllTasks() {
-        return taskManager.getAllTaskStatus();
+    public ResponseEntity<Map<String, DynamicTaskManager.TaskStatus>> getAllTasks(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        TaskStatusBoard.Snapshot snapshot = taskStatusBoard.current();
+        String etag = etag(taskStatusBoard.getEpoch(), snapshot.getVersion());
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(snapshot.getStatuses());
+    }
+
+    @GetMapping("/status")
+    @ApiOperation(value = "分页查询任务状态，可按启用、装填、分区、taskId 前缀过滤；ETag 为启动纪元和状态版本号，未变化时返回 304")
+    public ResponseEntity<TaskStatusBoard.StatusPage> status(TaskStatusBoard.StatusFilter filter,
+                                                             @RequestParam(defaultValue = "1") int page,
+                                                             @RequestParam(defaultValue = "50") int size,
+                                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // 先比较版本，未变化时不做过滤和分页
+        String etag = etag(taskStatusBoard.getEpoch(), taskStatusBoard.current().getVersion());
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        TaskStatusBoard.StatusPage result = taskStatusBoard.query(filter, Math.max(1, page), Math.max(1, Math.min(size, 500)));
+        return ResponseEntity.ok().eTag(etag(result.getEpoch(), result.getVersion())).body(result);
+    }
+
+    @GetMapping("/status/changes")
+    @ApiOperation(value = "某个状态版本之后变化的任务，epoch 与上次返回的不同时返回全部任务；waitMs 大于 0 时没有变化则挂起等待，直到有变化或超时（长轮询）")
+    public DeferredResult<TaskStatusBoard.StatusDelta> statusChanges(@RequestParam(defaultValue = "0") long epoch,
+                                                                     @RequestParam(defaultValue = "0") long since,
+                                                                     @RequestParam(defaultValue = "0") long waitMs) {
+        long wait = Math.max(0, Math.min(waitMs, MAX_STATUS_WAIT_MS));
+        // 容器的异步超时比等待时间稍长，正常由时间轮在 wait 到期时回调
+        DeferredResult<TaskStatusBoard.StatusDelta> result = new DeferredResult<>(wait + 5000);
+        if (wait == 0) {
+            result.setResult(taskStatusBoard.changesSince(epoch, since));
+        } else {
+            taskStatusBoard.awaitChanges(epoch, since, wait, result::setResult);
+        }
+        return result;
+    }
+
+    private static String etag(long epoch, long version) {
+        return "W/\"" + epoch + "-" + version + "\"";
     }
 
     @PostMapping("/start")
@@ -57,4 +159,190 @@ public class FlexibleQuartzController {
         return taskManager.updateTaskConfig(newConfig.getTaskId(), newConfig) ?
                 ResponseEntity.ok().build() : ResponseEntity.status(500).body("更新任务配置失败");
     }
+
+    @PostMapping("/bulk/start")
+    @ApiOperation(value = "批量启动：按 taskIds 或 filter 选择任务，一条 UPDATE 持久化后逐个装填")
+    public ResponseEntity<?> startTasks(@RequestBody BulkRequest request) {
+        List<String> taskIds = resolve(request);
+        return taskIds == null ? ResponseEntity.badRequest().body("taskIds 和 filter 至少指定一个")
+                : ResponseEntity.ok(taskManager.startTasks(taskIds));
+    }
+
+    @PostMapping("/bulk/stop")
+    @ApiOperation(value = "批量停止：按 taskIds 或 filter 选择任务，本节点取消后一条 UPDATE 持久化")
+    public ResponseEntity<?> stopTasks(@RequestBody BulkRequest request) {
+        List<String> taskIds = resolve(request);
+        return taskIds == null ? ResponseEntity.badRequest().body("taskIds 和 filter 至少指定一个")
+                : ResponseEntity.ok(taskManager.stopTasks(taskIds));
+    }
+
+    @PostMapping("/bulk/pause")
+    @ApiOperation(value = "批量暂停：只影响本节点，不写库")
+    public ResponseEntity<?> pauseTasks(@RequestBody BulkRequest request) {
+        List<String> taskIds = resolve(request);
+        return taskIds == null ? ResponseEntity.badRequest().body("taskIds 和 filter 至少指定一个")
+                : ResponseEntity.ok(taskManager.pauseTasks(taskIds));
+    }
+
+    @PutMapping("/bulk/update")
+    @ApiOperation(value = "批量修改：patch 中非空的字段一条 UPDATE 写入所有选中的任务，受影响的任务重新装填")
+    public ResponseEntity<?> updateTasks(@RequestBody BulkRequest request) {
+        List<String> taskIds = resolve(request);
+        if (taskIds == null || request.getPatch() == null) {
+            return ResponseEntity.badRequest().body("需要指定 patch，以及 taskIds 或 filter");
+        }
+        return ResponseEntity.ok(taskManager.updateTasks(taskIds, request.getPatch()));
+    }
+
+    /**
+     * 优先使用 taskIds；filter 为空对象时选中全部任务
+     */
+    private List<String> resolve(BulkRequest request) {
+        if (request.getTaskIds() != null && !request.getTaskIds().isEmpty()) {
+            return request.getTaskIds();
+        }
+        return request.getFilter() == null ? null : taskManager.selectTaskIds(request.getFilter());
+    }
+
+    @GetMapping("/cluster")
+    @ApiOperation(value = "集群归属模式下的成员与本节点标识")
+    public ResponseEntity<Map<String, Object>> cluster() {
+        if (clusterMembership == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Map<String, Object> cluster = new LinkedHashMap<>();
+        cluster.put("nodeId", clusterMembership.getNodeId());
+        cluster.put("members", clusterMembership.getMembers());
+        return ResponseEntity.ok(cluster);
+    }
+
+    @GetMapping("/sync")
+    @ApiOperation(value = "配置变更传播统计：版本号、轮询水位、广播/接收/应用次数")
+    public Map<String, Long> syncStats() {
+        return taskConfigSync.getStats();
+    }
+
+    @GetMapping("/shards")
+    @ApiOperation(value = "分片任务最近一次触发的分片状态：s:序号 执行中（持有者|租期到期），d:序号 已完成（持有者|完成时间|结果）")
+    public ResponseEntity<Map<String, String>> shards(@RequestParam String taskName) {
+        Map<String, String> shards = shardCoordinator.getLastFiring(taskName);
+        return shards == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(shards);
+    }
+
+    @GetMapping("/checkpoint")
+    @ApiOperation(value = "分块任务的检查点：游标、已处理块数与条数、当前执行者，没有未完成的分块处理时返回 404")
+    public ResponseEntity<Map<String, String>> checkpoint(@RequestParam String taskName) {
+        Map<String, String> checkpoint = chunkedJobRunner.getCheckpoint(descriptorRegistry.checkpointKeyOf(taskName));
+        return checkpoint == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(checkpoint);
+    }
+
+    @GetMapping("/checkpoint/stats")
+    @ApiOperation(value = "分块处理统计：提交块数、处理条数、从检查点继续次数、被接管次数")
+    public Map<String, Long> checkpointStats() {
+        return chunkedJobRunner.getStats();
+    }
+
+    @GetMapping("/limits")
+    @ApiOperation(value = "集群并发与频率限制：本地命中、访问 Redis、因并发或频率被拒绝的次数，以及各限制组在本节点的名额与令牌")
+    public Map<String, Object> limits() {
+        return clusterLimiter.getStats();
+    }
+
+    @GetMapping(value = "/logs", produces = "text/plain;charset=UTF-8")
+    @ApiOperation(value = "按链路id查看一次执行的完整日志，链路id见执行记录；超过 maxBytes 的部分截断")
+    public ResponseEntity<String> logs(@RequestParam String traceId,
+                                       @RequestParam(defaultValue = "10485760") int maxBytes) throws IOException {
+        TraceLogStore store = TraceLogAppender.getStore();
+        if (store == null) {
+            return ResponseEntity.notFound().build();
+        }
+        List<String> lines = store.read(traceId, Math.max(1, maxBytes));
+        if (lines.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(String.join("", lines));
+    }
+
+    @GetMapping("/logs/stats")
+    @ApiOperation(value = "链路日志存储：段数、总字节数、当前段内的链路数、最早日志时间")
+    public ResponseEntity<Map<String, Long>> logStats() {
+        TraceLogStore store = TraceLogAppender.getStore();
+        return store == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(store.getStats());
+    }
+
+    @PostMapping("/delay")
+    @ApiOperation(value = "提交一次性延迟任务，指定 key 时同类型同 key 只保留一个；返回任务 id")
+    public ResponseEntity<String> submitDelayed(@RequestParam String type,
+                                                @RequestParam(required = false) String key,
+                                                @RequestParam(defaultValue = "0") long delayMs,
+                                                @RequestBody(required = false) String payload) {
+        long dueTime = System.currentTimeMillis() + Math.max(0, delayMs);
+        return ResponseEntity.ok(key == null ? delayedJobQueue.submit(type, payload, dueTime)
+                : delayedJobQueue.submitKeyed(type, key, payload, dueTime));
+    }
+
+    @DeleteMapping("/delay")
+    @ApiOperation(value = "取消尚未执行的延迟任务")
+    public ResponseEntity<?> cancelDelayed(@RequestParam String jobId) {
+        return delayedJobQueue.cancel(jobId) ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/delay/stats")
+    @ApiOperation(value = "延迟任务队列：提交、拉取、成功、重试、死信、租期过期重新投递次数，以及各状态的排队数")
+    public Map<String, Object> delayedStats() {
+        return delayedJobQueue.getStats();
+    }
+
+    @GetMapping("/dag")
+    @ApiOperation(value = "任务依赖图：上游、下游，以及因成环被忽略依赖的任务")
+    public Map<String, Object> dag() {
+        TaskDag dag = taskDagScheduler.getDag();
+        Map<String, Object> graph = new LinkedHashMap<>();
+        graph.put("upstream", dag.getUpstream());
+        graph.put("downstream", dag.getDownstream());
+        graph.put("cyclic", dag.getCyclic());
+        return graph;
+    }
+
+    @GetMapping("/dag/runs")
+    @ApiOperation(value = "本节点发起的最近 DAG 运行，新的在前")
+    public List<DagRun> dagRuns(@RequestParam(defaultValue = "20") int limit) {
+        return taskDagScheduler.getRuns(Math.max(1, limit));
+    }
+
+    @GetMapping("/dag/runs/{runId}")
+    @ApiOperation(value = "单次 DAG 运行中各任务的状态与起止时间")
+    public ResponseEntity<DagRun> dagRun(@PathVariable String runId) {
+        DagRun run = taskDagScheduler.getRun(runId);
+        return run == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(run);
+    }
+
+    @PostMapping("/dag/trigger")
+    @ApiOperation(value = "从指定任务手动发起一次 DAG 运行，返回运行 id")
+    public ResponseEntity<?> triggerDag(@RequestParam String taskId) {
+        String runId = taskManager.triggerDag(taskId);
+        return runId == null ? ResponseEntity.status(500).body("任务不存在或是分片任务") : ResponseEntity.ok(runId);
+    }
+
+    @GetMapping("/standby")
+    @ApiOperation(value = "未抢到锁节点的统计：立即归还的线程数、免去的等待时长、备机复查与接管次数")
+    public Map<String, Long> standbyStats() {
+        return standbyScheduler.getStats();
+    }
+
+    @GetMapping("/watchdog")
+    @ApiOperation(value = "锁看门狗统计：持有中的租约、续期次数、续期失败次数")
+    public Map<String, Long> watchdogStats() {
+        return lockWatchdog.getStats();
+    }
+
+    @Data
+    public static class BulkRequest {
+        private List<String> taskIds;
+        private TaskStatusBoard.StatusFilter filter;
+        /**
+         * 批量修改的字段
+         */
+        private TbScheduledTaskConfig patch;
+    }
 }
@@ -0,0 +1,75 @@
+package com.liyang.controller;
+
+import com.liyang.core.redis.lock.RedisScheduleLock;
+import com.liyang.dao.TbTaskExecutionLogDao;
+import com.liyang.entity.TbTaskExecutionLog;
+import com.liyang.operation.ExecutionLogWriter;
+import com.liyang.utils.DurationSnapshot;
+import com.liyang.utils.TaskExecutionRecorder;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.annotation.Resource;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TaskMetricsController 类的简要描述
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@RestController
+@RequestMapping("/apis/metrics")
+@Api(tags = "任务指标")
+public class TaskMetricsController {
+
+    /**
+     * 只统计使用 Redis 锁实现的任务，jdbc、local 的触发不经过它
+     */
+    @Resource
+    private RedisScheduleLock redisScheduleLock;
+
+    @Resource
+    private ExecutionLogWriter executionLogWriter;
+
+    @Resource
+    private TbTaskExecutionLogDao executionLogDao;
+
+    @GetMapping("/durations")
+    @ApiOperation(value = "所有任务的执行耗时分布（p50/p95/p99/max/count）")
+    public Map<String, DurationSnapshot> durations() {
+        return TaskExecutionRecorder.snapshots();
+    }
+
+    @GetMapping("/duration")
+    @ApiOperation(value = "单个任务的执行耗时分布")
+    public ResponseEntity<DurationSnapshot> duration(@RequestParam String taskName) {
+        DurationSnapshot snapshot = TaskExecutionRecorder.snapshot(taskName);
+        return snapshot == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(snapshot);
+    }
+
+    @GetMapping("/executions")
+    @ApiOperation(value = "单个任务最近的执行历史")
+    public List<TbTaskExecutionLog> executions(@RequestParam String taskName,
+                                               @RequestParam(defaultValue = "20") int limit) {
+        return executionLogDao.selectRecent(taskName, Math.max(1, Math.min(limit, 500)));
+    }
+
+    @GetMapping("/execution-log")
+    @ApiOperation(value = "执行历史写入统计：入队、丢弃、写入、失败条数")
+    public Map<String, Long> executionLogStats() {
+        return executionLogWriter.getStats();
+    }
+
+    @GetMapping("/redis")
+    @ApiOperation(value = "Redis 锁实现的命令统计（仅 lock provider 为 redis 的任务）：触发次数、命令数、每次触发命令数 x100")
+    public Map<String, Long> redisStats() {
+        return redisScheduleLock.getStats();
+    }
+}
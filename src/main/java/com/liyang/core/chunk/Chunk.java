@@ -0,0 +1,42 @@
+package com.liyang.core.chunk;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一块数据和处理完这块之后的游标
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Getter
+public final class Chunk<T> {
+
+    private final List<T> items;
+    private final String cursor;
+
+    private Chunk(List<T> items, String cursor) {
+        this.items = items;
+        this.cursor = cursor;
+    }
+
+    /**
+     * @param cursor 处理完本块后的游标，通常是本块最后一条的主键
+     */
+    public static <T> Chunk<T> of(List<T> items, String cursor) {
+        return new Chunk<>(items == null ? Collections.emptyList() : items, cursor);
+    }
+
+    /**
+     * 没有更多数据
+     */
+    public static <T> Chunk<T> end() {
+        return new Chunk<>(Collections.emptyList(), null);
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+}
@@ -0,0 +1,40 @@
+package com.liyang.core.chunk;
+
+import java.util.List;
+
+/**
+ * 分块处理任务
+ * <p>
+ * 处理大表的任务实现该接口，并照常在某个方法上标注 @Scheduled 决定执行时间。触发并抢到锁后，切面不直接执行该方法，
+ * 而是从 Redis 中的检查点游标开始循环：读一块、处理、提交游标；全部读完后删除检查点，再执行方法体做收尾。
+ * 节点宕机或租期丢失后由其他节点接管时，从最后一次提交的游标继续，不会从头再来。
+ * <p>
+ * 一块处理完但游标还没提交时中断，接管后会重新处理这一块，process 需要能承受重复处理（至少一次）。
+ *
+ * @param <T> 数据项类型
+ * @author liyang
+ * @since 2026/10/18
+ */
+public interface ChunkedJob<T> {
+
+    /**
+     * 读取游标之后的一块数据
+     *
+     * @param cursor 上一块提交的游标，首次执行时为空
+     * @param limit  块大小
+     * @return 本块数据和处理完本块后的游标，数据为空表示全部处理完
+     */
+    Chunk<T> read(String cursor, int limit);
+
+    /**
+     * 处理一块数据，抛出异常时本次执行结束，检查点停留在上一块，下次触发从这一块重试
+     */
+    void process(List<T> items) throws Exception;
+
+    /**
+     * 块大小，每处理完一块提交一次游标（一次 Redis 往返）
+     */
+    default int chunkSize() {
+        return 500;
+    }
+}
@@ -0,0 +1,150 @@
+package com.liyang.core.chunk;
+
+import com.liyang.core.task.TaskDescriptor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 分块任务执行器
+ * <p>
+ * 检查点放在任务自己的 Redis hash 中（{@link TaskDescriptor#getCheckpointKey()}）：cursor 最后提交的游标，
+ * chunks / items 累计处理的块数和条数，owner 当前执行者（本次触发的链路id）。开始执行时先把 owner 改成自己并读出游标，
+ * 之后每块提交都校验 owner：原执行者租期丢失、检查点已被接管后，它的提交会失败并停止，不会把游标改回去。
+ * <p>
+ * 每块一次 Redis 往返；全部处理完后删除检查点，下次触发从头开始。检查点在最后一次提交后 ly-job.chunk.checkpoint-ttl-ms 过期，
+ * 任务下线后不会一直残留。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Component
+@Slf4j
+public class ChunkedJobRunner {
+
+    /**
+     * KEYS[1] 检查点；ARGV[1] 执行者，ARGV[2] 当前时间，ARGV[3] 过期时间
+     * 返回 {游标, 已处理块数, 已处理条数}
+     */
+    private static final String CLAIM_SCRIPT =
+            "redis.call('HSET', KEYS[1], 'owner', ARGV[1], 'claimedAt', ARGV[2]) "
+                    + "redis.call('PEXPIRE', KEYS[1], ARGV[3]) "
+                    + "return {redis.call('HGET', KEYS[1], 'cursor') or '', "
+                    + "redis.call('HGET', KEYS[1], 'chunks') or '0', redis.call('HGET', KEYS[1], 'items') or '0'}";
+
+    /**
+     * KEYS[1] 检查点；ARGV[1] 执行者，ARGV[2] 游标，ARGV[3] 本块条数，ARGV[4] 当前时间，ARGV[5] 过期时间
+     */
+    private static final String COMMIT_SCRIPT =
+            "if redis.call('HGET', KEYS[1], 'owner') ~= ARGV[1] then return 0 end "
+                    + "redis.call('HSET', KEYS[1], 'cursor', ARGV[2], 'committedAt', ARGV[4]) "
+                    + "redis.call('HINCRBY', KEYS[1], 'chunks', 1) "
+                    + "redis.call('HINCRBY', KEYS[1], 'items', ARGV[3]) "
+                    + "redis.call('PEXPIRE', KEYS[1], ARGV[5]) "
+                    + "return 1";
+
+    /**
+     * KEYS[1] 检查点；ARGV[1] 执行者
+     */
+    private static final String FINISH_SCRIPT =
+            "if redis.call('HGET', KEYS[1], 'owner') ~= ARGV[1] then return 0 end "
+                    + "redis.call('DEL', KEYS[1]) "
+                    + "return 1";
+
+    private final RedissonClient redissonClient;
+    private final RScript script;
+
+    @Value("${ly-job.chunk.checkpoint-ttl-ms:604800000}")
+    private long checkpointTtlMillis;
+
+    private final LongAdder chunksCommitted = new LongAdder();
+    private final LongAdder itemsProcessed = new LongAdder();
+    private final LongAdder resumed = new LongAdder();
+    private final LongAdder fenced = new LongAdder();
+
+    public ChunkedJobRunner(RedissonClient redissonClient) {
+        this.redissonClient = redissonClient;
+        this.script = redissonClient.getScript(StringCodec.INSTANCE);
+    }
+
+    /**
+     * 从检查点开始逐块处理
+     *
+     * @param owner 本次执行者，使用本次触发的链路id
+     * @return 是否全部处理完；检查点被其他执行者接管或线程被中断时返回 false，检查点保留
+     */
+    public <T> boolean run(TaskDescriptor descriptor, ChunkedJob<T> job, String owner) throws Exception {
+        String key = descriptor.getCheckpointKey();
+        String taskName = descriptor.getTaskName();
+        List<Object> claimed = script.eval(RScript.Mode.READ_WRITE, CLAIM_SCRIPT, RScript.ReturnType.MULTI,
+                Collections.singletonList(key), owner, String.valueOf(System.currentTimeMillis()),
+                String.valueOf(checkpointTtlMillis));
+        String cursor = claimed.get(0).toString().isEmpty() ? null : claimed.get(0).toString();
+        if (cursor != null) {
+            resumed.increment();
+            log.info("任务[{}]从检查点继续：游标 {}，此前已处理 {} 块 {} 条", taskName, cursor, claimed.get(1), claimed.get(2));
+        }
+        int chunkSize = Math.max(1, job.chunkSize());
+        int chunks = 0;
+        long items = 0;
+        while (true) {
+            if (Thread.currentThread().isInterrupted()) {
+                log.warn("任务[{}]被中断，检查点停留在游标 {}", taskName, cursor);
+                return false;
+            }
+            Chunk<T> chunk = job.read(cursor, chunkSize);
+            if (chunk == null || chunk.isEmpty()) {
+                break;
+            }
+            if (chunk.getCursor() == null) {
+                throw new IllegalStateException("任务[" + taskName + "]返回的数据块没有游标，无法提交检查点");
+            }
+            job.process(chunk.getItems());
+            Long committed = script.eval(RScript.Mode.READ_WRITE, COMMIT_SCRIPT, RScript.ReturnType.INTEGER,
+                    Collections.singletonList(key), owner, chunk.getCursor(), String.valueOf(chunk.getItems().size()),
+                    String.valueOf(System.currentTimeMillis()), String.valueOf(checkpointTtlMillis));
+            if (committed == null || committed != 1L) {
+                fenced.increment();
+                log.warn("任务[{}]的检查点已被其他执行者接管，本节点停止，最后处理到游标 {}", taskName, chunk.getCursor());
+                return false;
+            }
+            cursor = chunk.getCursor();
+            chunks++;
+            items += chunk.getItems().size();
+            chunksCommitted.increment();
+            itemsProcessed.add(chunk.getItems().size());
+        }
+        script.eval(RScript.Mode.READ_WRITE, FINISH_SCRIPT, RScript.ReturnType.INTEGER,
+                Collections.singletonList(key), owner);
+        log.info("任务[{}]分块处理完成，本次处理 {} 块 {} 条", taskName, chunks, items);
+        return true;
+    }
+
+    /**
+     * 任务当前的检查点，没有未完成的分块处理时为空
+     */
+    public Map<String, String> getCheckpoint(String checkpointKey) {
+        Map<String, String> checkpoint = redissonClient.<String, String>getMap(checkpointKey, StringCodec.INSTANCE)
+                .readAllMap();
+        return checkpoint.isEmpty() ? null : new TreeMap<>(checkpoint);
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("chunksCommitted", chunksCommitted.sum());
+        stats.put("itemsProcessed", itemsProcessed.sum());
+        stats.put("resumed", resumed.sum());
+        stats.put("fenced", fenced.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,157 @@
+package com.liyang.core.cluster;
+
+import com.liyang.core.wheel.HashedWheelTimer;
+import com.liyang.core.wheel.WheelTimeout;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 集群成员与任务归属
+ * <p>
+ * 各节点定期向 {@link MembershipStore} 上报心跳，并按存活节点构建一致性哈希环，任务按 taskId 分配给唯一的主节点。
+ * 只有主节点装填触发器，其余节点既不触发也不抢锁；成员变化时通知监听器重新分配。
+ * 节点间对成员的视图在一个心跳周期内收敛，收敛前的短暂窗口里同一任务可能在新旧主节点各触发一次。
+ * <p>
+ * 时间轮只负责到点，心跳的存储读写和监听器（重新分配）都在单独的心跳线程上执行，
+ * 存储变慢或重新分配等锁时不会拖住同一时间轮上的锁续期和备机复查。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Slf4j
+public class ClusterMembership {
+
+    private final MembershipStore store;
+    private final String nodeId;
+    private final long ttlMillis;
+    private final int virtualNodes;
+    private final LongSupplier clock;
+
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile SortedSet<String> members = Collections.emptySortedSet();
+    private volatile ConsistentHashRing ring;
+
+    private volatile boolean running;
+    private volatile WheelTimeout heartbeatTimeout;
+    private volatile ExecutorService heartbeatExecutor;
+
+    public ClusterMembership(MembershipStore store, String nodeId, long ttlMillis, int virtualNodes) {
+        this(store, nodeId, ttlMillis, virtualNodes, System::currentTimeMillis);
+    }
+
+    ClusterMembership(MembershipStore store, String nodeId, long ttlMillis, int virtualNodes, LongSupplier clock) {
+        this.store = store;
+        this.nodeId = nodeId;
+        this.ttlMillis = ttlMillis;
+        this.virtualNodes = virtualNodes;
+        this.clock = clock;
+        this.ring = new ConsistentHashRing(Collections.singleton(nodeId), virtualNodes);
+    }
+
+    /**
+     * 立即上报一次心跳，之后在共享时间轮上按周期续报
+     */
+    public void start(HashedWheelTimer timer, long heartbeatMillis) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("ly-job-heartbeat-");
+        threadFactory.setDaemon(true);
+        heartbeatExecutor = Executors.newSingleThreadExecutor(threadFactory);
+        running = true;
+        refresh();
+        scheduleHeartbeat(timer, heartbeatMillis);
+        log.info("节点[{}]加入集群，当前成员：{}", nodeId, members);
+    }
+
+    private void scheduleHeartbeat(HashedWheelTimer timer, long heartbeatMillis) {
+        if (!running) {
+            return;
+        }
+        heartbeatTimeout = timer.newTimeout(() -> heartbeatExecutor.execute(() -> {
+            try {
+                refresh();
+            } catch (Exception e) {
+                // 心跳失败时保留上一次的视图，超时后会被其他节点摘除
+                log.warn("节点[{}]心跳失败：{}", nodeId, e.getMessage());
+            } finally {
+                scheduleHeartbeat(timer, heartbeatMillis);
+            }
+        }), heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 上报心跳并刷新成员视图，成员有变化时重建哈希环并通知监听器
+     *
+     * @return 成员是否发生变化
+     */
+    public boolean refresh() {
+        long now = clock.getAsLong();
+        store.heartbeat(nodeId, now);
+        SortedSet<String> alive = new TreeSet<>(store.aliveMembers(now, ttlMillis));
+        // 自己刚上报过心跳，读到的视图里缺少自己只可能是存储异常，此时仍按自己存活处理
+        alive.add(nodeId);
+        if (alive.equals(members)) {
+            return false;
+        }
+        log.info("集群成员变化：{} -> {}", members, alive);
+        members = Collections.unmodifiableSortedSet(alive);
+        ring = new ConsistentHashRing(alive, virtualNodes);
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                log.error("集群成员变化监听器执行出错", e);
+            }
+        }
+        return true;
+    }
+
+    public void stop() {
+        running = false;
+        WheelTimeout timeout = heartbeatTimeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        ExecutorService executor = heartbeatExecutor;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        try {
+            store.leave(nodeId);
+        } catch (Exception e) {
+            log.warn("节点[{}]离开集群失败，将等待心跳超时：{}", nodeId, e.getMessage());
+        }
+    }
+
+    /**
+     * 成员变化时回调，在心跳线程上执行，不占用时间轮线程
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public String ownerOf(String taskId) {
+        return ring.ownerOf(taskId);
+    }
+
+    public boolean isOwner(String taskId) {
+        return nodeId.equals(ring.ownerOf(taskId));
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public SortedSet<String> getMembers() {
+        return members;
+    }
+}
@@ -0,0 +1,33 @@
+package com.liyang.core.cluster;
+
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 进程内的成员存储，语义与 {@link RedisMembershipStore} 一致，用于单元测试和单机调试
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+public class InMemoryMembershipStore implements MembershipStore {
+
+    private final Map<String, Long> heartbeats = new ConcurrentHashMap<>();
+
+    @Override
+    public void heartbeat(String nodeId, long now) {
+        heartbeats.put(nodeId, now);
+    }
+
+    @Override
+    public SortedSet<String> aliveMembers(long now, long ttlMillis) {
+        heartbeats.values().removeIf(last -> last < now - ttlMillis);
+        return new TreeSet<>(heartbeats.keySet());
+    }
+
+    @Override
+    public void leave(String nodeId) {
+        heartbeats.remove(nodeId);
+    }
+}
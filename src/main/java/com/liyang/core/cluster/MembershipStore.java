@@ -0,0 +1,36 @@
+package com.liyang.core.cluster;
+
+import java.util.SortedSet;
+
+/**
+ * 集群成员存储
+ * <p>
+ * 生产环境使用 Redis ZSET（{@link RedisMembershipStore}），单元测试使用 {@link InMemoryMembershipStore}。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+public interface MembershipStore {
+
+    /**
+     * 上报心跳
+     *
+     * @param nodeId 节点标识
+     * @param now    心跳时间(ms)
+     */
+    void heartbeat(String nodeId, long now);
+
+    /**
+     * 清理心跳超时的节点并返回存活节点
+     *
+     * @param now        当前时间(ms)
+     * @param ttlMillis  心跳超时时间，最近心跳早于 now - ttlMillis 的节点视为已离开
+     * @return 按节点标识排序的存活节点
+     */
+    SortedSet<String> aliveMembers(long now, long ttlMillis);
+
+    /**
+     * 主动离开集群
+     */
+    void leave(String nodeId);
+}
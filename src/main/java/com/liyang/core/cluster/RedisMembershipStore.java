@@ -0,0 +1,41 @@
+package com.liyang.core.cluster;
+
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * 基于 Redis ZSET 的成员存储：member 为节点标识，score 为最近心跳时间
+ * <p>
+ * 心跳时间取各节点本地时钟，节点间时钟偏差需要明显小于心跳超时时间。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+public class RedisMembershipStore implements MembershipStore {
+
+    private final RScoredSortedSet<String> members;
+
+    public RedisMembershipStore(RedissonClient redissonClient, String key) {
+        this.members = redissonClient.getScoredSortedSet(key, StringCodec.INSTANCE);
+    }
+
+    @Override
+    public void heartbeat(String nodeId, long now) {
+        members.add(now, nodeId);
+    }
+
+    @Override
+    public SortedSet<String> aliveMembers(long now, long ttlMillis) {
+        members.removeRangeByScore(Double.NEGATIVE_INFINITY, true, now - ttlMillis, false);
+        return new TreeSet<>(members.readAll());
+    }
+
+    @Override
+    public void leave(String nodeId) {
+        members.remove(nodeId);
+    }
+}
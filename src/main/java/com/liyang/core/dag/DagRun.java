@@ -0,0 +1,170 @@
+package com.liyang.core.dag;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 一次 DAG 运行：从某个任务完成（或手动触发）开始，覆盖它在依赖图中可达的全部任务
+ * <p>
+ * 每个任务等本次运行内的全部上游都结束后才决定是否执行：上游全部成功则执行，任一上游失败或被跳过则本任务记为跳过，
+ * 跳过继续向下游传递。运行内不在可达范围的上游不参与等待。所有任务结束后运行结束，任一任务失败或被跳过即整体失败。
+ * <p>
+ * 状态变更在运行对象上同步，一次运行的任务数很少，不存在竞争热点。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+public class DagRun {
+
+    public enum Status {
+        RUNNING, SUCCESS, FAILED
+    }
+
+    public enum NodeStatus {
+        WAITING, RUNNING, SUCCESS, FAILED, SKIPPED;
+
+        boolean isFinished() {
+            return this == SUCCESS || this == FAILED || this == SKIPPED;
+        }
+    }
+
+    @Getter
+    public static class Node {
+        private NodeStatus status = NodeStatus.WAITING;
+        private long startTime;
+        private long endTime;
+
+        Node copy() {
+            Node copy = new Node();
+            copy.status = status;
+            copy.startTime = startTime;
+            copy.endTime = endTime;
+            return copy;
+        }
+    }
+
+    @Getter
+    private final String runId;
+    @Getter
+    private final String rootTaskId;
+    @Getter
+    private final long startTime;
+    @Getter
+    private volatile long endTime;
+    @Getter
+    private volatile Status status = Status.RUNNING;
+
+    private final TaskDag dag;
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+    /**
+     * 还没结束的上游数
+     */
+    private final Map<String, Integer> pendingUpstreams = new HashMap<>();
+    /**
+     * 有上游失败或被跳过，等上游全部结束后记为跳过
+     */
+    private final Set<String> blocked = new HashSet<>();
+    private int unfinished;
+    private boolean failed;
+
+    public DagRun(String runId, String rootTaskId, TaskDag dag, long now) {
+        this.runId = runId;
+        this.rootTaskId = rootTaskId;
+        this.dag = dag;
+        this.startTime = now;
+        Set<String> members = dag.reachableFrom(rootTaskId);
+        for (String taskId : members) {
+            nodes.put(taskId, new Node());
+            int pending = 0;
+            if (!taskId.equals(rootTaskId)) {
+                for (String up : dag.upstreamOf(taskId)) {
+                    if (members.contains(up)) {
+                        pending++;
+                    }
+                }
+            }
+            pendingUpstreams.put(taskId, pending);
+        }
+        unfinished = nodes.size();
+    }
+
+    /**
+     * 开始运行
+     *
+     * @param rootCompleted root 是否已经执行成功（由 root 的正常触发发起的运行），否则 root 也在本次运行中执行
+     * @return 可以立即执行的任务
+     */
+    public synchronized List<String> start(boolean rootCompleted, long now) {
+        if (rootCompleted) {
+            nodes.get(rootTaskId).startTime = now;
+            return complete(rootTaskId, NodeStatus.SUCCESS, now);
+        }
+        return Collections.singletonList(rootTaskId);
+    }
+
+    public synchronized void markRunning(String taskId, long now) {
+        Node node = nodes.get(taskId);
+        if (node != null && node.status == NodeStatus.WAITING) {
+            node.status = NodeStatus.RUNNING;
+            node.startTime = now;
+        }
+    }
+
+    /**
+     * 任务结束，释放等待它的下游
+     *
+     * @return 因此可以执行的下游任务
+     */
+    public synchronized List<String> complete(String taskId, NodeStatus outcome, long now) {
+        List<String> ready = new ArrayList<>();
+        finish(taskId, outcome, now, ready);
+        return ready;
+    }
+
+    private void finish(String taskId, NodeStatus outcome, long now, List<String> ready) {
+        Node node = nodes.get(taskId);
+        if (node == null || node.status.isFinished()) {
+            return;
+        }
+        node.status = outcome;
+        node.endTime = now;
+        failed |= outcome != NodeStatus.SUCCESS;
+        if (--unfinished == 0) {
+            endTime = now;
+            status = failed ? Status.FAILED : Status.SUCCESS;
+        }
+        for (String next : dag.downstreamOf(taskId)) {
+            if (!nodes.containsKey(next)) {
+                continue;
+            }
+            if (outcome != NodeStatus.SUCCESS) {
+                blocked.add(next);
+            }
+            int pending = pendingUpstreams.merge(next, -1, Integer::sum);
+            if (pending == 0) {
+                if (blocked.contains(next)) {
+                    finish(next, NodeStatus.SKIPPED, now, ready);
+                } else {
+                    ready.add(next);
+                }
+            }
+        }
+    }
+
+    /**
+     * 各任务状态的快照
+     */
+    public synchronized Map<String, Node> getNodes() {
+        Map<String, Node> snapshot = new LinkedHashMap<>();
+        nodes.forEach((taskId, node) -> snapshot.put(taskId, node.copy()));
+        return snapshot;
+    }
+}
@@ -0,0 +1,178 @@
+package com.liyang.core.dag;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 任务依赖图，不可变，配置变化时整体重建
+ * <p>
+ * 边来自任务配置的 upstream_task_ids。构建时丢弃指向不存在任务的边；
+ * 成环的任务无法确定执行顺序，其所有入边和出边都被丢弃，仍按各自的执行时间触发，并在 {@link #getCyclic()} 中列出。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+public final class TaskDag {
+
+    public static final TaskDag EMPTY = new TaskDag(Collections.emptyMap(), Collections.emptyMap(), Collections.emptySet());
+
+    private final Map<String, Set<String>> upstream;
+    private final Map<String, List<String>> downstream;
+    private final Set<String> cyclic;
+
+    private TaskDag(Map<String, Set<String>> upstream, Map<String, List<String>> downstream, Set<String> cyclic) {
+        this.upstream = upstream;
+        this.downstream = downstream;
+        this.cyclic = cyclic;
+    }
+
+    /**
+     * @param declared 任务 -> 声明的上游任务，键集合即全部已知任务
+     */
+    public static TaskDag build(Map<String, Set<String>> declared) {
+        // 只声明了自身或不存在的上游时没有剩下的边，按独立任务处理
+        Map<String, Set<String>> upstream = new LinkedHashMap<>();
+        declared.forEach((taskId, ups) -> {
+            Set<String> valid = new LinkedHashSet<>();
+            for (String up : ups) {
+                if (!up.equals(taskId) && declared.containsKey(up)) {
+                    valid.add(up);
+                }
+            }
+            if (!valid.isEmpty()) {
+                upstream.put(taskId, valid);
+            }
+        });
+        Set<String> cyclic = findCyclic(declared.keySet(), upstream);
+        if (!cyclic.isEmpty()) {
+            upstream.keySet().removeAll(cyclic);
+            upstream.values().forEach(ups -> ups.removeAll(cyclic));
+            // 环下游的任务失去了来自环的边，没有其他上游时同样按独立任务处理
+            upstream.values().removeIf(Set::isEmpty);
+        }
+        Map<String, List<String>> downstream = new LinkedHashMap<>();
+        upstream.forEach((taskId, ups) -> ups.forEach(up ->
+                downstream.computeIfAbsent(up, k -> new ArrayList<>()).add(taskId)));
+        Map<String, Set<String>> frozenUpstream = new HashMap<>();
+        upstream.forEach((k, v) -> frozenUpstream.put(k, Collections.unmodifiableSet(v)));
+        Map<String, List<String>> frozenDownstream = new HashMap<>();
+        downstream.forEach((k, v) -> frozenDownstream.put(k, Collections.unmodifiableList(v)));
+        return new TaskDag(frozenUpstream, frozenDownstream, Collections.unmodifiableSet(cyclic));
+    }
+
+    /**
+     * Kahn 拓扑排序，剩下入度不为 0 的节点都在环上或在环的下游；
+     * 再从这些节点中去掉只是环下游的节点，留下真正成环的
+     */
+    private static Set<String> findCyclic(Set<String> tasks, Map<String, Set<String>> upstream) {
+        Map<String, Integer> inDegree = new HashMap<>();
+        Map<String, List<String>> downstream = new HashMap<>();
+        for (String taskId : tasks) {
+            Set<String> ups = upstream.getOrDefault(taskId, Collections.emptySet());
+            inDegree.put(taskId, ups.size());
+            ups.forEach(up -> downstream.computeIfAbsent(up, k -> new ArrayList<>()).add(taskId));
+        }
+        Deque<String> ready = new ArrayDeque<>();
+        inDegree.forEach((taskId, degree) -> {
+            if (degree == 0) {
+                ready.add(taskId);
+            }
+        });
+        while (!ready.isEmpty()) {
+            for (String next : downstream.getOrDefault(ready.poll(), Collections.emptyList())) {
+                if (inDegree.merge(next, -1, Integer::sum) == 0) {
+                    ready.add(next);
+                }
+            }
+        }
+        Set<String> blocked = new LinkedHashSet<>();
+        inDegree.forEach((taskId, degree) -> {
+            if (degree > 0) {
+                blocked.add(taskId);
+            }
+        });
+        // 反向再做一次：只看被卡住的节点之间的边，出度为 0 的是环的下游
+        Map<String, Integer> outDegree = new HashMap<>();
+        for (String taskId : blocked) {
+            int out = 0;
+            for (String next : downstream.getOrDefault(taskId, Collections.emptyList())) {
+                if (blocked.contains(next)) {
+                    out++;
+                }
+            }
+            outDegree.put(taskId, out);
+        }
+        outDegree.forEach((taskId, degree) -> {
+            if (degree == 0) {
+                ready.add(taskId);
+            }
+        });
+        while (!ready.isEmpty()) {
+            String taskId = ready.poll();
+            blocked.remove(taskId);
+            for (String up : upstream.getOrDefault(taskId, Collections.emptySet())) {
+                if (outDegree.containsKey(up) && outDegree.merge(up, -1, Integer::sum) == 0) {
+                    ready.add(up);
+                }
+            }
+        }
+        return blocked;
+    }
+
+    /**
+     * 是否由上游触发：存在有效的上游边
+     */
+    public boolean isDependent(String taskId) {
+        return upstream.containsKey(taskId);
+    }
+
+    public boolean hasDownstream(String taskId) {
+        return downstream.containsKey(taskId);
+    }
+
+    public Set<String> upstreamOf(String taskId) {
+        return upstream.getOrDefault(taskId, Collections.emptySet());
+    }
+
+    public List<String> downstreamOf(String taskId) {
+        return downstream.getOrDefault(taskId, Collections.emptyList());
+    }
+
+    /**
+     * 从 root 出发可达的全部任务（含 root），即一次 DAG 运行涉及的任务
+     */
+    public Set<String> reachableFrom(String root) {
+        Set<String> reached = new LinkedHashSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        reached.add(root);
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            for (String next : downstreamOf(queue.poll())) {
+                if (reached.add(next)) {
+                    queue.add(next);
+                }
+            }
+        }
+        return reached;
+    }
+
+    public Map<String, Set<String>> getUpstream() {
+        return upstream;
+    }
+
+    public Map<String, List<String>> getDownstream() {
+        return downstream;
+    }
+
+    public Set<String> getCyclic() {
+        return cyclic;
+    }
+}
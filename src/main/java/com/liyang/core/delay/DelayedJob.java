@@ -0,0 +1,28 @@
+package com.liyang.core.delay;
+
+import lombok.Data;
+
+/**
+ * 一次性延迟任务
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Data
+public class DelayedJob {
+
+    private String id;
+    /**
+     * 决定由哪个 {@link DelayedJobHandler} 处理
+     */
+    private String type;
+    private String payload;
+    /**
+     * 计划执行时间（毫秒时间戳）
+     */
+    private long dueTime;
+    /**
+     * 此前失败的次数，首次执行为 0
+     */
+    private int attempts;
+}
@@ -0,0 +1,18 @@
+package com.liyang.core.delay;
+
+/**
+ * 延迟任务的处理器，按 {@link #type()} 注册为 Spring bean 即可
+ * <p>
+ * 投递语义是至少一次：节点在执行中宕机、或执行结果未能确认时，租期到期后任务会被重新投递，处理逻辑需要幂等。
+ * 执行期间本节点会持续续期（ly-job.delay.lease-ms），长耗时的处理不会因此被重复投递。
+ * 抛出异常视为失败，按 ly-job.delay.retry-backoff-ms 递增退避重试，超过 max-attempts 次后转入死信。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+public interface DelayedJobHandler {
+
+    String type();
+
+    void handle(DelayedJob job) throws Exception;
+}
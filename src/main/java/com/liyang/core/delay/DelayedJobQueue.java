@@ -0,0 +1,508 @@
+package com.liyang.core.delay;
+
+import com.liyang.utils.TraceContext;
+import com.liyang.utils.TraceIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一次性延迟任务队列
+ * <p>
+ * 业务代码通过 {@link #submit} 提交"某个时间点执行一次"的任务，由对应类型的 {@link DelayedJobHandler} 处理。
+ * 任务按 id 的哈希分到 ly-job.delay.buckets 个桶，每个桶在 Redis 中有四个 key（同一个 hash tag，集群模式下在同一个槽）：
+ * due 待执行的 ZSET（score 为计划时间），inflight 执行中的 ZSET（score 为租期到期时间），
+ * jobs 任务内容的 hash（"失败次数|计划时间|类型|参数"），dead 超过重试次数的死信 hash。
+ * <p>
+ * 每个节点一个拉取线程轮流访问各个桶，一次 Lua 脚本原子地把已到期的一批任务从 due 移到 inflight 并取出内容，
+ * 同时把租期已过（执行节点宕机）的任务放回 due，全程没有逐个任务的锁。取到的任务交给本地工作线程执行，
+ * 拉取数量受本地空闲容量限制；执行成功后确认删除，失败按退避时间放回 due。
+ * 本地持有的任务由拉取线程每隔租期的三分之一续期一次，执行时间超过租期的任务不会被重复投递；
+ * 节点宕机后不再续期，租期到期即被其他节点取回。
+ * <p>
+ * 投递语义是至少一次。桶数量决定任务落在哪个桶，集群内所有节点必须一致，调整前需要先让队列排空。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Component
+@Slf4j
+public class DelayedJobQueue implements SmartInitializingSingleton, DisposableBean {
+
+    private static final String NOW = "if redis.replicate_commands then redis.replicate_commands() end "
+            + "local t = redis.call('TIME') "
+            + "local now = tonumber(t[1] .. string.format('%03d', math.floor(t[2] / 1000))) ";
+
+    /**
+     * KEYS[1] due，KEYS[2] jobs；ARGV[1] id，ARGV[2] 计划时间，ARGV[3] 内容。同 id 再次提交时覆盖内容和计划时间
+     */
+    private static final String SUBMIT_SCRIPT =
+            "redis.call('HSET', KEYS[2], ARGV[1], ARGV[3]) "
+                    + "redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1]) "
+                    + "return 1";
+
+    /**
+     * KEYS[1] due，KEYS[2] inflight，KEYS[3] jobs；ARGV[1] 本次最多取多少，ARGV[2] 租期
+     * 返回 {放回 due 的过期任务数, id1, 内容1, id2, 内容2, ...}
+     */
+    private static final String CLAIM_SCRIPT = NOW
+            + "local requeued = 0 "
+            + "local expired = redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', now, 'LIMIT', 0, ARGV[1]) "
+            + "for _, id in ipairs(expired) do "
+            // 执行期间被重新提交的任务已经在 due 中，保留新的计划时间
+            + "  redis.call('ZREM', KEYS[2], id) "
+            + "  requeued = requeued + redis.call('ZADD', KEYS[1], 'NX', now, id) "
+            + "end "
+            + "local result = {tostring(requeued)} "
+            + "local ids = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', now, 'LIMIT', 0, ARGV[1]) "
+            + "local expireAt = string.format('%d', now + tonumber(ARGV[2])) "
+            + "for _, id in ipairs(ids) do "
+            + "  redis.call('ZREM', KEYS[1], id) "
+            + "  local data = redis.call('HGET', KEYS[3], id) "
+            // 已取消的任务没有内容，直接丢弃
+            + "  if data then "
+            + "    redis.call('ZADD', KEYS[2], expireAt, id) "
+            + "    result[#result + 1] = id "
+            + "    result[#result + 1] = data "
+            + "  end "
+            + "end "
+            + "return result";
+
+    /**
+     * KEYS[1] inflight，KEYS[2] jobs；ARGV[1] id，ARGV[2] 取出时的内容。执行期间被重新提交的任务内容已变，不删除
+     */
+    private static final String ACK_SCRIPT =
+            "redis.call('ZREM', KEYS[1], ARGV[1]) "
+                    + "if redis.call('HGET', KEYS[2], ARGV[1]) == ARGV[2] then redis.call('HDEL', KEYS[2], ARGV[1]) end "
+                    + "return 1";
+
+    /**
+     * KEYS[1] due，KEYS[2] inflight，KEYS[3] jobs，KEYS[4] dead；
+     * ARGV[1] id，ARGV[2] 取出时的内容，ARGV[3] 新内容，ARGV[4] 重试时间，ARGV[5] 是否转入死信
+     */
+    private static final String RETRY_SCRIPT =
+            "redis.call('ZREM', KEYS[2], ARGV[1]) "
+                    + "if redis.call('HGET', KEYS[3], ARGV[1]) ~= ARGV[2] then return 0 end "
+                    + "if ARGV[5] == '1' then "
+                    + "  redis.call('HDEL', KEYS[3], ARGV[1]) "
+                    + "  redis.call('HSET', KEYS[4], ARGV[1], ARGV[3]) "
+                    + "else "
+                    + "  redis.call('HSET', KEYS[3], ARGV[1], ARGV[3]) "
+                    + "  redis.call('ZADD', KEYS[1], ARGV[4], ARGV[1]) "
+                    + "end "
+                    + "return 1";
+
+    /**
+     * KEYS[1] inflight；ARGV[1] 租期，ARGV[2..] id。只续期仍在 inflight 中的任务
+     */
+    private static final String RENEW_SCRIPT = NOW
+            + "local expireAt = string.format('%d', now + tonumber(ARGV[1])) "
+            + "for i = 2, #ARGV do redis.call('ZADD', KEYS[1], 'XX', expireAt, ARGV[i]) end "
+            + "return 1";
+
+    /**
+     * KEYS[1] due，KEYS[2] jobs；ARGV[1] id。执行中的任务无法撤回，只是不会再重试
+     */
+    private static final String CANCEL_SCRIPT =
+            "redis.call('ZREM', KEYS[1], ARGV[1]) "
+                    + "return redis.call('HDEL', KEYS[2], ARGV[1])";
+
+    private final RedissonClient redissonClient;
+    private final RScript script;
+    private final ObjectProvider<DelayedJobHandler> handlerProvider;
+
+    @Value("${spring.application.name}")
+    private String appName;
+
+    @Value("${ly-job.delay.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ly-job.delay.buckets:16}")
+    private int buckets;
+
+    /**
+     * 单次从一个桶最多取多少，0 表示只受本地容量限制
+     */
+    @Value("${ly-job.delay.batch-size:0}")
+    private int batchSize;
+
+    /**
+     * 本地最多同时持有多少任务（执行中加排队），0 表示工作线程数的两倍
+     */
+    @Value("${ly-job.delay.max-local:0}")
+    private int maxLocal;
+
+    @Value("${ly-job.delay.poll-ms:200}")
+    private long pollMillis;
+
+    @Value("${ly-job.delay.lease-ms:60000}")
+    private long leaseMillis;
+
+    @Value("${ly-job.delay.workers:8}")
+    private int workerCount;
+
+    @Value("${ly-job.delay.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${ly-job.delay.retry-backoff-ms:10000}")
+    private long retryBackoffMillis;
+
+    private final Map<String, DelayedJobHandler> handlers = new ConcurrentHashMap<>();
+    /**
+     * 本地可再接收的任务数，拉取时不超过它，保证取到的任务不会在本地排太久而租期过期
+     */
+    private Semaphore capacity;
+    /**
+     * 本地持有（排队或执行中）的任务 id 到桶号，用于续期
+     */
+    private final Map<String, Integer> holding = new ConcurrentHashMap<>();
+    private long lastRenewAt;
+    private ExecutorService workers;
+    private Thread poller;
+    private volatile boolean running;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder claimed = new LongAdder();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder dead = new LongAdder();
+    private final LongAdder requeued = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder renewals = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public DelayedJobQueue(RedissonClient redissonClient, ObjectProvider<DelayedJobHandler> handlerProvider) {
+        this.redissonClient = redissonClient;
+        this.script = redissonClient.getScript(StringCodec.INSTANCE);
+        this.handlerProvider = handlerProvider;
+    }
+
+    /**
+     * 所有单例创建完成后再收集处理器，处理器自己也可以注入本队列提交后续任务
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        handlerProvider.orderedStream().forEach(handler -> {
+            DelayedJobHandler previous = handlers.putIfAbsent(handler.type(), handler);
+            if (previous != null) {
+                throw new IllegalStateException("延迟任务类型[" + handler.type() + "]有多个处理器："
+                        + previous.getClass().getName() + "，" + handler.getClass().getName());
+            }
+        });
+        if (!enabled || handlers.isEmpty()) {
+            log.info("延迟任务队列{}，本节点只提交不执行", enabled ? "没有处理器" : "已关闭执行");
+            return;
+        }
+        if (maxLocal <= 0) {
+            maxLocal = workerCount * 2;
+        }
+        capacity = new Semaphore(maxLocal);
+        workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("ly-job-delay-"));
+        running = true;
+        poller = new Thread(this::pollLoop, "ly-job-delay-poller");
+        poller.setDaemon(true);
+        poller.start();
+        log.info("延迟任务队列已启动：{} 个桶，处理类型 {}", buckets, handlers.keySet());
+    }
+
+    /**
+     * 提交一次性任务
+     *
+     * @param dueTime 计划执行时间（毫秒时间戳），早于当前时间时尽快执行
+     * @return 任务 id
+     */
+    public String submit(String type, String payload, long dueTime) {
+        return submit(type, TraceIdGenerator.next(), payload, dueTime);
+    }
+
+    /**
+     * 按业务键提交，同一类型同一业务键只保留一个任务，再次提交覆盖参数和计划时间，
+     * 例如"订单 Y 30 分钟后关闭"重复提交只执行一次
+     *
+     * @return 任务 id，即 类型:业务键，可用于 {@link #cancel}
+     */
+    public String submitKeyed(String type, String key, String payload, long dueTime) {
+        return submit(type, type + ":" + key, payload, dueTime);
+    }
+
+    private String submit(String type, String id, String payload, long dueTime) {
+        if (!StringUtils.hasText(type) || type.indexOf('|') >= 0) {
+            throw new IllegalArgumentException("延迟任务类型不能为空或包含 |：" + type);
+        }
+        String data = encode(0, dueTime, type, payload);
+        int bucket = bucketOf(id);
+        script.eval(RScript.Mode.READ_WRITE, SUBMIT_SCRIPT, RScript.ReturnType.INTEGER,
+                Arrays.asList(key(bucket, "due"), key(bucket, "jobs")), id, String.valueOf(dueTime), data);
+        submitted.increment();
+        return id;
+    }
+
+    /**
+     * 取消尚未执行的任务
+     *
+     * @return 任务是否存在
+     */
+    public boolean cancel(String id) {
+        int bucket = bucketOf(id);
+        Long removed = script.eval(RScript.Mode.READ_WRITE, CANCEL_SCRIPT, RScript.ReturnType.INTEGER,
+                Arrays.asList(key(bucket, "due"), key(bucket, "jobs")), id);
+        if (removed != null && removed > 0) {
+            cancelled.increment();
+            return true;
+        }
+        return false;
+    }
+
+    private void pollLoop() {
+        int offset = ThreadLocalRandom.current().nextInt(buckets);
+        while (running) {
+            renewLeases();
+            boolean idle = true;
+            boolean failed = false;
+            for (int i = 0; i < buckets && running; i++) {
+                int available = capacity.availablePermits();
+                int limit = batchSize > 0 ? Math.min(batchSize, available) : available;
+                if (limit == 0) {
+                    awaitCapacity();
+                    idle = false;
+                    break;
+                }
+                try {
+                    // 取满说明桶里可能还有到期任务，本轮结束后不休眠
+                    if (claim((offset + i) % buckets, limit) == limit) {
+                        idle = false;
+                    }
+                } catch (Exception e) {
+                    errors.increment();
+                    if (!failed) {
+                        log.warn("拉取延迟任务失败：{}", e.getMessage());
+                    }
+                    failed = true;
+                }
+            }
+            // 每轮换一个起始桶，避免总是先取同一个桶
+            offset = (offset + 1) % buckets;
+            if (idle) {
+                try {
+                    Thread.sleep(pollMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void awaitCapacity() {
+        try {
+            if (capacity.tryAcquire(pollMillis, TimeUnit.MILLISECONDS)) {
+                capacity.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    /**
+     * 距上次续期超过租期的三分之一时，把本地持有任务的租期延长到 当前时间 + 租期
+     */
+    private void renewLeases() {
+        long now = System.currentTimeMillis();
+        if (now - lastRenewAt < leaseMillis / 3) {
+            return;
+        }
+        lastRenewAt = now;
+        Map<Integer, List<String>> byBucket = new HashMap<>();
+        holding.forEach((id, bucket) -> byBucket.computeIfAbsent(bucket, b -> new ArrayList<>()).add(id));
+        byBucket.forEach((bucket, ids) -> {
+            List<Object> args = new ArrayList<>(ids.size() + 1);
+            args.add(String.valueOf(leaseMillis));
+            args.addAll(ids);
+            try {
+                script.eval(RScript.Mode.READ_WRITE, RENEW_SCRIPT, RScript.ReturnType.INTEGER,
+                        Collections.singletonList(key(bucket, "inflight")), args.toArray());
+                renewals.add(ids.size());
+            } catch (Exception e) {
+                errors.increment();
+                log.warn("延迟任务续期失败，租期到期后可能被重复投递：{}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * @return 取到的任务数
+     */
+    private int claim(int bucket, int limit) {
+        List<Object> result = script.eval(RScript.Mode.READ_WRITE, CLAIM_SCRIPT, RScript.ReturnType.MULTI,
+                Arrays.asList(key(bucket, "due"), key(bucket, "inflight"), key(bucket, "jobs")),
+                String.valueOf(limit), String.valueOf(leaseMillis));
+        requeued.add(Long.parseLong(result.get(0).toString()));
+        int count = (result.size() - 1) / 2;
+        for (int i = 1; i + 1 < result.size(); i += 2) {
+            capacity.acquireUninterruptibly();
+            holding.put(result.get(i).toString(), bucket);
+            dispatch(bucket, result.get(i).toString(), result.get(i + 1).toString());
+        }
+        claimed.add(count);
+        return count;
+    }
+
+    private void dispatch(int bucket, String id, String data) {
+        workers.execute(() -> {
+            TraceContext.begin();
+            DelayedJob job = null;
+            try {
+                job = decode(id, data);
+                DelayedJobHandler handler = handlers.get(job.getType());
+                if (handler == null) {
+                    throw new IllegalStateException("没有类型为[" + job.getType() + "]的处理器");
+                }
+                handler.handle(job);
+                succeeded.increment();
+                ack(bucket, id, data);
+            } catch (Throwable e) {
+                if (job == null) {
+                    log.error("延迟任务[{}]内容无法解析，丢弃：{}", id, data, e);
+                    ack(bucket, id, data);
+                } else {
+                    retry(bucket, job, data, e);
+                }
+            } finally {
+                TraceContext.clear();
+                holding.remove(id, bucket);
+                capacity.release();
+            }
+        });
+    }
+
+    private void ack(int bucket, String id, String data) {
+        try {
+            script.eval(RScript.Mode.READ_WRITE, ACK_SCRIPT, RScript.ReturnType.INTEGER,
+                    Arrays.asList(key(bucket, "inflight"), key(bucket, "jobs")), id, data);
+        } catch (Exception e) {
+            errors.increment();
+            log.warn("延迟任务[{}]确认失败，租期到期后会被重新执行：{}", id, e.getMessage());
+        }
+    }
+
+    private void retry(int bucket, DelayedJob job, String data, Throwable error) {
+        int attempts = job.getAttempts() + 1;
+        boolean toDead = attempts >= maxAttempts;
+        long retryAt = System.currentTimeMillis() + (retryBackoffMillis << Math.min(attempts - 1, 10));
+        Long updated;
+        try {
+            updated = script.eval(RScript.Mode.READ_WRITE, RETRY_SCRIPT, RScript.ReturnType.INTEGER,
+                    Arrays.asList(key(bucket, "due"), key(bucket, "inflight"), key(bucket, "jobs"), key(bucket, "dead")),
+                    job.getId(), data, encode(attempts, job.getDueTime(), job.getType(), job.getPayload()),
+                    String.valueOf(retryAt), toDead ? "1" : "0");
+        } catch (Exception e) {
+            // 租期到期后由拉取脚本放回 due
+            errors.increment();
+            log.warn("延迟任务[{}]失败后未能登记重试，等待租期到期重新投递：{}", job.getId(), e.getMessage(), error);
+            return;
+        }
+        if (updated == null || updated != 1) {
+            log.info("延迟任务[{}]执行失败，执行期间已被重新提交或取消，不再重试", job.getId(), error);
+            return;
+        }
+        if (toDead) {
+            dead.increment();
+            log.error("延迟任务[{}]第 {} 次执行失败，转入死信", job.getId(), attempts, error);
+        } else {
+            retried.increment();
+            log.warn("延迟任务[{}]第 {} 次执行失败，{} 后重试", job.getId(), attempts,
+                    new Date(retryAt), error);
+        }
+    }
+
+    private String key(int bucket, String name) {
+        return "ly-job:delay:{" + appName + ":" + bucket + "}:" + name;
+    }
+
+    private int bucketOf(String id) {
+        return (id.hashCode() & Integer.MAX_VALUE) % buckets;
+    }
+
+    private static String encode(int attempts, long dueTime, String type, String payload) {
+        return attempts + "|" + dueTime + "|" + type + "|" + (payload == null ? "" : payload);
+    }
+
+    private static DelayedJob decode(String id, String data) {
+        String[] parts = data.split("\\|", 4);
+        DelayedJob job = new DelayedJob();
+        job.setId(id);
+        job.setAttempts(Integer.parseInt(parts[0]));
+        job.setDueTime(Long.parseLong(parts[1]));
+        job.setType(parts[2]);
+        job.setPayload(parts[3]);
+        return job;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("running", running);
+        stats.put("handlers", handlers.keySet());
+        stats.put("submitted", submitted.sum());
+        stats.put("claimed", claimed.sum());
+        stats.put("succeeded", succeeded.sum());
+        stats.put("retried", retried.sum());
+        stats.put("dead", dead.sum());
+        stats.put("requeued", requeued.sum());
+        stats.put("cancelled", cancelled.sum());
+        stats.put("renewals", renewals.sum());
+        stats.put("errors", errors.sum());
+        stats.put("localInFlight", capacity == null ? 0 : maxLocal - capacity.availablePermits());
+        long due = 0;
+        long inflight = 0;
+        long deadLetters = 0;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            due += redissonClient.getScoredSortedSet(key(bucket, "due"), StringCodec.INSTANCE).size();
+            inflight += redissonClient.getScoredSortedSet(key(bucket, "inflight"), StringCodec.INSTANCE).size();
+            deadLetters += redissonClient.getMap(key(bucket, "dead"), StringCodec.INSTANCE).size();
+        }
+        stats.put("queuedDue", due);
+        stats.put("queuedInFlight", inflight);
+        stats.put("deadLetters", deadLetters);
+        return stats;
+    }
+
+    /**
+     * 停止拉取，等待进行中的任务结束；未确认的任务在租期到期后由其他节点重新执行
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        poller.interrupt();
+        workers.shutdown();
+        workers.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
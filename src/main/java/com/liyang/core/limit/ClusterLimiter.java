@@ -0,0 +1,372 @@
+package com.liyang.core.limit;
+
+import com.liyang.config.LimitProperties;
+import com.liyang.entity.TbScheduledTaskConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 集群级并发与频率限制
+ * <p>
+ * 多个任务访问同一个下游时放进同一个限制组，组内全集群共享两个限制：最多同时执行的次数（并发名额）和令牌桶频率。
+ * 组在 Redis 中是一个 hash：{@code n:节点} 为该节点持有的名额 "个数|到期时间"，tokens / ts 为令牌桶。
+ * 申请、续期、归还都是同一个 Lua 脚本，一次往返。
+ * <p>
+ * 名额和令牌都在本地缓存：节点申请到的名额在任务结束后并不立即归还，下一次触发直接复用；
+ * 后台按 ly-job.limit.renew-ms 续期，续期时把本地已空闲的名额还给集群。令牌一次预取 token-batch 个，
+ * 在 token-ttl-ms 内本地消耗。因此稳定运行时大多数触发只做一次本地判断，不访问 Redis。
+ * <p>
+ * Redis 不可用时放行并计数，限制是对下游的保护，不应该让调度本身停摆。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Component
+@Slf4j
+public class ClusterLimiter implements DisposableBean {
+
+    private static final String SCRIPT = "if redis.replicate_commands then redis.replicate_commands() end "
+            + "local t = redis.call('TIME') "
+            + "local now = tonumber(t[1] .. string.format('%03d', math.floor(t[2] / 1000))) "
+            // KEYS[1] 组；ARGV[1] 节点，ARGV[2] 并发上限，ARGV[3] 本节点需要持有的名额，ARGV[4] 名额租期，
+            // ARGV[5] 每秒令牌数，ARGV[6] 桶容量，ARGV[7] 预取令牌数，ARGV[8] 组的过期时间；返回 {持有名额, 取到的令牌}
+            + "local slots = 0 "
+            + "local maxc = tonumber(ARGV[2]) "
+            + "if maxc > 0 then "
+            + "  local used = 0 "
+            + "  local mine = 'n:' .. ARGV[1] "
+            + "  local fields = redis.call('HGETALL', KEYS[1]) "
+            + "  for i = 1, #fields, 2 do "
+            + "    local f = fields[i] "
+            + "    if f ~= mine and string.sub(f, 1, 2) == 'n:' then "
+            + "      local sep = string.find(fields[i + 1], '|', 1, true) "
+            + "      if tonumber(string.sub(fields[i + 1], sep + 1)) <= now then "
+            + "        redis.call('HDEL', KEYS[1], f) "
+            + "      else "
+            + "        used = used + tonumber(string.sub(fields[i + 1], 1, sep - 1)) "
+            + "      end "
+            + "    end "
+            + "  end "
+            + "  slots = math.max(0, math.min(tonumber(ARGV[3]), maxc - used)) "
+            + "  if slots > 0 then "
+            + "    redis.call('HSET', KEYS[1], mine, slots .. '|' .. string.format('%d', now + tonumber(ARGV[4]))) "
+            + "  else "
+            + "    redis.call('HDEL', KEYS[1], mine) "
+            + "  end "
+            + "end "
+            + "local tokens = 0 "
+            + "local rate = tonumber(ARGV[5]) "
+            + "if rate > 0 and tonumber(ARGV[7]) > 0 then "
+            + "  local burst = tonumber(ARGV[6]) "
+            + "  local bucket = tonumber(redis.call('HGET', KEYS[1], 'tokens') or burst) "
+            + "  local last = tonumber(redis.call('HGET', KEYS[1], 'ts') or now) "
+            + "  bucket = math.min(burst, bucket + math.max(0, now - last) * rate / 1000) "
+            + "  tokens = math.min(tonumber(ARGV[7]), math.floor(bucket)) "
+            + "  redis.call('HSET', KEYS[1], 'tokens', tostring(bucket - tokens), 'ts', string.format('%d', now)) "
+            + "end "
+            + "redis.call('PEXPIRE', KEYS[1], ARGV[8]) "
+            + "return {slots, tokens}";
+
+    /**
+     * 不受限制的任务共用的许可，释放是空操作
+     */
+    private static final Permit UNLIMITED = new Permit(null, false);
+
+    private final RScript script;
+
+    @Resource
+    private LimitProperties limitProperties;
+
+    @Value("${spring.application.name}")
+    private String appName;
+
+    private final String nodeId = UUID.randomUUID().toString().replace("-", "");
+
+    /**
+     * 任务名（类名.方法名）-> 所在限制组，没有限制的任务不在其中
+     */
+    private final Map<String, Group> bindings = new ConcurrentHashMap<>();
+    private final Map<String, Group> groups = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService renewExecutor;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder remoteChecks = new LongAdder();
+    private final LongAdder deniedConcurrency = new LongAdder();
+    private final LongAdder deniedRate = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public ClusterLimiter(RedissonClient redissonClient) {
+        this.script = redissonClient.getScript(StringCodec.INSTANCE);
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("ly-job-limit-");
+        threadFactory.setDaemon(true);
+        this.renewExecutor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    @PostConstruct
+    public void start() {
+        long renewMillis = Math.max(100, limitProperties.getRenewMs());
+        renewExecutor.scheduleWithFixedDelay(this::renewAll, renewMillis, renewMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 按任务配置确定限制组：limit_group 指定的组；未指定时任务自身配置了限制则单独成组，否则使用与分区同名的组。
+     * 组的限制优先取 ly-job.limit.groups，其次取任务配置的 limit_concurrency / limit_rate
+     *
+     * @param taskName 类名.方法名，与切面中的描述符任务名一致
+     */
+    public void bind(String taskName, TbScheduledTaskConfig config) {
+        int maxConcurrency = config.getLimitConcurrency() == null ? 0 : config.getLimitConcurrency();
+        double rate = config.getLimitRate() == null ? 0 : config.getLimitRate();
+        String groupName = config.getLimitGroup();
+        if (!StringUtils.hasText(groupName)) {
+            groupName = maxConcurrency > 0 || rate > 0 ? config.getTaskId() : config.getPartition();
+        }
+        LimitProperties.Group declared = groupName == null ? null : limitProperties.getGroups().get(groupName);
+        int burst = 0;
+        if (declared != null) {
+            maxConcurrency = declared.getMaxConcurrency();
+            rate = declared.getRate();
+            burst = declared.getBurst();
+        }
+        if (maxConcurrency <= 0 && rate <= 0) {
+            bindings.remove(taskName);
+            return;
+        }
+        Limit limit = new Limit(maxConcurrency, rate, burst > 0 ? burst : (int) Math.max(1, Math.ceil(rate)));
+        String name = groupName;
+        Group group = groups.computeIfAbsent(name, k -> new Group(name, "limit:group:" + name + "[" + appName + "]"));
+        synchronized (group) {
+            group.limit = limit;
+            if (maxConcurrency <= 0) {
+                // 不再限制并发，持有的名额等租期到期自然归还
+                group.leasedSlots = 0;
+            }
+        }
+        bindings.put(taskName, group);
+    }
+
+    /**
+     * 申请一次执行的许可
+     *
+     * @return 许可，执行结束后必须 {@link Permit#release()}；超出限制时为空
+     */
+    public Permit tryAcquire(String taskName) {
+        Group group = bindings.get(taskName);
+        if (group == null) {
+            return UNLIMITED;
+        }
+        synchronized (group) {
+            if (group.takeLocal(System.currentTimeMillis())) {
+                localHits.increment();
+                return new Permit(group, group.limit.maxConcurrency > 0);
+            }
+            remoteChecks.increment();
+            if (!fetch(group)) {
+                // 限制服务不可用时放行
+                return UNLIMITED;
+            }
+            long now = System.currentTimeMillis();
+            if (group.takeLocal(now)) {
+                return new Permit(group, group.limit.maxConcurrency > 0);
+            }
+            if (!group.slotAvailable(now)) {
+                deniedConcurrency.increment();
+            } else {
+                deniedRate.increment();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 向集群申请：持有的名额调整为本地在用数 + 1，本地令牌用完时预取一批
+     */
+    private boolean fetch(Group group) {
+        long now = System.currentTimeMillis();
+        Limit limit = group.limit;
+        int wantSlots = limit.maxConcurrency > 0 ? group.inUse + 1 : 0;
+        int wantTokens = limit.rate > 0 && !group.tokenAvailable(now)
+                ? Math.max(1, Math.min(limitProperties.getTokenBatch(), limit.burst)) : 0;
+        List<Object> granted = call(group, wantSlots, wantTokens);
+        if (granted == null) {
+            return false;
+        }
+        apply(group, granted, wantTokens, now);
+        return true;
+    }
+
+    private void apply(Group group, List<Object> granted, int wantTokens, long now) {
+        if (group.limit.maxConcurrency > 0) {
+            group.leasedSlots = ((Number) granted.get(0)).intValue();
+            // 本地按半个租期认为名额有效，给续期留出余量
+            group.slotsValidUntil = now + limitProperties.getLeaseMs() / 2;
+        }
+        if (wantTokens > 0) {
+            group.cachedTokens = ((Number) granted.get(1)).intValue();
+            group.tokensValidUntil = now + limitProperties.getTokenTtlMs();
+        }
+    }
+
+    private List<Object> call(Group group, int wantSlots, int wantTokens) {
+        Limit limit = group.limit;
+        long refillMillis = limit.rate > 0 ? (long) Math.ceil(limit.burst * 1000 / limit.rate) : 0;
+        try {
+            return script.eval(RScript.Mode.READ_WRITE, SCRIPT, RScript.ReturnType.MULTI,
+                    Collections.singletonList(group.key), nodeId, String.valueOf(limit.maxConcurrency),
+                    String.valueOf(wantSlots), String.valueOf(limitProperties.getLeaseMs()), String.valueOf(limit.rate),
+                    String.valueOf(limit.burst), String.valueOf(wantTokens),
+                    String.valueOf(Math.max(limitProperties.getLeaseMs(), refillMillis) * 2));
+        } catch (Exception e) {
+            errors.increment();
+            log.warn("限制组[{}]访问 Redis 失败，本次放行：{}", group.name, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 续期持有名额的组，本地已空闲的名额归还集群
+     */
+    private void renewAll() {
+        for (Group group : groups.values()) {
+            synchronized (group) {
+                if (group.leasedSlots == 0) {
+                    continue;
+                }
+                long now = System.currentTimeMillis();
+                List<Object> granted = call(group, group.inUse, 0);
+                if (granted != null) {
+                    apply(group, granted, 0, now);
+                }
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("localHits", localHits.sum());
+        stats.put("remoteChecks", remoteChecks.sum());
+        stats.put("deniedConcurrency", deniedConcurrency.sum());
+        stats.put("deniedRate", deniedRate.sum());
+        stats.put("errors", errors.sum());
+        Map<String, Object> byGroup = new LinkedHashMap<>();
+        groups.forEach((name, group) -> {
+            Map<String, Object> state = new LinkedHashMap<>();
+            synchronized (group) {
+                state.put("maxConcurrency", group.limit.maxConcurrency);
+                state.put("rate", group.limit.rate);
+                state.put("burst", group.limit.burst);
+                state.put("inUse", group.inUse);
+                state.put("leasedSlots", group.leasedSlots);
+                state.put("cachedTokens", group.cachedTokens);
+            }
+            byGroup.put(name, state);
+        });
+        stats.put("groups", byGroup);
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        renewExecutor.shutdownNow();
+    }
+
+    private static final class Limit {
+        private final int maxConcurrency;
+        private final double rate;
+        private final int burst;
+
+        private Limit(int maxConcurrency, double rate, int burst) {
+            this.maxConcurrency = maxConcurrency;
+            this.rate = rate;
+            this.burst = burst;
+        }
+    }
+
+    /**
+     * 组在本节点的状态，读写都在组对象上同步
+     */
+    private static final class Group {
+        private final String name;
+        private final String key;
+        private volatile Limit limit;
+        private int inUse;
+        private int leasedSlots;
+        private long slotsValidUntil;
+        private int cachedTokens;
+        private long tokensValidUntil;
+
+        private Group(String name, String key) {
+            this.name = name;
+            this.key = key;
+        }
+
+        private boolean slotAvailable(long now) {
+            return limit.maxConcurrency <= 0 || (inUse < leasedSlots && now < slotsValidUntil);
+        }
+
+        private boolean tokenAvailable(long now) {
+            return limit.rate <= 0 || (cachedTokens > 0 && now < tokensValidUntil);
+        }
+
+        private boolean takeLocal(long now) {
+            if (!slotAvailable(now) || !tokenAvailable(now)) {
+                return false;
+            }
+            if (limit.maxConcurrency > 0) {
+                inUse++;
+            }
+            if (limit.rate > 0) {
+                cachedTokens--;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 一次执行的许可
+     */
+    public static final class Permit {
+        private final Group group;
+        /**
+         * 是否占用了并发名额
+         */
+        private final boolean slot;
+
+        private Permit(Group group, boolean slot) {
+            this.group = group;
+            this.slot = slot;
+        }
+
+        public void release() {
+            if (!slot) {
+                return;
+            }
+            synchronized (group) {
+                if (group.inUse > 0) {
+                    group.inUse--;
+                }
+            }
+        }
+    }
+}
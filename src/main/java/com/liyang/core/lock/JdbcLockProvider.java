@@ -0,0 +1,113 @@
+package com.liyang.core.lock;
+
+import com.liyang.dao.TbTaskLockDao;
+import com.liyang.entity.TbTaskLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 基于现有数据源的行锁，不依赖 Redis
+ * <p>
+ * 每把锁是 tb_task_lock 中的一行：
+ * <ol>
+ *     <li>acquire：UPDATE ... WHERE lock_key = ? AND expire_at &lt; now，更新到一行即抢到；行不存在时 INSERT，主键冲突说明被别人抢先</li>
+ *     <li>release：UPDATE ... WHERE lock_key = ? AND owner = ?，租期置 0 并写入耗时</li>
+ * </ol>
+ * 抢到锁是一次往返，未抢到是两次（多一次读取最近执行时间）。时间取本地时钟，各节点需要做时钟同步。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Component
+@Slf4j
+public class JdbcLockProvider implements LockProvider, DisposableBean {
+
+    public static final String NAME = "jdbc";
+
+    private final TbTaskLockDao taskLockDao;
+    /**
+     * 看门狗要求续期是异步的，续期只发生在长任务上，一个线程足够
+     */
+    private final ExecutorService renewExecutor;
+
+    public JdbcLockProvider(TbTaskLockDao taskLockDao) {
+        this.taskLockDao = taskLockDao;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("ly-job-jdbc-lock-");
+        threadFactory.setDaemon(true);
+        this.renewExecutor = Executors.newSingleThreadExecutor(threadFactory);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public AcquireResult acquire(String lockKey, String timeSyncKey, String owner, long leaseMillis) {
+        long now = System.currentTimeMillis();
+        if (taskLockDao.takeOverExpired(lockKey, owner, now, now + leaseMillis) == 1) {
+            return new AcquireResult(true, now, now);
+        }
+        TbTaskLock current = taskLockDao.selectById(lockKey);
+        if (current == null) {
+            TbTaskLock created = new TbTaskLock();
+            created.setLockKey(lockKey);
+            created.setOwner(owner);
+            created.setExpireAt(now + leaseMillis);
+            created.setLastRunTime(now);
+            created.setLastDuration(0L);
+            try {
+                taskLockDao.insert(created);
+                return new AcquireResult(true, now, now);
+            } catch (DuplicateKeyException e) {
+                // 主键冲突：其他节点同时创建了这一行并抢到锁
+                current = taskLockDao.selectById(lockKey);
+                if (current == null) {
+                    throw e;
+                }
+            }
+        }
+        Long last = current.getLastRunTime();
+        return new AcquireResult(false, now, last == null ? -1 : last);
+    }
+
+    @Override
+    public long release(String lockKey, String durationKey, String owner, long startTime) {
+        long duration = System.currentTimeMillis() - startTime;
+        if (taskLockDao.releaseIfOwner(lockKey, owner, duration) == 0) {
+            log.warn("锁[{}]已不属于当前持有者，可能已过期被接管", lockKey);
+        }
+        return duration;
+    }
+
+    @Override
+    public CompletionStage<Boolean> renewAsync(String lockKey, String owner, long leaseMillis) {
+        return CompletableFuture.supplyAsync(
+                () -> taskLockDao.renewIfOwner(lockKey, owner, System.currentTimeMillis() + leaseMillis) == 1,
+                renewExecutor);
+    }
+
+    /**
+     * 最近执行时间记在锁行上，与续期共用一个线程
+     */
+    @Override
+    public CompletionStage<Long> lastRunTimeAsync(String lockKey, String timeSyncKey) {
+        return CompletableFuture.supplyAsync(() -> {
+            TbTaskLock current = taskLockDao.selectById(lockKey);
+            return current == null || current.getLastRunTime() == null ? -1L : current.getLastRunTime();
+        }, renewExecutor);
+    }
+
+    @Override
+    public void destroy() {
+        renewExecutor.shutdownNow();
+    }
+}
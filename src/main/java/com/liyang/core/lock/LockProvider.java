@@ -0,0 +1,71 @@
+package com.liyang.core.lock;
+
+import lombok.Getter;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 调度锁的实现扩展点
+ * <p>
+ * 切面每次触发调用一次 {@link #acquire} 和一次 {@link #release}，长任务由看门狗调用 {@link #renewAsync} 续期。
+ * 锁的值是本次触发的 owner（traceId），续期和释放都只对自己持有的锁生效。
+ * 内置三种实现：local（进程内分段锁，单节点部署）、jdbc（现有数据源上的行锁）、redis（默认）。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+public interface LockProvider {
+
+    /**
+     * 实现名，对应 ly-job.lock.provider 和任务配置的 lock_provider
+     */
+    String getName();
+
+    /**
+     * 不等待地抢锁，抢到时记录本次执行时间
+     *
+     * @param lockKey     锁 key
+     * @param timeSyncKey 最近执行时间 key
+     * @param owner       本次触发的持有者标识
+     * @param leaseMillis 租期
+     */
+    AcquireResult acquire(String lockKey, String timeSyncKey, String owner, long leaseMillis);
+
+    /**
+     * 释放锁并记录耗时
+     *
+     * @return 计算出的耗时(ms)
+     */
+    long release(String lockKey, String durationKey, String owner, long startTime);
+
+    /**
+     * 异步续期，仅当锁仍属于 owner 时生效
+     */
+    CompletionStage<Boolean> renewAsync(String lockKey, String owner, long leaseMillis);
+
+    /**
+     * 异步读取最近执行时间，备机复查用来判断持锁节点是否按时执行
+     *
+     * @return 最近执行时间(ms)，-1 表示没有
+     */
+    CompletionStage<Long> lastRunTimeAsync(String lockKey, String timeSyncKey);
+
+    @Getter
+    final class AcquireResult {
+        private final boolean acquired;
+        /**
+         * 锁服务一侧的时间(ms)，Redis 为服务端时间，其他实现为本地时间
+         */
+        private final long serverTime;
+        /**
+         * 最近执行时间(ms)，抢到锁时即本次执行时间，-1 表示没有
+         */
+        private final long lastRunTime;
+
+        public AcquireResult(boolean acquired, long serverTime, long lastRunTime) {
+            this.acquired = acquired;
+            this.serverTime = serverTime;
+            this.lastRunTime = lastRunTime;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.liyang.core.lock;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按名称查找锁实现
+ * <p>
+ * 应用级默认实现由 ly-job.lock.provider 决定，任务可以通过配置的 lock_provider 单独指定；
+ * 任务指定了不存在的实现时退回默认实现。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Component
+@Slf4j
+public class LockProviders {
+
+    private final Map<String, LockProvider> providers = new LinkedHashMap<>();
+    private final LockProvider defaultProvider;
+
+    public LockProviders(List<LockProvider> providers, @Value("${ly-job.lock.provider:redis}") String defaultName) {
+        providers.forEach(provider -> this.providers.put(provider.getName(), provider));
+        this.defaultProvider = this.providers.get(defaultName);
+        if (defaultProvider == null) {
+            throw new IllegalStateException("ly-job.lock.provider=" + defaultName + " 不存在，可选：" + this.providers.keySet());
+        }
+        log.info("调度锁默认实现：{}，可选：{}", defaultName, this.providers.keySet());
+    }
+
+    /**
+     * @param name 任务指定的实现名，为空时使用默认实现
+     */
+    public LockProvider resolve(String name) {
+        if (!StringUtils.hasText(name)) {
+            return defaultProvider;
+        }
+        LockProvider provider = providers.get(name);
+        return provider == null ? defaultProvider : provider;
+    }
+
+    public LockProvider getDefault() {
+        return defaultProvider;
+    }
+
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(providers.keySet());
+    }
+}
@@ -1,8 +1,18 @@
 
 package com.liyang.core.redis.aop;
 
-import com.liyang.annotation.Exclude;
-import com.liyang.utils.CronExpressionParser;
+import com.liyang.core.chunk.ChunkedJob;
+import com.liyang.core.chunk.ChunkedJobRunner;
+import com.liyang.core.cluster.ClusterMembership;
+import com.liyang.core.limit.ClusterLimiter;
+import com.liyang.core.lock.LockProvider;
+import com.liyang.core.lock.LockProviders;
+import com.liyang.core.shard.ShardCoordinator;
+import com.liyang.core.task.FiringOutcome;
+import com.liyang.core.task.TaskDescriptor;
+import com.liyang.core.task.TaskDescriptorRegistry;
+import com.liyang.operation.ExecutionLogWriter;
+import com.liyang.operation.SchedulerMetrics;
 import com.liyang.utils.TaskExecutionRecorder;
 import com.liyang.utils.TraceContext;
 import lombok.extern.slf4j.Slf4j;
@@ -10,21 +20,13 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
-import org.redisson.api.RBucket;
-import org.redisson.api.RScript;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
-
-import java.util.UUID;
-import java.util.concurrent.TimeUnit;
-
 /**
- * 使用 Redisson 实现分布式锁的任务切面
+ * 分布式锁任务切面，锁实现见 {@link LockProvider}，默认使用 Redisson
  *
  * @author liyang
  * @since 2025/5/16
@@ -33,13 +35,45 @@ import java.util.concurrent.TimeUnit;
 @Aspect
 @Slf4j
 public class DistributionAop {
-    @Value("${spring.application.name}")
-    private String appName;
-    private final RedissonClient redissonClient;
+    private final StandbyScheduler standbyScheduler;
+    private final LockWatchdog lockWatchdog;
+    private final TaskDescriptorRegistry descriptorRegistry;
+    /**
+     * 调度锁实现，默认 Redis，可按应用或按任务切换为进程内锁、JDBC 行锁
+     */
+    private final LockProviders lockProviders;
+    /**
+     * 集群归属模式下存在：任务只在主节点触发，不再抢锁
+     */
+    private final ClusterMembership clusterMembership;
+    private final ExecutionLogWriter executionLogWriter;
+    private final ShardCoordinator shardCoordinator;
+    private final SchedulerMetrics schedulerMetrics;
+    private final ChunkedJobRunner chunkedJobRunner;
+    /**
+     * 限制组的集群并发与频率限制，分片任务不受限制
+     */
+    private final ClusterLimiter clusterLimiter;
 
-    // 注入 RedissonClient
-    public DistributionAop(@Autowired RedissonClient redissonClient) {
-        this.redissonClient = redissonClient;
+    public DistributionAop(@Autowired StandbyScheduler standbyScheduler, @Autowired LockWatchdog lockWatchdog,
+                           @Autowired TaskDescriptorRegistry descriptorRegistry,
+                           @Autowired LockProviders lockProviders,
+                           @Autowired ObjectProvider<ClusterMembership> clusterMembership,
+                           @Autowired ExecutionLogWriter executionLogWriter,
+                           @Autowired ShardCoordinator shardCoordinator,
+                           @Autowired SchedulerMetrics schedulerMetrics,
+                           @Autowired ChunkedJobRunner chunkedJobRunner,
+                           @Autowired ClusterLimiter clusterLimiter) {
+        this.clusterLimiter = clusterLimiter;
+        this.chunkedJobRunner = chunkedJobRunner;
+        this.schedulerMetrics = schedulerMetrics;
+        this.shardCoordinator = shardCoordinator;
+        this.executionLogWriter = executionLogWriter;
+        this.clusterMembership = clusterMembership.getIfAvailable();
+        this.lockProviders = lockProviders;
+        this.standbyScheduler = standbyScheduler;
+        this.lockWatchdog = lockWatchdog;
+        this.descriptorRegistry = descriptorRegistry;
     }
 
     @Pointcut("bean(*Job)")
@@ -56,160 +90,192 @@ public class DistributionAop {
     //        @Around("@annotation(scheduled)|| quartzJobExecution()")
     @Around(" scheduledMethod()|| quartzJobExecution()||executeInternalJob()")
     public Object aroundSchedule(ProceedingJoinPoint joinPoint) throws Throwable {
-        String className = joinPoint.getTarget().getClass().getSimpleName();
-        String methodName = joinPoint.getSignature().getName();
-        Exclude exclude = joinPoint.getTarget().getClass().getMethod(methodName).getAnnotation(Exclude.class);
-        if (exclude != null) {
+        // 描述符在注册时已解析好锁 key、间隔、排除标记，这里不再反射和拼接字符串
+        TaskDescriptor descriptor = descriptorRegistry.resolve(joinPoint.getTarget().getClass(),
+                ((MethodSignature) joinPoint.getSignature()).getMethod());
+        if (descriptor.isExcluded()) {
             return joinPoint.proceed();
         }
-        String taskName = className + "." + methodName;
-        String lockKey = String.format("lock:schedule:%s[%s]", taskName, appName);
-        String timeSyncKey = "lastSyncTime:" + taskName;
+        if (descriptor.isManaged() && descriptor.isSharded()) {
+            return proceedSharded(joinPoint, descriptor);
+        }
+        if (clusterMembership != null && descriptor.isManaged()) {
+            return proceedAsOwner(joinPoint, descriptor);
+        }
+        String taskName = descriptor.getTaskName();
+        String lockKey = descriptor.getLockKey();
+        String timeSyncKey = descriptor.getTimeSyncKey();
+        SchedulerMetrics.TaskMeters meters = schedulerMetrics.forTask(taskName);
 
-        // 生成 traceId
-        String traceId = UUID.randomUUID().toString().replaceAll("-", "");
-        TraceContext.setTraceId(traceId);
+        // 生成 traceId，同时写入日志 MDC
+        String traceId = TraceContext.begin();
 
-        RLock lock = redissonClient.getLock(lockKey);
+        LockProvider scheduleLock = lockProviders.resolve(descriptor.getLockProvider());
+        LockProvider.AcquireResult acquired = null;
         boolean isLocked = false;
+        long startTime = 0;
+        long localStartTime = 0;
+        Throwable failure = null;
+        LockWatchdog.Lease lease = null;
+        ClusterLimiter.Permit permit = null;
+        boolean limited = false;
 
         try {
             log.info("处理定时任务[{}]", taskName);
 
-            // 尝试获取锁（不等待）
-            isLocked = lock.tryLock(0, 30, TimeUnit.SECONDS);
+            // 一次往返：抢锁（不等待）+ 写入执行时间 + 取服务端时间；租期按历史执行耗时计算，长任务由看门狗续期
+            long leaseTime = TaskExecutionRecorder.getLeaseTime(taskName);
+            long acquireStart = System.nanoTime();
+            acquired = scheduleLock.acquire(lockKey, timeSyncKey, traceId, leaseTime);
+            meters.recordLockAcquire(System.nanoTime() - acquireStart);
+            isLocked = acquired.isAcquired();
 
             if (isLocked) {
+                meters.lockWon();
+                // 抢到锁后才占用限制组的名额和令牌，未抢到锁的节点不消耗
+                permit = clusterLimiter.tryAcquire(taskName);
+                if (permit == null) {
+                    limited = true;
+                    skipLimited(descriptor, meters);
+                    return null;
+                }
+                lease = lockWatchdog.watch(lockKey, leaseTime, newLease -> scheduleLock.renewAsync(lockKey, traceId, newLease));
                 // 抢到锁的任务 - 直接执行不做时间调整
                 log.info("获取任务锁成功，开始执行任务[{}]", taskName);
-                long startTime = getRedisTime();
-
-                try {
-                    // 记录当前执行时间
-                    redissonClient.getBucket(timeSyncKey).set(startTime);
-                    return joinPoint.proceed();
-                } finally {
-                    long duration = getRedisTime() - startTime;
-                    TaskExecutionRecorder.record(taskName, duration);
-                    log.info("任务[{}]执行完成，耗时 {} ms", taskName, duration);
-                }
+                startTime = acquired.getServerTime();
+                localStartTime = System.currentTimeMillis();
+                return proceed(joinPoint, descriptor, traceId);
             } else {
-                // 未抢到锁的任务 - 需要对齐执行时间
-                log.info("未获取到任务锁，尝试对齐执行时间");
-
-                // 获取上次执行时间
-                RBucket<Long> lastRunBucket = redissonClient.getBucket(timeSyncKey);
-                Long lastRunTime = lastRunBucket.get();
-
-                if (lastRunTime != null) {
-                    // 计算预期下次执行时间
-                    Scheduled scheduled = joinPoint.getTarget().getClass().getMethod(methodName).getAnnotation(Scheduled.class);
-                    long taskInterval = getTaskInterval(scheduled);
-                    long nextExpectedTime = lastRunTime + taskInterval;
-                    long now = System.currentTimeMillis();
-
-                    if (now < nextExpectedTime) {
-                        // 等待到预期执行时间
-                        long waitTime = nextExpectedTime - now;
-                        if (waitTime > 0) {
-                            log.info("等待 {}ms 对齐执行时间", waitTime);
-                            preciseWait(waitTime);
-                        }
-
-//                        // 再次检查锁状态，确保可以执行
-//                        if (!lock.isLocked()) {
-//                            log.info("对齐时间后执行任务[{}]", taskName);
-//                            return joinPoint.proceed();
-//                        } else {
-//                            log.info("对齐时间后锁仍被占用，跳过执行");
-//                        }
-                    }
+                // 未抢到锁的任务 - 立即归还调度线程，时间对齐与备机复查交给延迟回调
+                meters.lockLost();
+                if (descriptor.isManaged()) {
+                    FiringOutcome.markSkipped();
                 }
+                log.info("未获取到任务锁，跳过本次执行");
+                standbyScheduler.onLockLost(taskName, scheduleLock, lockKey, timeSyncKey, descriptor.getInterval(),
+                        acquired.getLastRunTime(), acquired.getServerTime(), joinPoint.getThis(), descriptor.getMethod());
                 return null;
             }
-        } catch (Exception e) {
+        } catch (Throwable e) {
             log.error("定时任务执行出错：{}", e.getMessage(), e);
+            if (acquired == null) {
+                // 抢锁本身出错，本次没有执行
+                meters.skipped();
+            }
+            failure = e;
             throw e;
         } finally {
-            if (isLocked && lock.isHeldByCurrentThread()) {
-                lock.unlock();
+            if (lease != null) {
+                lease.release();
+            }
+            if (permit != null) {
+                permit.release();
+            }
+            if (limited) {
+                // 没有执行，只释放锁，不计入执行耗时
+                releaseQuietly(scheduleLock, descriptor, traceId, acquired.getServerTime());
+            } else if (isLocked) {
+                long localEndTime = System.currentTimeMillis();
+                meters.recordExecution(localEndTime - localStartTime, failure != null);
+                // 执行历史用本地时钟，入队即返回，不增加数据库往返
+                executionLogWriter.record(traceId, taskName, localStartTime, localEndTime, failure);
+                releaseAndRecord(scheduleLock, descriptor, traceId, startTime);
             }
             TraceContext.clear();
             log.info("---------end------------");
         }
     }
 
-    private long getTaskInterval(Scheduled scheduled) {
-        if (scheduled==null){
-            return 0;
-        }
-        if (scheduled.fixedRate() > 0) return scheduled.fixedRate();
-        if (scheduled.fixedDelay() > 0) return scheduled.fixedDelay();
-        if (!scheduled.cron().isEmpty()) {
-            try {
-                // 尝试解析为固定间隔
-                long interval = CronExpressionParser.parseCronToInterval(scheduled.cron());
-                if (interval > 0) {
-                    return interval;
-                }
-                // 如果是固定时刻任务，返回-1表示需要特殊处理
-                return -1;
-            } catch (Exception e) {
-                log.warn("解析cron表达式失败: {}, 将使用默认间隔", scheduled.cron(), e);
-                return 5000; // 默认5秒
-            }
+    /**
+     * 分片广播：每个节点都触发，领取分片各自执行，不抢整体锁
+     */
+    private Object proceedSharded(ProceedingJoinPoint joinPoint, TaskDescriptor descriptor) {
+        String traceId = TraceContext.begin();
+        long startTime = System.currentTimeMillis();
+        try {
+            shardCoordinator.fire(descriptor, traceId, joinPoint::proceed);
+            return null;
+        } finally {
+            // 分片失败在协调器内按分片记录，这里只统计本节点这次触发的总耗时
+            schedulerMetrics.forTask(descriptor.getTaskName()).recordExecution(System.currentTimeMillis() - startTime, false);
+            TraceContext.clear();
         }
-        return 0;
     }
 
-    private long getRedisTime() {
-        return redissonClient.getScript().eval(RScript.Mode.READ_ONLY,
-                "return redis.call('time')[1]*1000 + redis.call('time')[2]/1000",
-                RScript.ReturnType.INTEGER);
+    /**
+     * 集群归属模式：触发器只在主节点装填，触发即执行，耗时只记录在本地
+     */
+    private Object proceedAsOwner(ProceedingJoinPoint joinPoint, TaskDescriptor descriptor) throws Throwable {
+        ClusterLimiter.Permit permit = clusterLimiter.tryAcquire(descriptor.getTaskName());
+        if (permit == null) {
+            skipLimited(descriptor, schedulerMetrics.forTask(descriptor.getTaskName()));
+            return null;
+        }
+        String traceId = TraceContext.begin();
+        long startTime = System.currentTimeMillis();
+        Throwable failure = null;
+        try {
+            log.info("节点[{}]执行归属任务[{}]", clusterMembership.getNodeId(), descriptor.getTaskName());
+            return proceed(joinPoint, descriptor, traceId);
+        } catch (Throwable e) {
+            log.error("定时任务执行出错：{}", e.getMessage(), e);
+            failure = e;
+            throw e;
+        } finally {
+            permit.release();
+            long endTime = System.currentTimeMillis();
+            long duration = endTime - startTime;
+            TaskExecutionRecorder.record(descriptor.getTaskName(), duration);
+            schedulerMetrics.forTask(descriptor.getTaskName()).recordExecution(duration, failure != null);
+            executionLogWriter.record(traceId, descriptor.getTaskName(), startTime, endTime, failure);
+            log.info("任务[{}]执行完成，耗时 {} ms", descriptor.getTaskName(), duration);
+            TraceContext.clear();
+        }
     }
 
-    private void preciseWait(long millis) throws InterruptedException {
-        long start = System.nanoTime();
-        long nanosToWait = millis * 1_000_000L;
-        while (System.nanoTime() - start < nanosToWait) {
-            long remaining = (nanosToWait - (System.nanoTime() - start)) / 1_000_000;
-            if (remaining > 10) {
-                Thread.sleep(remaining / 2);
-            } else {
-                Thread.yield();
+    /**
+     * 执行任务体；分块任务先从检查点开始逐块处理，全部处理完后再执行方法体收尾，
+     * 被接管或中断时不执行方法体，本次执行记为跳过，下游任务不推进
+     */
+    private Object proceed(ProceedingJoinPoint joinPoint, TaskDescriptor descriptor, String owner) throws Throwable {
+        if (descriptor.isChunked() && !chunkedJobRunner.run(descriptor, (ChunkedJob<?>) joinPoint.getTarget(), owner)) {
+            if (descriptor.isManaged()) {
+                FiringOutcome.markSkipped();
             }
+            return null;
         }
+        return joinPoint.proceed();
     }
 
-    private Object handleFixedTimeTask(ProceedingJoinPoint joinPoint, Scheduled scheduled,
-                                       String taskName, String lockKey) throws Throwable {
-        long now = getRedisTime();
-        long nextExecutionTime = CronExpressionParser.getNextExecutionTime(scheduled.cron(), now);
-
-        // 如果还没到执行时间，直接返回
-        if (now < nextExecutionTime - 100) { // 100ms误差容忍
-            log.info("任务[{}]未到执行时间，跳过", taskName);
-            return null;
+    /**
+     * 限制组的集群并发或频率已到上限，放弃本次执行
+     */
+    private void skipLimited(TaskDescriptor descriptor, SchedulerMetrics.TaskMeters meters) {
+        meters.skipped();
+        if (descriptor.isManaged()) {
+            FiringOutcome.markSkipped();
         }
+        log.info("任务[{}]所在限制组已达到集群并发或频率上限，跳过本次执行", descriptor.getTaskName());
+    }
 
-        RLock lock = redissonClient.getLock(lockKey);
-        boolean isLocked = false;
-
+    private void releaseQuietly(LockProvider scheduleLock, TaskDescriptor descriptor, String owner, long startTime) {
         try {
-            // 尝试获取锁，锁有效期设置为1小时
-            isLocked = lock.tryLock(0, 1, TimeUnit.HOURS);
+            scheduleLock.release(descriptor.getLockKey(), descriptor.getDurationKey(), owner, startTime);
+        } catch (Exception e) {
+            log.error("任务[{}]释放锁失败，将等待租期到期：{}", descriptor.getTaskName(), e.getMessage(), e);
+        }
+    }
 
-            if (isLocked) {
-                log.info("执行固定时刻任务[{}]", taskName);
-                return joinPoint.proceed();
-            } else {
-                log.info("未能获取分布式锁，跳过任务[{}]", taskName);
-                return null;
-            }
-        } finally {
-            if (isLocked && lock.isHeldByCurrentThread()) {
-                lock.unlock();
-            }
+    /**
+     * 一次往返：校验持有者并释放锁，同时记录耗时；释放失败只记录日志，不覆盖任务本身的异常
+     */
+    private void releaseAndRecord(LockProvider scheduleLock, TaskDescriptor descriptor, String owner, long startTime) {
+        try {
+            long duration = scheduleLock.release(descriptor.getLockKey(), descriptor.getDurationKey(), owner, startTime);
+            TaskExecutionRecorder.record(descriptor.getTaskName(), duration);
+            log.info("任务[{}]执行完成，耗时 {} ms", descriptor.getTaskName(), duration);
+        } catch (Exception e) {
+            log.error("任务[{}]释放锁失败，将等待租期到期：{}", descriptor.getTaskName(), e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+}
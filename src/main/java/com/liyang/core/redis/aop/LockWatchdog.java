@@ -0,0 +1,125 @@
+package com.liyang.core.redis.aop;
+
+import com.liyang.core.wheel.HashedWheelTimer;
+import com.liyang.core.wheel.WheelTimeout;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+/**
+ * 锁租期看门狗
+ * <p>
+ * 所有持有中的锁共用一个时间轮（deferredTimer），不为每把锁起线程。
+ * 登记后在租期的 1/3 处异步续期一次，续期成功再登记下一次；任务在此之前结束则只是取消一个时间轮定时项，
+ * 因此短任务几乎没有额外开销，只有长任务才会真正续期。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Component
+@Slf4j
+public class LockWatchdog {
+
+    @Resource
+    private HashedWheelTimer deferredTimer;
+
+    private final LongAdder activeLeases = new LongAdder();
+    private final LongAdder renewals = new LongAdder();
+    private final LongAdder lostLeases = new LongAdder();
+
+    /**
+     * 登记一把已持有的锁
+     *
+     * @param lockKey     锁 key，仅用于日志
+     * @param leaseMillis 租期
+     * @param renewer     续期动作：入参为新的租期，返回是否续期成功，必须是异步的
+     * @return 租约，任务结束后必须 {@link Lease#release()}
+     */
+    public Lease watch(String lockKey, long leaseMillis, LongFunction<CompletionStage<Boolean>> renewer) {
+        Lease lease = new Lease(lockKey, leaseMillis, renewer);
+        activeLeases.increment();
+        schedule(lease);
+        return lease;
+    }
+
+    private void schedule(Lease lease) {
+        synchronized (lease) {
+            if (!lease.released) {
+                lease.timeout = deferredTimer.newTimeout(() -> renew(lease), Math.max(1, lease.leaseMillis / 3), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void renew(Lease lease) {
+        if (lease.released) {
+            return;
+        }
+        lease.renewer.apply(lease.leaseMillis).whenComplete((renewed, error) -> {
+            if (lease.released) {
+                return;
+            }
+            if (error != null || !Boolean.TRUE.equals(renewed)) {
+                lease.lost = true;
+                lostLeases.increment();
+                log.warn("锁[{}]续期失败，任务可能被其他节点重复执行：{}", lease.lockKey,
+                        error == null ? "锁已不属于当前节点" : error.getMessage());
+                return;
+            }
+            renewals.increment();
+            schedule(lease);
+        });
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("activeLeases", activeLeases.sum());
+        stats.put("renewals", renewals.sum());
+        stats.put("lostLeases", lostLeases.sum());
+        return stats;
+    }
+
+    /**
+     * 一次持锁的租约
+     */
+    public final class Lease {
+        private final String lockKey;
+        private final long leaseMillis;
+        private final LongFunction<CompletionStage<Boolean>> renewer;
+        private volatile boolean released;
+        private volatile boolean lost;
+        private WheelTimeout timeout;
+
+        private Lease(String lockKey, long leaseMillis, LongFunction<CompletionStage<Boolean>> renewer) {
+            this.lockKey = lockKey;
+            this.leaseMillis = leaseMillis;
+            this.renewer = renewer;
+        }
+
+        /**
+         * 续期失败，锁可能已被其他节点获取
+         */
+        public boolean isLost() {
+            return lost;
+        }
+
+        public void release() {
+            synchronized (this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+                if (timeout != null) {
+                    timeout.cancel();
+                }
+            }
+            activeLeases.decrement();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.liyang.core.redis.aop;
+
+import com.liyang.config.PartitionProperties;
+import com.liyang.core.lock.LockProvider;
+import com.liyang.core.task.FiringOutcome;
+import com.liyang.core.wheel.HashedWheelTimer;
+import com.liyang.operation.PartitionExecutors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 未抢到锁节点的处理
+ * <p>
+ * 以前未抢到锁的节点会在调度线程上 sleep/yield 直到下次预期执行时间，之后什么也不做，白白占用调度线程。
+ * 现在未抢到锁立即归还线程；需要对齐时间做备机复查时，只在共享时间轮上登记一个延迟回调，
+ * 到点后通过任务所用的锁实现异步读取最近执行时间，发现主节点没有按时执行才接管一次。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Component
+@Slf4j
+public class StandbyScheduler {
+
+    /**
+     * 标记当前线程正在执行接管触发，接管时再次抢锁失败不再登记复查
+     */
+    private static final ThreadLocal<Boolean> TAKEOVER = new ThreadLocal<>();
+
+    @Resource
+    private HashedWheelTimer deferredTimer;
+
+    @Resource
+    private PartitionExecutors partitionExecutors;
+
+    @Value("${ly-job.standby.recheck-enabled:false}")
+    private boolean recheckEnabled;
+
+    @Value("${ly-job.standby.grace-ms:1000}")
+    private long graceMillis;
+
+    /**
+     * 未抢到锁后立即返回的调度线程数（即原本会被阻塞等待的线程）
+     */
+    private final LongAdder reclaimedThreads = new LongAdder();
+    /**
+     * 这些线程原本需要阻塞等待的总时长
+     */
+    private final LongAdder reclaimedWaitMillis = new LongAdder();
+    private final LongAdder scheduledRechecks = new LongAdder();
+    private final LongAdder takeovers = new LongAdder();
+
+    /**
+     * 未抢到锁：不阻塞，需要时登记一次延迟复查
+     *
+     * @param taskName    任务名
+     * @param lock        任务所用的锁实现，复查时从它读取最近执行时间
+     * @param lockKey     锁 key
+     * @param timeSyncKey 最近执行时间的 key
+     * @param interval    任务间隔，&lt;=0 表示不能按固定间隔对齐
+     * @param lastRunTime 抢锁脚本返回的最近执行时间，-1 表示没有
+     * @param serverTime  抢锁脚本返回的 Redis 服务端时间
+     * @param proxy       任务 bean 代理，接管时通过代理重新进入切面抢锁
+     * @param method      任务方法
+     */
+    public void onLockLost(String taskName, LockProvider lock, String lockKey, String timeSyncKey, long interval,
+                           long lastRunTime, long serverTime, Object proxy, Method method) {
+        if (interval <= 0) {
+            // 不能按固定间隔对齐的任务原本也不会阻塞等待
+            return;
+        }
+        reclaimedThreads.increment();
+        if (lastRunTime < 0 || Boolean.TRUE.equals(TAKEOVER.get())) {
+            return;
+        }
+        long waitTime = lastRunTime + interval - serverTime;
+        if (waitTime <= 0) {
+            return;
+        }
+        reclaimedWaitMillis.add(waitTime);
+        if (recheckEnabled) {
+            scheduledRechecks.increment();
+            deferredTimer.newTimeout(() -> recheck(taskName, lock, lockKey, timeSyncKey, lastRunTime, proxy, method),
+                    waitTime + graceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 到达预期执行时间 + 宽限期后复查：最近执行时间没有推进，说明持锁节点没有按时执行，本节点接管一次
+     */
+    private void recheck(String taskName, LockProvider lock, String lockKey, String timeSyncKey, long lastRunTime,
+                         Object proxy, Method method) {
+        lock.lastRunTimeAsync(lockKey, timeSyncKey).whenComplete((latest, error) -> {
+            if (error != null) {
+                log.warn("任务[{}]备机复查读取执行时间失败：{}", taskName, error.getMessage());
+                return;
+            }
+            if (latest != null && latest > lastRunTime) {
+                return;
+            }
+            takeovers.increment();
+            log.warn("任务[{}]未按预期执行，备机接管一次", taskName);
+            partitionExecutors.execute(PartitionProperties.DEFAULT_PARTITION, () -> takeover(taskName, proxy, method), null);
+        });
+    }
+
+    void takeover(String taskName, Object proxy, Method method) {
+        TAKEOVER.set(Boolean.TRUE);
+        try {
+            method.invoke(proxy);
+        } catch (Exception e) {
+            log.error("任务[{}]备机接管执行出错", taskName, e);
+        } finally {
+            TAKEOVER.remove();
+            // 接管再次抢锁失败时切面会标记跳过，这里没有人读取，清除后再归还分区线程
+            FiringOutcome.clear();
+        }
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("reclaimedThreads", reclaimedThreads.sum());
+        stats.put("reclaimedWaitMillis", reclaimedWaitMillis.sum());
+        stats.put("scheduledRechecks", scheduledRechecks.sum());
+        stats.put("takeovers", takeovers.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,153 @@
+package com.liyang.core.redis.lock;
+
+import com.liyang.core.lock.LockProvider;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 调度锁的 Redis 协议
+ * <p>
+ * 一次触发只需两次往返：
+ * <ol>
+ *     <li>acquire：原子地 SET NX PX 抢锁、写入本次执行时间、返回服务端时间；抢锁失败时顺带返回上次执行时间供对齐使用</li>
+ *     <li>release：校验持有者后删除锁，记录本次耗时，返回服务端计算的耗时</li>
+ * </ol>
+ * 原来的 tryLock、两次 getRedisTime、写 lastSyncTime、isHeldByCurrentThread、unlock 共约 6 次往返。
+ * 锁的值是本次触发的 owner 标识，续期和释放都只对自己持有的锁生效。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Component
+public class RedisScheduleLock implements LockProvider {
+
+    public static final String NAME = "redis";
+
+    /**
+     * 服务端毫秒时间，拼接字符串避免 Lua 把大整数转成科学计数法；
+     * 低版本 Redis 需要先开启命令复制才能在 TIME 之后写入
+     */
+    private static final String NOW = "if redis.replicate_commands then redis.replicate_commands() end "
+            + "local t = redis.call('TIME') "
+            + "local now = t[1] .. string.format('%03d', math.floor(t[2] / 1000)) ";
+
+    /**
+     * KEYS[1] 锁 key，KEYS[2] 最近执行时间 key；ARGV[1] owner，ARGV[2] 租期(ms)
+     * 返回 {是否抢到, 服务端时间, 最近执行时间(-1 表示没有)}
+     */
+    private static final String ACQUIRE_SCRIPT = NOW
+            + "if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then "
+            + "  redis.call('SET', KEYS[2], now) "
+            + "  return {1, tonumber(now), tonumber(now)} "
+            + "end "
+            + "local last = redis.call('GET', KEYS[2]) "
+            + "return {0, tonumber(now), tonumber(last) or -1}";
+
+    /**
+     * KEYS[1] 锁 key，KEYS[2] 最近耗时 key；ARGV[1] owner，ARGV[2] 开始时间
+     * 返回 {是否释放, 服务端计算的耗时}
+     */
+    private static final String RELEASE_SCRIPT = NOW
+            + "local duration = tonumber(now) - tonumber(ARGV[2]) "
+            + "redis.call('SET', KEYS[2], duration) "
+            + "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+            + "  redis.call('DEL', KEYS[1]) "
+            + "  return {1, duration} "
+            + "end "
+            + "return {0, duration}";
+
+    /**
+     * KEYS[1] 锁 key；ARGV[1] owner，ARGV[2] 新租期(ms)
+     */
+    private static final String RENEW_SCRIPT =
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+                    + "  return redis.call('PEXPIRE', KEYS[1], ARGV[2]) "
+                    + "end "
+                    + "return 0";
+
+    /**
+     * KEYS[1] 最近执行时间 key，返回最近执行时间(-1 表示没有)
+     */
+    private static final String LAST_RUN_SCRIPT = "return tonumber(redis.call('GET', KEYS[1])) or -1";
+
+    private final RScript script;
+
+    private final LongAdder firings = new LongAdder();
+    private final LongAdder redisCommands = new LongAdder();
+
+    public RedisScheduleLock(RedissonClient redissonClient) {
+        this.script = redissonClient.getScript(StringCodec.INSTANCE);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public AcquireResult acquire(String lockKey, String timeSyncKey, String owner, long leaseMillis) {
+        firings.increment();
+        redisCommands.increment();
+        List<Object> result = script.eval(RScript.Mode.READ_WRITE, ACQUIRE_SCRIPT, RScript.ReturnType.MULTI,
+                Arrays.asList(lockKey, timeSyncKey), owner, String.valueOf(leaseMillis));
+        return new AcquireResult(toLong(result.get(0)) == 1, toLong(result.get(1)), toLong(result.get(2)));
+    }
+
+    /**
+     * 释放锁并记录耗时
+     *
+     * @return 服务端计算的耗时(ms)
+     */
+    @Override
+    public long release(String lockKey, String durationKey, String owner, long startTime) {
+        redisCommands.increment();
+        List<Object> result = script.eval(RScript.Mode.READ_WRITE, RELEASE_SCRIPT, RScript.ReturnType.MULTI,
+                Arrays.asList(lockKey, durationKey), owner, String.valueOf(startTime));
+        return toLong(result.get(1));
+    }
+
+    /**
+     * 异步续期，仅当锁仍属于 owner 时生效
+     */
+    @Override
+    public CompletionStage<Boolean> renewAsync(String lockKey, String owner, long leaseMillis) {
+        redisCommands.increment();
+        return script.<Long>evalAsync(RScript.Mode.READ_WRITE, RENEW_SCRIPT, RScript.ReturnType.INTEGER,
+                        Arrays.asList(lockKey), owner, String.valueOf(leaseMillis))
+                .thenApply(renewed -> renewed != null && renewed == 1L);
+    }
+
+    @Override
+    public CompletionStage<Long> lastRunTimeAsync(String lockKey, String timeSyncKey) {
+        redisCommands.increment();
+        return script.<Long>evalAsync(RScript.Mode.READ_ONLY, LAST_RUN_SCRIPT, RScript.ReturnType.INTEGER,
+                        Arrays.asList(timeSyncKey))
+                .thenApply(last -> last == null ? -1L : last);
+    }
+
+    /**
+     * 触发次数与 Redis 命令数，用于验证每次触发的往返次数
+     */
+    public Map<String, Long> getStats() {
+        long firingCount = firings.sum();
+        long commandCount = redisCommands.sum();
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("firings", firingCount);
+        stats.put("redisCommands", commandCount);
+        stats.put("commandsPerFiringX100", firingCount == 0 ? 0 : commandCount * 100 / firingCount);
+        return stats;
+    }
+
+    private static long toLong(Object value) {
+        return value == null ? -1 : ((Number) value).longValue();
+    }
+}
@@ -0,0 +1,250 @@
+package com.liyang.core.shard;
+
+import com.liyang.config.PartitionProperties;
+import com.liyang.core.redis.aop.LockWatchdog;
+import com.liyang.core.task.TaskDescriptor;
+import com.liyang.core.task.TaskInvoker;
+import com.liyang.core.wheel.HashedWheelTimer;
+import com.liyang.entity.TbTaskExecutionLog;
+import com.liyang.operation.ExecutionLogWriter;
+import com.liyang.operation.PartitionExecutors;
+import com.liyang.utils.TaskExecutionRecorder;
+import com.liyang.utils.TraceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 分片广播执行
+ * <p>
+ * 同一次触发的分片状态放在一个 Redis hash 中：{@code s:序号} 为 "持有者|租期到期时间"，{@code d:序号} 为 "持有者|完成时间|结果"。
+ * 每个节点触发后循环领取一个未领取或租期已过期的分片执行，直到没有可领的分片，因此所有存活节点一起分担同一次触发。
+ * 持有中的分片由看门狗续期；节点宕机后租期到期，其分片会被仍在领取的节点或到期复查的节点重新领取。
+ * <p>
+ * 同一次触发按任务间隔取整到最近的边界确定，节点间时钟偏差需小于半个间隔，分片任务建议使用对齐的 cron。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Component
+@Slf4j
+public class ShardCoordinator {
+
+    private static final String NOW = "if redis.replicate_commands then redis.replicate_commands() end "
+            + "local t = redis.call('TIME') "
+            + "local now = tonumber(t[1] .. string.format('%03d', math.floor(t[2] / 1000))) ";
+
+    /**
+     * KEYS[1] 本次触发的 hash；ARGV[1] 持有者，ARGV[2] 分片数，ARGV[3] 租期，ARGV[4] hash 过期时间，ARGV[5] 是否复查
+     * 返回 {领取到的分片(-1 表示没有), 是否从过期持有者手中收回, 最早到期的在途分片还需等待的毫秒数(-1 表示没有在途分片)}
+     */
+    private static final String CLAIM_SCRIPT = NOW
+            + "if ARGV[5] == '1' and redis.call('EXISTS', KEYS[1]) == 0 then return {-1, 0, -1} end "
+            + "local pending = -1 "
+            + "for i = 0, tonumber(ARGV[2]) - 1 do "
+            + "  if redis.call('HEXISTS', KEYS[1], 'd:' .. i) == 0 then "
+            + "    local claim = redis.call('HGET', KEYS[1], 's:' .. i) "
+            + "    local expireAt = claim and tonumber(string.match(claim, '|(%d+)$')) or 0 "
+            + "    if expireAt < now then "
+            + "      redis.call('HSET', KEYS[1], 's:' .. i, ARGV[1] .. '|' .. string.format('%d', now + tonumber(ARGV[3]))) "
+            + "      redis.call('PEXPIRE', KEYS[1], ARGV[4]) "
+            + "      return {i, claim and 1 or 0, -1} "
+            + "    end "
+            + "    if pending < 0 or expireAt - now < pending then pending = expireAt - now end "
+            + "  end "
+            + "end "
+            + "return {-1, 0, pending}";
+
+    /**
+     * KEYS[1]；ARGV[1] 持有者，ARGV[2] 分片，ARGV[3] 结果。分片已被他人收回时不记录
+     */
+    private static final String COMPLETE_SCRIPT = NOW
+            + "local claim = redis.call('HGET', KEYS[1], 's:' .. ARGV[2]) "
+            + "if claim and string.sub(claim, 1, #ARGV[1] + 1) == ARGV[1] .. '|' then "
+            + "  redis.call('HDEL', KEYS[1], 's:' .. ARGV[2]) "
+            + "  redis.call('HSET', KEYS[1], 'd:' .. ARGV[2], ARGV[1] .. '|' .. string.format('%d', now) .. '|' .. ARGV[3]) "
+            + "  return 1 "
+            + "end "
+            + "return 0";
+
+    /**
+     * KEYS[1]；ARGV[1] 持有者，ARGV[2] 分片，ARGV[3] 新租期
+     */
+    private static final String RENEW_SCRIPT = NOW
+            + "local claim = redis.call('HGET', KEYS[1], 's:' .. ARGV[2]) "
+            + "if claim and string.sub(claim, 1, #ARGV[1] + 1) == ARGV[1] .. '|' then "
+            + "  redis.call('HSET', KEYS[1], 's:' .. ARGV[2], ARGV[1] .. '|' .. string.format('%d', now + tonumber(ARGV[3]))) "
+            + "  return 1 "
+            + "end "
+            + "return 0";
+
+    private final RScript script;
+    private final RedissonClient redissonClient;
+
+    @Resource
+    private LockWatchdog lockWatchdog;
+
+    @Resource
+    private HashedWheelTimer deferredTimer;
+
+    @Resource
+    private PartitionExecutors partitionExecutors;
+
+    @Resource
+    private ExecutionLogWriter executionLogWriter;
+
+    @Value("${ly-job.sharding.recheck-grace-ms:1000}")
+    private long recheckGraceMillis;
+
+    /**
+     * 持有者标识：pid@host 加随机后缀，重启后的同一进程号不会误认旧分片
+     */
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + ":" + UUID.randomUUID().toString().substring(0, 8);
+
+    private final Map<String, String> lastFiringKeys = new ConcurrentHashMap<>();
+
+    private final LongAdder shardsRun = new LongAdder();
+    private final LongAdder shardsReclaimed = new LongAdder();
+    private final LongAdder shardsLost = new LongAdder();
+
+    public ShardCoordinator(RedissonClient redissonClient) {
+        this.redissonClient = redissonClient;
+        this.script = redissonClient.getScript(StringCodec.INSTANCE);
+    }
+
+    /**
+     * 执行一次分片触发：本节点循环领取分片执行，直到没有可领的分片
+     *
+     * @param descriptor 分片任务
+     * @param traceId    本次触发的链路id
+     * @param body       执行一次任务体，可以重复调用
+     */
+    public void fire(TaskDescriptor descriptor, String traceId, TaskInvoker body) {
+        long bucket = descriptor.getInterval() > 0 ? descriptor.getInterval() : 1000;
+        // 取整到最近的边界，容忍节点间小于半个间隔的时钟偏差
+        long firingId = (System.currentTimeMillis() + bucket / 2) / bucket;
+        String firingKey = "ly-job:shard:" + descriptor.getTaskName() + ":" + firingId;
+        lastFiringKeys.put(descriptor.getTaskName(), firingKey);
+        runShards(descriptor, traceId, body, firingId, firingKey, false);
+    }
+
+    private void runShards(TaskDescriptor descriptor, String traceId, TaskInvoker body, long firingId, String firingKey,
+                           boolean recheck) {
+        String taskName = descriptor.getTaskName();
+        int shardTotal = descriptor.getShardCount();
+        long leaseTime = TaskExecutionRecorder.getLeaseTime(taskName);
+        long keyTtl = Math.max(TimeUnit.MINUTES.toMillis(10), Math.max(descriptor.getInterval(), leaseTime) * 2);
+        while (true) {
+            List<Object> claimed = script.eval(RScript.Mode.READ_WRITE, CLAIM_SCRIPT, RScript.ReturnType.MULTI,
+                    Collections.singletonList(firingKey), owner, String.valueOf(shardTotal), String.valueOf(leaseTime),
+                    String.valueOf(keyTtl), recheck ? "1" : "0");
+            int shard = ((Number) claimed.get(0)).intValue();
+            if (shard < 0) {
+                long pendingWait = ((Number) claimed.get(2)).longValue();
+                if (pendingWait >= 0) {
+                    scheduleRecheck(descriptor, traceId, body, firingId, firingKey, pendingWait);
+                }
+                return;
+            }
+            if (((Number) claimed.get(1)).longValue() == 1) {
+                shardsReclaimed.increment();
+                log.warn("任务[{}]分片 {}/{} 的持有节点租期已过期，由本节点重新执行", taskName, shard, shardTotal);
+            }
+            runShard(descriptor, traceId, body, firingId, firingKey, shard, leaseTime);
+        }
+    }
+
+    private void runShard(TaskDescriptor descriptor, String traceId, TaskInvoker body, long firingId, String firingKey,
+                          int shard, long leaseTime) {
+        String taskName = descriptor.getTaskName();
+        int shardTotal = descriptor.getShardCount();
+        String shardField = String.valueOf(shard);
+        LockWatchdog.Lease lease = lockWatchdog.watch(firingKey + "#" + shard, leaseTime,
+                newLease -> script.<Long>evalAsync(RScript.Mode.READ_WRITE, RENEW_SCRIPT, RScript.ReturnType.INTEGER,
+                                Collections.singletonList(firingKey), owner, shardField, String.valueOf(newLease))
+                        .thenApply(renewed -> renewed != null && renewed == 1L));
+        ShardingContext.set(new ShardingContext(shard, shardTotal, firingId));
+        long startTime = System.currentTimeMillis();
+        Throwable failure = null;
+        try {
+            log.info("开始执行任务[{}]分片 {}/{}", taskName, shard, shardTotal);
+            body.invoke();
+        } catch (Throwable e) {
+            failure = e;
+            log.error("任务[{}]分片 {}/{} 执行出错", taskName, shard, shardTotal, e);
+        } finally {
+            lease.release();
+            ShardingContext.clear();
+            long endTime = System.currentTimeMillis();
+            TaskExecutionRecorder.record(taskName, endTime - startTime);
+            executionLogWriter.record(traceId, taskName, startTime, endTime, failure, shard, shardTotal);
+            shardsRun.increment();
+            complete(firingKey, taskName, shard, shardTotal, failure == null);
+        }
+    }
+
+    private void complete(String firingKey, String taskName, int shard, int shardTotal, boolean success) {
+        try {
+            Long completed = script.eval(RScript.Mode.READ_WRITE, COMPLETE_SCRIPT, RScript.ReturnType.INTEGER,
+                    Collections.singletonList(firingKey), owner, String.valueOf(shard),
+                    success ? TbTaskExecutionLog.STATUS_SUCCESS : TbTaskExecutionLog.STATUS_FAILED);
+            if (completed == null || completed != 1L) {
+                shardsLost.increment();
+                log.warn("任务[{}]分片 {}/{} 执行期间租期丢失，已被其他节点收回", taskName, shard, shardTotal);
+            }
+        } catch (Exception e) {
+            log.error("任务[{}]分片 {}/{} 上报完成失败：{}", taskName, shard, shardTotal, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 还有其他节点持有的分片未完成：到期后复查一次，持有节点宕机时由本节点收回
+     */
+    private void scheduleRecheck(TaskDescriptor descriptor, String traceId, TaskInvoker body, long firingId,
+                                 String firingKey, long pendingWait) {
+        deferredTimer.newTimeout(() -> partitionExecutors.execute(PartitionProperties.DEFAULT_PARTITION, () -> {
+            TraceContext.setTraceId(traceId);
+            try {
+                runShards(descriptor, traceId, body, firingId, firingKey, true);
+            } catch (Exception e) {
+                log.warn("任务[{}]分片复查失败：{}", descriptor.getTaskName(), e.getMessage());
+            } finally {
+                TraceContext.clear();
+            }
+        }, null), pendingWait + recheckGraceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 最近一次触发的分片状态，key 为 s:序号（执行中）或 d:序号（已完成）
+     */
+    public Map<String, String> getLastFiring(String taskName) {
+        String firingKey = lastFiringKeys.get(taskName);
+        if (firingKey == null) {
+            return null;
+        }
+        return new TreeMap<>(redissonClient.<String, String>getMap(firingKey, StringCodec.INSTANCE).readAllMap());
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("shardsRun", shardsRun.sum());
+        stats.put("shardsReclaimed", shardsReclaimed.sum());
+        stats.put("shardsLost", shardsLost.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,55 @@
+package com.liyang.core.shard;
+
+import lombok.Getter;
+
+/**
+ * 分片上下文，分片广播任务在执行期间通过 {@link #current()} 取得本次要处理的分片
+ * <pre>
+ * ShardingContext sharding = ShardingContext.current();
+ * if (sharding != null) {
+ *     // 只处理 id % sharding.getShardTotal() == sharding.getShardIndex() 的数据
+ * }
+ * </pre>
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Getter
+public final class ShardingContext {
+
+    private static final ThreadLocal<ShardingContext> CONTEXT = new ThreadLocal<>();
+
+    /**
+     * 分片序号，从 0 开始
+     */
+    private final int shardIndex;
+    /**
+     * 分片总数
+     */
+    private final int shardTotal;
+    /**
+     * 本次触发的标识，同一次触发的所有分片相同
+     */
+    private final long firingId;
+
+    ShardingContext(int shardIndex, int shardTotal, long firingId) {
+        this.shardIndex = shardIndex;
+        this.shardTotal = shardTotal;
+        this.firingId = firingId;
+    }
+
+    /**
+     * @return 当前线程正在执行的分片，非分片任务返回 null
+     */
+    public static ShardingContext current() {
+        return CONTEXT.get();
+    }
+
+    static void set(ShardingContext context) {
+        CONTEXT.set(context);
+    }
+
+    static void clear() {
+        CONTEXT.remove();
+    }
+}
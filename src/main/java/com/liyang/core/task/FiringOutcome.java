@@ -0,0 +1,47 @@
+package com.liyang.core.task;
+
+/**
+ * 切面向调用方传递本次触发的结果
+ * <p>
+ * 未抢到锁时切面直接返回，对 void 方法而言调用方无法从返回值区分"执行了"和"没有执行"，
+ * 因此由切面在当前线程上做标记，调用方读取后清除。只标记 DynamicTaskManager 管理的任务。
+ * 线程池中的线程会被复用：读取结果的调用方在调用前先 {@link #clear()}，
+ * 备机接管等不读取结果的调用方在结束时清除，下一次触发不会读到残留的标记。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+public final class FiringOutcome {
+
+    private static final ThreadLocal<Boolean> SKIPPED = new ThreadLocal<>();
+
+    private FiringOutcome() {
+    }
+
+    /**
+     * 本次触发没有在本节点执行任务体
+     */
+    public static void markSkipped() {
+        SKIPPED.set(Boolean.TRUE);
+    }
+
+    /**
+     * 清除标记，不关心结果的调用路径结束时、或读取结果前调用
+     */
+    public static void clear() {
+        SKIPPED.remove();
+    }
+
+    /**
+     * 读取并清除标记
+     *
+     * @return 本次触发是否被跳过
+     */
+    public static boolean takeSkipped() {
+        if (SKIPPED.get() == null) {
+            return false;
+        }
+        SKIPPED.remove();
+        return true;
+    }
+}
@@ -0,0 +1,36 @@
+package com.liyang.core.task;
+
+/**
+ * 同一任务前一次还没执行完时，新的触发如何处理
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+public enum OverlapPolicy {
+    /**
+     * 跳过本次触发（默认）
+     */
+    SKIP,
+    /**
+     * 最多保留一次待执行：当前这次结束后立即再执行一次，期间多次触发只算一次
+     */
+    COALESCE_ONE,
+    /**
+     * 最多 max_concurrency 次并发执行，超出的跳过
+     */
+    PARALLEL_N;
+
+    /**
+     * 解析配置值，为空或无法识别时按 SKIP 处理
+     */
+    public static OverlapPolicy parse(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return SKIP;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return SKIP;
+        }
+    }
+}
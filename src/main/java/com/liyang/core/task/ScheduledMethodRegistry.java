@@ -0,0 +1,74 @@
+package com.liyang.core.task;
+
+import lombok.Getter;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 从容器中已创建的 bean 上收集 @Scheduled 方法
+ * <p>
+ * 以前启动时用 ClassGraph 扫描整个基础包并加载每一个类；现在在 bean 初始化完成时顺带检查其目标类，
+ * 与 Spring 自身的 ScheduledAnnotationBeanPostProcessor 做法一致，没有注解的类只检查一次。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Component
+public class ScheduledMethodRegistry implements BeanPostProcessor {
+
+    private final List<ScheduledMethod> scheduledMethods = Collections.synchronizedList(new ArrayList<>());
+    private final Set<Class<?>> nonAnnotatedClasses = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> targetClass = AopUtils.getTargetClass(bean);
+        if (nonAnnotatedClasses.contains(targetClass) || !AnnotationUtils.isCandidateClass(targetClass, Scheduled.class)) {
+            return bean;
+        }
+        Map<Method, Scheduled> annotatedMethods = MethodIntrospector.selectMethods(targetClass,
+                (MethodIntrospector.MetadataLookup<Scheduled>) method -> AnnotatedElementUtils.findMergedAnnotation(method, Scheduled.class));
+        if (annotatedMethods.isEmpty()) {
+            nonAnnotatedClasses.add(targetClass);
+            return bean;
+        }
+        annotatedMethods.forEach((method, scheduled) -> scheduledMethods.add(new ScheduledMethod(beanName, targetClass, method, scheduled)));
+        return bean;
+    }
+
+    /**
+     * @return 目前为止收集到的 @Scheduled 方法，应在所有单例创建完成后读取
+     */
+    public List<ScheduledMethod> getScheduledMethods() {
+        synchronized (scheduledMethods) {
+            return new ArrayList<>(scheduledMethods);
+        }
+    }
+
+    @Getter
+    public static class ScheduledMethod {
+        private final String beanName;
+        private final Class<?> targetClass;
+        private final Method method;
+        private final Scheduled scheduled;
+
+        ScheduledMethod(String beanName, Class<?> targetClass, Method method, Scheduled scheduled) {
+            this.beanName = beanName;
+            this.targetClass = targetClass;
+            this.method = method;
+            this.scheduled = scheduled;
+        }
+    }
+}
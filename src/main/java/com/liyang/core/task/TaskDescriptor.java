@@ -0,0 +1,83 @@
+package com.liyang.core.task;
+
+import lombok.Getter;
+
+import java.lang.reflect.Method;
+
+/**
+ * 任务描述符：一个调度方法在注册时解析出的全部元数据
+ * <p>
+ * 锁 key、时间同步 key、执行间隔、是否排除都只计算一次，切面每次触发直接取用，不再反射、拼接字符串。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Getter
+public final class TaskDescriptor {
+    /**
+     * 类名.方法名
+     */
+    private final String taskName;
+    private final String lockKey;
+    private final String timeSyncKey;
+    /**
+     * 最近一次执行耗时
+     */
+    private final String durationKey;
+    /**
+     * 固定间隔(ms)；-1 表示固定时刻的 cron，0 表示未知
+     */
+    private final long interval;
+    /**
+     * 标注了 {@link com.liyang.annotation.Exclude}，不参与分布式调度
+     */
+    private final boolean excluded;
+    private final Method method;
+    /**
+     * 经由代理的调用器，只有通过 DynamicTaskManager 注册的任务才有
+     */
+    private final TaskInvoker invoker;
+    /**
+     * 分片数，大于 0 表示分片广播执行
+     */
+    private final int shardCount;
+    /**
+     * 任务单独指定的锁实现，为空时使用 ly-job.lock.provider
+     */
+    private final String lockProvider;
+    /**
+     * 分块任务的检查点，不是 {@link com.liyang.core.chunk.ChunkedJob} 时为空
+     */
+    private final String checkpointKey;
+
+    TaskDescriptor(String taskName, String lockKey, String timeSyncKey, String durationKey, long interval,
+                   boolean excluded, Method method, TaskInvoker invoker, int shardCount, String lockProvider,
+                   String checkpointKey) {
+        this.taskName = taskName;
+        this.lockKey = lockKey;
+        this.timeSyncKey = timeSyncKey;
+        this.durationKey = durationKey;
+        this.interval = interval;
+        this.excluded = excluded;
+        this.method = method;
+        this.invoker = invoker;
+        this.shardCount = shardCount;
+        this.lockProvider = lockProvider;
+        this.checkpointKey = checkpointKey;
+    }
+
+    /**
+     * 是否由 DynamicTaskManager 管理（装填触发器的节点由它决定）
+     */
+    public boolean isManaged() {
+        return invoker != null;
+    }
+
+    public boolean isSharded() {
+        return shardCount > 0;
+    }
+
+    public boolean isChunked() {
+        return checkpointKey != null;
+    }
+}
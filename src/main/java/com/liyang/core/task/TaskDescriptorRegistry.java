@@ -0,0 +1,110 @@
+package com.liyang.core.task;
+
+import com.liyang.annotation.Exclude;
+import com.liyang.core.chunk.ChunkedJob;
+import com.liyang.utils.CronExpressionParser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 任务描述符注册表
+ * <p>
+ * DynamicTaskManager 启动任务时注册，切面按 (目标类, 方法) 查找；
+ * 未经 DynamicTaskManager 注册的调度方法（如原生 Quartz Job）在第一次触发时惰性构建。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Component
+@Slf4j
+public class TaskDescriptorRegistry {
+
+    @Value("${spring.application.name}")
+    private String appName;
+
+    private final Map<Class<?>, Map<Method, TaskDescriptor>> descriptors = new ConcurrentHashMap<>();
+
+    /**
+     * 注册一个由 DynamicTaskManager 管理的任务，构建描述符和调用器
+     *
+     * @param bean         容器中的 bean（可能是代理）
+     * @param methodName   无参调度方法名
+     * @param shardCount   分片数，大于 0 表示分片广播执行
+     * @param lockProvider 任务单独指定的锁实现，为空时使用默认实现
+     */
+    public TaskDescriptor register(Object bean, String methodName, int shardCount, String lockProvider)
+            throws ReflectiveOperationException {
+        Class<?> targetClass = AopUtils.getTargetClass(bean);
+        Method method = targetClass.getMethod(methodName);
+        TaskDescriptor descriptor = build(targetClass, method, TaskInvoker.of(bean, methodName), shardCount, lockProvider);
+        descriptors.computeIfAbsent(targetClass, k -> new ConcurrentHashMap<>()).put(method, descriptor);
+        return descriptor;
+    }
+
+    /**
+     * 查找描述符，不存在时构建并缓存
+     */
+    public TaskDescriptor resolve(Class<?> targetClass, Method method) {
+        Map<Method, TaskDescriptor> byMethod = descriptors.get(targetClass);
+        if (byMethod != null) {
+            TaskDescriptor descriptor = byMethod.get(method);
+            if (descriptor != null) {
+                return descriptor;
+            }
+        }
+        return descriptors.computeIfAbsent(targetClass, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(method, m -> build(targetClass, m, null, 0, null));
+    }
+
+    private TaskDescriptor build(Class<?> targetClass, Method method, TaskInvoker invoker, int shardCount,
+                                 String lockProvider) {
+        String taskName = targetClass.getSimpleName() + "." + method.getName();
+        String lockKey = "lock:schedule:" + taskName + "[" + appName + "]";
+        String timeSyncKey = "lastSyncTime:" + taskName;
+        String durationKey = "lastDuration:" + taskName;
+        String checkpointKey = ChunkedJob.class.isAssignableFrom(targetClass) ? checkpointKeyOf(taskName) : null;
+        boolean excluded = method.isAnnotationPresent(Exclude.class);
+        long interval = getTaskInterval(method.getAnnotation(Scheduled.class));
+        return new TaskDescriptor(taskName, lockKey, timeSyncKey, durationKey, interval, excluded, method, invoker,
+                shardCount, lockProvider, checkpointKey);
+    }
+
+    /**
+     * 分块任务的检查点 key
+     *
+     * @param taskName 类名.方法名
+     */
+    public String checkpointKeyOf(String taskName) {
+        return "checkpoint:schedule:" + taskName + "[" + appName + "]";
+    }
+
+    private long getTaskInterval(Scheduled scheduled) {
+        if (scheduled == null) {
+            return 0;
+        }
+        if (scheduled.fixedRate() > 0) return scheduled.fixedRate();
+        if (scheduled.fixedDelay() > 0) return scheduled.fixedDelay();
+        if (!scheduled.cron().isEmpty()) {
+            try {
+                // 尝试解析为固定间隔
+                long interval = CronExpressionParser.parseCronToInterval(scheduled.cron());
+                if (interval > 0) {
+                    return interval;
+                }
+                // 如果是固定时刻任务，返回-1表示需要特殊处理
+                return -1;
+            } catch (Exception e) {
+                log.warn("解析cron表达式失败: {}, 将使用默认间隔", scheduled.cron(), e);
+                return 5000; // 默认5秒
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,34 @@
+package com.liyang.core.task;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+/**
+ * 任务调用器，注册时一次性解析好，触发时不再反射
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@FunctionalInterface
+public interface TaskInvoker {
+
+    Object invoke() throws Throwable;
+
+    /**
+     * 基于 MethodHandle 构建无参调用器
+     * <p>
+     * bean 是 Spring 容器中的代理对象，调用仍会经过切面。这里没有用 LambdaMetafactory：
+     * CGLIB 代理类由独立的类加载器生成，无法稳定地在其上定义 lambda 类；
+     * 已绑定接收者并把返回值适配为 Object 的 MethodHandle 开销已经接近直接调用。
+     */
+    static TaskInvoker of(Object bean, String methodName) throws ReflectiveOperationException {
+        Method method = bean.getClass().getMethod(methodName);
+        method.setAccessible(true);
+        MethodHandle handle = MethodHandles.lookup().unreflect(method)
+                .bindTo(bean)
+                .asType(MethodType.methodType(Object.class));
+        return () -> (Object) handle.invokeExact();
+    }
+}
@@ -0,0 +1,108 @@
+package com.liyang.core.tracelog;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.encoder.Encoder;
+import ch.qos.logback.core.util.Duration;
+import ch.qos.logback.core.util.FileSize;
+import com.liyang.utils.TraceContext;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * 把带链路id的日志写入 {@link TraceLogStore}，按一次执行查看完整日志
+ * <p>
+ * 只处理 MDC 中 traceId 为 {@link com.liyang.utils.TraceIdGenerator} 格式的日志，其余日志直接忽略。
+ * 在 logback-spring.xml 中配置，单个段大小不超过 1GB。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+public class TraceLogAppender extends AppenderBase<ILoggingEvent> {
+
+    private static final long MAX_SEGMENT_BYTES = 1024L * 1024 * 1024;
+
+    private static volatile TraceLogStore store;
+
+    private Encoder<ILoggingEvent> encoder;
+    private String directory = "logs/trace";
+    private FileSize maxSegmentSize = FileSize.valueOf("64MB");
+    private Duration maxSegmentAge = Duration.valueOf("1 hour");
+    private FileSize maxTotalSize = FileSize.valueOf("2GB");
+    private Duration maxHistory = Duration.valueOf("7 days");
+
+    /**
+     * 当前生效的存储，未配置该 appender 时为空
+     */
+    public static TraceLogStore getStore() {
+        return store;
+    }
+
+    @Override
+    public void start() {
+        if (encoder == null) {
+            addError("TraceLogAppender[" + name + "]未配置 encoder");
+            return;
+        }
+        try {
+            store = new TraceLogStore(Paths.get(directory),
+                    Math.min(maxSegmentSize.getSize(), MAX_SEGMENT_BYTES), maxSegmentAge.getMilliseconds(),
+                    maxTotalSize.getSize(), maxHistory.getMilliseconds());
+        } catch (IOException e) {
+            addError("无法打开链路日志目录 " + directory, e);
+            return;
+        }
+        super.start();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        String traceId = event.getMDCPropertyMap().get(TraceContext.MDC_KEY);
+        if (!TraceLogStore.isValidId(traceId)) {
+            return;
+        }
+        try {
+            store.append(traceId, event.getTimeStamp(), encoder.encode(event));
+        } catch (IOException e) {
+            addError("写入链路日志失败", e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        TraceLogStore current = store;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                addError("关闭链路日志失败", e);
+            }
+        }
+    }
+
+    public void setEncoder(Encoder<ILoggingEvent> encoder) {
+        this.encoder = encoder;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public void setMaxSegmentSize(FileSize maxSegmentSize) {
+        this.maxSegmentSize = maxSegmentSize;
+    }
+
+    public void setMaxSegmentAge(Duration maxSegmentAge) {
+        this.maxSegmentAge = maxSegmentAge;
+    }
+
+    public void setMaxTotalSize(FileSize maxTotalSize) {
+        this.maxTotalSize = maxTotalSize;
+    }
+
+    public void setMaxHistory(Duration maxHistory) {
+        this.maxHistory = maxHistory;
+    }
+}
@@ -0,0 +1,494 @@
+package com.liyang.core.tracelog;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * 按链路id检索的任务日志存储
+ * <p>
+ * 日志追加写入段文件 {@code 序号.seg}，每条记录为 [int 长度][12 字节链路id][long 时间][UTF-8 文本]。
+ * 当前段的 链路id -> 偏移 索引在内存中；段达到大小或时长上限后封存，索引按链路id排序写入 {@code 序号.idx}：
+ * 头部 [int 魔数][long 首条时间][long 末条时间]，之后每条 [12 字节链路id][long 偏移]。
+ * <p>
+ * 查询时按链路id中的时间戳跳过末条时间更早的段，在封存段的索引上二分查找，段和索引都通过内存映射读取，
+ * 不随历史总量线性变慢。超过保留时长或总大小的最旧段被删除。
+ * <p>
+ * 进程异常退出时当前段没有索引文件，重启后扫描段文件重建索引，截掉末尾写了一半的记录。
+ * 只接受 {@link com.liyang.utils.TraceIdGenerator} 格式的链路id（24 位小写十六进制）。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+public class TraceLogStore implements Closeable {
+
+    private static final int INDEX_MAGIC = 0x4c594a31;
+    private static final int HEADER_BYTES = 4 + 8 + 8;
+    private static final int ID_BYTES = 12;
+    private static final int ENTRY_BYTES = ID_BYTES + 8;
+    /**
+     * 记录头：长度 + 链路id + 时间
+     */
+    private static final int RECORD_HEADER_BYTES = 4 + ID_BYTES + 8;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final long maxSegmentAgeMillis;
+    private final long maxTotalBytes;
+    private final long retentionMillis;
+
+    private final ConcurrentSkipListMap<Long, Segment> sealed = new ConcurrentSkipListMap<>();
+    /**
+     * 当前段，读写都在 this 上同步
+     */
+    private Segment active;
+    private DataOutputStream out;
+    private long nextId;
+
+    public TraceLogStore(Path directory, long maxSegmentBytes, long maxSegmentAgeMillis, long maxTotalBytes,
+                         long retentionMillis) throws IOException {
+        this.directory = directory;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.maxSegmentAgeMillis = maxSegmentAgeMillis;
+        this.maxTotalBytes = maxTotalBytes;
+        this.retentionMillis = retentionMillis;
+        Files.createDirectories(directory);
+        recover();
+        openActive();
+        enforceRetention();
+    }
+
+    public static boolean isValidId(String traceId) {
+        if (traceId == null || traceId.length() != ID_BYTES * 2) {
+            return false;
+        }
+        for (int i = 0; i < traceId.length(); i++) {
+            char c = traceId.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 追加一条日志
+     *
+     * @param traceId   链路id，需先经 {@link #isValidId} 校验
+     * @param eventTime 日志时间
+     * @param text      已格式化的日志文本（UTF-8）
+     */
+    public synchronized void append(String traceId, long eventTime, byte[] text) throws IOException {
+        long recordBytes = RECORD_HEADER_BYTES + text.length;
+        if (active.size > 0 && (active.size + recordBytes > maxSegmentBytes
+                || System.currentTimeMillis() - active.createdAt > maxSegmentAgeMillis)) {
+            roll();
+        }
+        long offset = active.size;
+        out.writeInt(ID_BYTES + 8 + text.length);
+        out.write(pack(traceId));
+        out.writeLong(eventTime);
+        out.write(text);
+        active.size += recordBytes;
+        active.offsets.computeIfAbsent(traceId, k -> new LongList()).add(offset);
+        active.touch(eventTime);
+    }
+
+    /**
+     * 读取一次执行的全部日志，按写入顺序
+     *
+     * @param maxBytes 返回文本的字节数上限，超出后截断
+     */
+    public List<String> read(String traceId, int maxBytes) throws IOException {
+        List<String> lines = new ArrayList<>();
+        if (!isValidId(traceId)) {
+            return lines;
+        }
+        byte[] key = pack(traceId);
+        long since = parseTime(traceId);
+        int[] budget = {maxBytes};
+        for (Segment segment : sealed.values()) {
+            // 日志都晚于链路开始时间，末条更早的段不可能包含
+            if (segment.lastTime < since || budget[0] <= 0) {
+                continue;
+            }
+            readSealed(segment, key, lines, budget);
+        }
+        long[] offsets = null;
+        long size = 0;
+        Path file = null;
+        synchronized (this) {
+            LongList list = active.offsets.get(traceId);
+            if (list != null) {
+                out.flush();
+                offsets = list.toArray();
+                size = active.size;
+                file = active.logFile;
+            }
+        }
+        if (offsets != null && budget[0] > 0) {
+            MappedByteBuffer log = map(file, size);
+            for (long offset : offsets) {
+                if (!readRecord(log, offset, lines, budget)) {
+                    break;
+                }
+            }
+        }
+        return lines;
+    }
+
+    private void readSealed(Segment segment, byte[] key, List<String> lines, int[] budget) throws IOException {
+        MappedByteBuffer index;
+        MappedByteBuffer log;
+        try {
+            index = segment.indexMap();
+            log = segment.logMap();
+        } catch (NoSuchFileException e) {
+            // 已被保留策略删除
+            return;
+        }
+        int count = (index.capacity() - HEADER_BYTES) / ENTRY_BYTES;
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(index, HEADER_BYTES + mid * ENTRY_BYTES, key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < count; i++) {
+            int position = HEADER_BYTES + i * ENTRY_BYTES;
+            if (compare(index, position, key) != 0 || !readRecord(log, index.getLong(position + ID_BYTES), lines, budget)) {
+                return;
+            }
+        }
+    }
+
+    private static boolean readRecord(ByteBuffer log, long offset, List<String> lines, int[] budget) {
+        int position = (int) offset;
+        int length = log.getInt(position);
+        int textBytes = length - ID_BYTES - 8;
+        if (textBytes > budget[0]) {
+            lines.add("...（超出 " + budget[0] + " 字节，已截断）\n");
+            budget[0] = 0;
+            return false;
+        }
+        byte[] text = new byte[textBytes];
+        ByteBuffer view = log.duplicate();
+        view.position(position + RECORD_HEADER_BYTES);
+        view.get(text);
+        lines.add(new String(text, StandardCharsets.UTF_8));
+        budget[0] -= textBytes;
+        return true;
+    }
+
+    private static int compare(ByteBuffer index, int position, byte[] key) {
+        for (int i = 0; i < ID_BYTES; i++) {
+            int diff = (index.get(position + i) & 0xFF) - (key[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 封存当前段并打开新段
+     */
+    private void roll() throws IOException {
+        seal();
+        openActive();
+        enforceRetention();
+    }
+
+    private void seal() throws IOException {
+        out.close();
+        writeIndex(active);
+        active.offsets = null;
+        sealed.put(active.id, active);
+    }
+
+    private void openActive() throws IOException {
+        long id = nextId++;
+        active = new Segment(id, directory.resolve(String.format("%010d", id) + SEGMENT_SUFFIX),
+                directory.resolve(String.format("%010d", id) + INDEX_SUFFIX));
+        active.offsets = new HashMap<>();
+        active.createdAt = System.currentTimeMillis();
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(active.logFile,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), 64 * 1024));
+    }
+
+    /**
+     * 链路id 按字节序与十六进制字符串序一致，排序后写入，查询时二分
+     */
+    private static void writeIndex(Segment segment) throws IOException {
+        Path tmp = segment.indexFile.resolveSibling(segment.indexFile.getFileName() + ".tmp");
+        Map<String, LongList> sorted = new TreeMap<>(segment.offsets);
+        try (OutputStream file = Files.newOutputStream(tmp);
+             DataOutputStream index = new DataOutputStream(new BufferedOutputStream(file, 64 * 1024))) {
+            index.writeInt(INDEX_MAGIC);
+            index.writeLong(segment.firstTime);
+            index.writeLong(segment.lastTime);
+            for (Map.Entry<String, LongList> entry : sorted.entrySet()) {
+                byte[] id = pack(entry.getKey());
+                for (long offset : entry.getValue().toArray()) {
+                    index.write(id);
+                    index.writeLong(offset);
+                }
+            }
+        }
+        Files.move(tmp, segment.indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 加载已有的段：有索引的直接登记，没有索引的（上次异常退出时的当前段）扫描重建
+     */
+    private void recover() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SEGMENT_SUFFIX)) {
+                    segments.add(file);
+                } else if (name.endsWith(INDEX_SUFFIX + ".tmp")) {
+                    file.toFile().delete();
+                }
+            });
+        }
+        segments.sort(null);
+        for (Path logFile : segments) {
+            String name = logFile.getFileName().toString();
+            long id;
+            try {
+                id = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            Segment segment = new Segment(id, logFile, logFile.resolveSibling(name.replace(SEGMENT_SUFFIX, INDEX_SUFFIX)));
+            segment.size = Files.size(logFile);
+            if (!readHeader(segment)) {
+                rebuild(segment);
+            }
+            sealed.put(id, segment);
+            nextId = Math.max(nextId, id + 1);
+        }
+    }
+
+    private static boolean readHeader(Segment segment) throws IOException {
+        if (!Files.exists(segment.indexFile) || Files.size(segment.indexFile) < HEADER_BYTES) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(segment.indexFile, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // 读满头部
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != INDEX_MAGIC) {
+                return false;
+            }
+            segment.firstTime = header.getLong();
+            segment.lastTime = header.getLong();
+            return true;
+        }
+    }
+
+    private static void rebuild(Segment segment) throws IOException {
+        segment.offsets = new HashMap<>();
+        long valid = 0;
+        if (segment.size > 0) {
+            MappedByteBuffer log = map(segment.logFile, segment.size);
+            char[] hex = new char[ID_BYTES * 2];
+            while (valid + RECORD_HEADER_BYTES <= segment.size) {
+                int length = log.getInt((int) valid);
+                if (length < ID_BYTES + 8 || valid + 4 + length > segment.size) {
+                    break;
+                }
+                int position = (int) valid + 4;
+                for (int i = 0; i < ID_BYTES; i++) {
+                    int b = log.get(position + i) & 0xFF;
+                    hex[i * 2] = Character.forDigit(b >>> 4, 16);
+                    hex[i * 2 + 1] = Character.forDigit(b & 0xF, 16);
+                }
+                segment.offsets.computeIfAbsent(new String(hex), k -> new LongList()).add(valid);
+                segment.touch(log.getLong(position + ID_BYTES));
+                valid += 4 + length;
+            }
+        }
+        if (valid < segment.size) {
+            // 末尾写了一半的记录
+            try (FileChannel channel = FileChannel.open(segment.logFile, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+            }
+            segment.size = valid;
+        }
+        writeIndex(segment);
+        segment.offsets = null;
+    }
+
+    /**
+     * 删除超过保留时长的段，总大小超限时从最旧的段开始删除
+     */
+    private void enforceRetention() {
+        long total = active.size;
+        for (Segment segment : sealed.values()) {
+            total += segment.size;
+        }
+        long expireBefore = System.currentTimeMillis() - retentionMillis;
+        for (Segment segment : new ArrayList<>(sealed.values())) {
+            if (segment.lastTime >= expireBefore && total <= maxTotalBytes) {
+                break;
+            }
+            sealed.remove(segment.id);
+            total -= segment.size;
+            segment.logFile.toFile().delete();
+            segment.indexFile.toFile().delete();
+        }
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        long total;
+        int traces;
+        synchronized (this) {
+            total = active.size;
+            traces = active.offsets.size();
+        }
+        for (Segment segment : sealed.values()) {
+            total += segment.size;
+        }
+        stats.put("segments", (long) sealed.size() + 1);
+        stats.put("totalBytes", total);
+        stats.put("activeTraces", (long) traces);
+        Map.Entry<Long, Segment> oldest = sealed.firstEntry();
+        stats.put("oldestTime", oldest == null ? 0 : oldest.getValue().firstTime);
+        return stats;
+    }
+
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * 封存当前段，重启时不需要重建索引
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (active.size == 0) {
+            out.close();
+            Files.deleteIfExists(active.logFile);
+            return;
+        }
+        seal();
+    }
+
+    private static MappedByteBuffer map(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    private static byte[] pack(String traceId) {
+        byte[] id = new byte[ID_BYTES];
+        for (int i = 0; i < ID_BYTES; i++) {
+            id[i] = (byte) ((Character.digit(traceId.charAt(i * 2), 16) << 4) | Character.digit(traceId.charAt(i * 2 + 1), 16));
+        }
+        return id;
+    }
+
+    private static long parseTime(String traceId) {
+        return Long.parseLong(traceId.substring(0, 12), 16);
+    }
+
+    private static final class Segment {
+        private final long id;
+        private final Path logFile;
+        private final Path indexFile;
+        private long createdAt;
+        private volatile long firstTime;
+        private volatile long lastTime;
+        private volatile long size;
+        /**
+         * 仅当前段和重建期间使用
+         */
+        private Map<String, LongList> offsets;
+        private volatile MappedByteBuffer logMap;
+        private volatile MappedByteBuffer indexMap;
+
+        private Segment(long id, Path logFile, Path indexFile) {
+            this.id = id;
+            this.logFile = logFile;
+            this.indexFile = indexFile;
+        }
+
+        private void touch(long eventTime) {
+            if (firstTime == 0 || eventTime < firstTime) {
+                firstTime = eventTime;
+            }
+            if (eventTime > lastTime) {
+                lastTime = eventTime;
+            }
+        }
+
+        private MappedByteBuffer logMap() throws IOException {
+            MappedByteBuffer map = logMap;
+            if (map == null) {
+                map = map(logFile, size);
+                logMap = map;
+            }
+            return map;
+        }
+
+        private MappedByteBuffer indexMap() throws IOException {
+            MappedByteBuffer map = indexMap;
+            if (map == null) {
+                map = map(indexFile, Files.size(indexFile));
+                indexMap = map;
+            }
+            return map;
+        }
+    }
+
+    /**
+     * 不装箱的偏移列表
+     */
+    private static final class LongList {
+        private long[] values = new long[4];
+        private int size;
+
+        private void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
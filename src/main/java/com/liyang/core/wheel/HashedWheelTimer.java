@@ -0,0 +1,291 @@
+package com.liyang.core.wheel;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 分层哈希时间轮
+ * <p>
+ * 共 {@link #LEVELS} 层，每层 wheelSize 个槽位：第 0 层一个槽位代表一个 tick，第 n 层一个槽位代表 wheelSize^n 个 tick。
+ * 高层槽位在低层转满一圈时整体下沉（cascade）到低层，最终在第 0 层到期。
+ * <p>
+ * 装填和取消对调用方都是 O(1)：只往无锁队列投递一次，不持有任何全局锁；
+ * 槽位链表只由唯一的 tick 线程维护。到期的任务交给 taskExecutor 执行，tick 线程本身从不运行业务代码。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Slf4j
+public class HashedWheelTimer {
+    static final int LEVELS = 4;
+    /**
+     * 每个 tick 最多从队列转移到槽位的数量，避免一次性装填过多导致 tick 严重滞后
+     */
+    private static final int MAX_TRANSFER_PER_TICK = 100_000;
+
+    private static final int WORKER_INIT = 0;
+    private static final int WORKER_STARTED = 1;
+    private static final int WORKER_SHUTDOWN = 2;
+
+    private final long tickNanos;
+    private final int wheelBits;
+    private final int mask;
+    private final Bucket[][] wheels;
+    private final Executor taskExecutor;
+    private final Thread workerThread;
+    private final AtomicInteger workerState = new AtomicInteger(WORKER_INIT);
+    private final Queue<WheelTimeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<WheelTimeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pendingCount = new AtomicLong();
+
+    private volatile long startNanos;
+    /**
+     * 当前正在处理的 tick，只由 tick 线程读写
+     */
+    private long currentTick;
+
+    public HashedWheelTimer(String threadName, long tickDuration, TimeUnit unit, int wheelSize, Executor taskExecutor) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration must be greater than 0: " + tickDuration);
+        }
+        if (wheelSize <= 1 || wheelSize > (1 << 12)) {
+            throw new IllegalArgumentException("wheelSize must be in (1, 4096]: " + wheelSize);
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.wheelBits = 32 - Integer.numberOfLeadingZeros(wheelSize - 1);
+        this.mask = (1 << wheelBits) - 1;
+        this.wheels = new Bucket[LEVELS][1 << wheelBits];
+        for (Bucket[] wheel : wheels) {
+            for (int i = 0; i < wheel.length; i++) {
+                wheel[i] = new Bucket();
+            }
+        }
+        this.taskExecutor = taskExecutor;
+        this.workerThread = new Thread(this::runWorker, threadName);
+        this.workerThread.setDaemon(true);
+    }
+
+    /**
+     * 装填一个定时项，delay 到期后在 taskExecutor 中执行 task
+     */
+    public WheelTimeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        if (task == null) {
+            throw new NullPointerException("task");
+        }
+        start();
+        long deadline = System.nanoTime() + unit.toNanos(Math.max(delay, 0)) - startNanos;
+        WheelTimeout timeout = new WheelTimeout(this, task, deadline);
+        pendingCount.incrementAndGet();
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * 尚未到期也未取消的定时项数量
+     */
+    public long pendingTimeouts() {
+        return pendingCount.get();
+    }
+
+    public void start() {
+        if (workerState.get() == WORKER_STARTED && startNanos != 0) {
+            return;
+        }
+        if (workerState.compareAndSet(WORKER_INIT, WORKER_STARTED)) {
+            workerThread.start();
+        }
+        if (workerState.get() == WORKER_SHUTDOWN) {
+            throw new IllegalStateException("timer has been stopped");
+        }
+        // 等待 tick 线程初始化 startNanos
+        while (startNanos == 0) {
+            Thread.yield();
+        }
+    }
+
+    public void stop() {
+        if (workerState.getAndSet(WORKER_SHUTDOWN) == WORKER_STARTED) {
+            LockSupport.unpark(workerThread);
+            try {
+                workerThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    void onCancelled(WheelTimeout timeout) {
+        pendingCount.decrementAndGet();
+        cancelledTimeouts.add(timeout);
+    }
+
+    private void runWorker() {
+        long now = System.nanoTime();
+        // 0 作为"未启动"的标记
+        startNanos = now == 0 ? 1 : now;
+        while (workerState.get() == WORKER_STARTED) {
+            if (!waitForNextTick()) {
+                break;
+            }
+            currentTick++;
+            processCancelledTimeouts();
+            cascade(currentTick);
+            transferTimeoutsToBuckets();
+            expireBucket(wheels[0][(int) (currentTick & mask)]);
+        }
+    }
+
+    /**
+     * 等待直到 currentTick + 1 对应的时刻；tick 线程落后时直接返回以便追赶
+     */
+    private boolean waitForNextTick() {
+        long deadline = tickNanos * (currentTick + 1);
+        for (; ; ) {
+            long sleepNanos = deadline - (System.nanoTime() - startNanos);
+            if (sleepNanos <= 0) {
+                return true;
+            }
+            LockSupport.parkNanos(this, sleepNanos);
+            if (workerState.get() != WORKER_STARTED) {
+                return false;
+            }
+        }
+    }
+
+    private void processCancelledTimeouts() {
+        for (; ; ) {
+            WheelTimeout timeout = cancelledTimeouts.poll();
+            if (timeout == null) {
+                return;
+            }
+            timeout.remove();
+        }
+    }
+
+    private void transferTimeoutsToBuckets() {
+        for (int i = 0; i < MAX_TRANSFER_PER_TICK; i++) {
+            WheelTimeout timeout = pendingTimeouts.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            // 向上取整到 tick，保证不会提前触发
+            timeout.deadlineTick = (timeout.deadlineNanos + tickNanos - 1) / tickNanos;
+            place(timeout);
+        }
+    }
+
+    /**
+     * 低层转满一圈时，把高层当前槽位的定时项重新放置，从高层到低层依次处理
+     */
+    private void cascade(long tick) {
+        for (int level = LEVELS - 1; level > 0; level--) {
+            int shift = wheelBits * level;
+            if ((tick & ((1L << shift) - 1)) != 0) {
+                continue;
+            }
+            Bucket bucket = wheels[level][(int) ((tick >>> shift) & mask)];
+            WheelTimeout timeout = bucket.detachAll();
+            while (timeout != null) {
+                WheelTimeout next = timeout.next;
+                timeout.next = null;
+                timeout.prev = null;
+                timeout.bucket = null;
+                if (!timeout.isCancelled()) {
+                    place(timeout);
+                }
+                timeout = next;
+            }
+        }
+    }
+
+    private void place(WheelTimeout timeout) {
+        long ticks = Math.max(timeout.deadlineTick, currentTick);
+        long diff = ticks - currentTick;
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = wheelBits * level;
+            if (diff < (1L << (shift + wheelBits))) {
+                wheels[level][(int) ((ticks >>> shift) & mask)].add(timeout);
+                return;
+            }
+        }
+        // 超出最高层范围：先挂在最高层当前槽位，转满一圈后重新放置
+        int shift = wheelBits * (LEVELS - 1);
+        wheels[LEVELS - 1][(int) ((currentTick >>> shift) & mask)].add(timeout);
+    }
+
+    private void expireBucket(Bucket bucket) {
+        WheelTimeout timeout = bucket.detachAll();
+        while (timeout != null) {
+            WheelTimeout next = timeout.next;
+            timeout.next = null;
+            timeout.prev = null;
+            timeout.bucket = null;
+            if (timeout.expire()) {
+                pendingCount.decrementAndGet();
+                try {
+                    taskExecutor.execute(timeout.task());
+                } catch (RejectedExecutionException e) {
+                    log.warn("时间轮任务被执行器拒绝：{}", e.getMessage());
+                } catch (Throwable t) {
+                    log.error("时间轮分发任务异常", t);
+                }
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * 槽位：双向链表，只由 tick 线程访问
+     */
+    static final class Bucket {
+        private WheelTimeout head;
+        private WheelTimeout tail;
+
+        void add(WheelTimeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(WheelTimeout timeout) {
+            WheelTimeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        WheelTimeout detachAll() {
+            WheelTimeout first = head;
+            head = tail = null;
+            return first;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.liyang.core.wheel;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.support.SimpleTriggerContext;
+
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 基于分层时间轮的 {@link TaskScheduler}
+ * <p>
+ * 对 {@code DynamicTaskManager} 来说与 ThreadPoolTaskScheduler 等价，可通过 {@code ly-job.trigger.engine=wheel} 切换。
+ * 每次触发都是一次 O(1) 的时间轮装填，取消同样是 O(1)，不存在全局堆和全局锁。
+ * 重复任务在上一次执行结束后再装填下一次，因此同一个任务不会并发执行，语义与 ThreadPoolTaskScheduler 一致。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Slf4j
+public class WheelTaskScheduler implements TaskScheduler, DisposableBean {
+
+    private final HashedWheelTimer timer;
+    private final ThreadPoolExecutor executor;
+
+    public WheelTaskScheduler(long tickMillis, int wheelSize, int poolSize, String threadNamePrefix) {
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory(threadNamePrefix));
+        this.timer = new HashedWheelTimer(threadNamePrefix + "wheel", tickMillis, TimeUnit.MILLISECONDS, wheelSize, executor);
+        this.timer.start();
+    }
+
+    public HashedWheelTimer getTimer() {
+        return timer;
+    }
+
+    public ThreadPoolExecutor getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable task, Trigger trigger) {
+        WheelScheduledFuture future = new WheelScheduledFuture(task, Mode.TRIGGER, 0, trigger);
+        Date first = trigger.nextExecutionTime(future.triggerContext);
+        if (first == null) {
+            return null;
+        }
+        future.arm(first.getTime());
+        return future;
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable task, Date startTime) {
+        WheelScheduledFuture future = new WheelScheduledFuture(task, Mode.ONCE, 0, null);
+        future.arm(startTime.getTime());
+        return future;
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, Date startTime, long period) {
+        WheelScheduledFuture future = new WheelScheduledFuture(task, Mode.FIXED_RATE, period, null);
+        future.arm(startTime.getTime());
+        return future;
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long period) {
+        return scheduleAtFixedRate(task, new Date(), period);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, Date startTime, long delay) {
+        WheelScheduledFuture future = new WheelScheduledFuture(task, Mode.FIXED_DELAY, delay, null);
+        future.arm(startTime.getTime());
+        return future;
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long delay) {
+        return scheduleWithFixedDelay(task, new Date(), delay);
+    }
+
+    @Override
+    public void destroy() {
+        timer.stop();
+        executor.shutdown();
+    }
+
+    private enum Mode {
+        ONCE, FIXED_RATE, FIXED_DELAY, TRIGGER
+    }
+
+    /**
+     * 一个调度任务在时间轮上的句柄，每次执行完成后由执行线程重新装填
+     */
+    private final class WheelScheduledFuture implements ScheduledFuture<Object>, Runnable {
+        private final Runnable task;
+        private final Mode mode;
+        private final long period;
+        private final Trigger trigger;
+        private final SimpleTriggerContext triggerContext = new SimpleTriggerContext();
+        private final CompletableFuture<Object> completion = new CompletableFuture<>();
+
+        private volatile long scheduledTime;
+        private volatile WheelTimeout currentTimeout;
+        private volatile boolean cancelled;
+
+        WheelScheduledFuture(Runnable task, Mode mode, long period, Trigger trigger) {
+            this.task = task;
+            this.mode = mode;
+            this.period = period;
+            this.trigger = trigger;
+        }
+
+        synchronized void arm(long time) {
+            if (cancelled) {
+                return;
+            }
+            scheduledTime = time;
+            currentTimeout = timer.newTimeout(this, time - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+            long actualTime = System.currentTimeMillis();
+            try {
+                task.run();
+            } catch (Throwable ex) {
+                log.error("调度任务执行出错", ex);
+                if (mode == Mode.ONCE) {
+                    completion.completeExceptionally(ex);
+                    return;
+                }
+            }
+            if (mode == Mode.ONCE) {
+                completion.complete(null);
+                return;
+            }
+            long completionTime = System.currentTimeMillis();
+            long next;
+            switch (mode) {
+                case FIXED_RATE:
+                    next = scheduledTime + period;
+                    break;
+                case FIXED_DELAY:
+                    next = completionTime + period;
+                    break;
+                default:
+                    triggerContext.update(new Date(scheduledTime), new Date(actualTime), new Date(completionTime));
+                    Date nextTime = trigger.nextExecutionTime(triggerContext);
+                    if (nextTime == null) {
+                        completion.complete(null);
+                        return;
+                    }
+                    next = nextTime.getTime();
+            }
+            arm(next);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            synchronized (this) {
+                if (cancelled || completion.isDone()) {
+                    return false;
+                }
+                cancelled = true;
+                WheelTimeout timeout = currentTimeout;
+                if (timeout != null) {
+                    timeout.cancel();
+                }
+            }
+            return completion.cancel(false);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return completion.isDone();
+        }
+
+        @Override
+        public Object get() throws InterruptedException, ExecutionException {
+            return completion.get();
+        }
+
+        @Override
+        public Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            return completion.get(timeout, unit);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(scheduledTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (this == other) {
+                return 0;
+            }
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.liyang.core.wheel;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * 时间轮中的一个定时项
+ * <p>
+ * 链表指针只会被 tick 线程读写，对外只暴露状态查询和取消。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+public final class WheelTimeout {
+    static final int ST_INIT = 0;
+    static final int ST_CANCELLED = 1;
+    static final int ST_EXPIRED = 2;
+
+    private static final AtomicIntegerFieldUpdater<WheelTimeout> STATE_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(WheelTimeout.class, "state");
+
+    private final HashedWheelTimer timer;
+    private final Runnable task;
+    /**
+     * 相对时间轮启动时刻的纳秒数
+     */
+    final long deadlineNanos;
+
+    private volatile int state = ST_INIT;
+
+    // 以下字段只由 tick 线程访问
+    long deadlineTick;
+    WheelTimeout next;
+    WheelTimeout prev;
+    HashedWheelTimer.Bucket bucket;
+
+    WheelTimeout(HashedWheelTimer timer, Runnable task, long deadlineNanos) {
+        this.timer = timer;
+        this.task = task;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public Runnable task() {
+        return task;
+    }
+
+    /**
+     * 取消定时项，O(1)：只做一次 CAS 并投递到取消队列，由 tick 线程摘链
+     *
+     * @return 是否由本次调用取消成功
+     */
+    public boolean cancel() {
+        if (!STATE_UPDATER.compareAndSet(this, ST_INIT, ST_CANCELLED)) {
+            return false;
+        }
+        timer.onCancelled(this);
+        return true;
+    }
+
+    boolean expire() {
+        return STATE_UPDATER.compareAndSet(this, ST_INIT, ST_EXPIRED);
+    }
+
+    public boolean isCancelled() {
+        return state == ST_CANCELLED;
+    }
+
+    public boolean isExpired() {
+        return state == ST_EXPIRED;
+    }
+
+    void remove() {
+        if (bucket != null) {
+            bucket.remove(this);
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.liyang.dao;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.liyang.entity.TbScheduledTaskConfig;
 import org.springframework.jdbc.BadSqlGrammarException;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -24,6 +27,24 @@ public interface TbScheduledTaskConfigDao extends BaseMapper<TbScheduledTaskConf
         return selectOne(wrapper);
     }
 
+    /**
+     * 增量拉取：修改时间不早于 since 的行
+     */
+    default List<TbScheduledTaskConfig> selectModifiedSince(Date since) {
+        LambdaQueryWrapper<TbScheduledTaskConfig> wrapper = new LambdaQueryWrapper<>();
+        wrapper.ge(TbScheduledTaskConfig::getLastModifiedTime, since);
+        return selectList(wrapper);
+    }
+
+    /**
+     * 批量修改：changes 中非空的字段写入 taskIds 对应的所有行，一条 UPDATE ... WHERE task_Id IN (...)
+     */
+    default int updateByTaskIds(TbScheduledTaskConfig changes, Collection<String> taskIds) {
+        LambdaUpdateWrapper<TbScheduledTaskConfig> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.in(TbScheduledTaskConfig::getTaskId, taskIds);
+        return update(changes, wrapper);
+    }
+
     default boolean isTableExists() {
         try {
             // 查询 LIMIT 1 的记录，不真正取数据，只验证表是否存在
@@ -0,0 +1,29 @@
+package com.liyang.dao;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.liyang.entity.TbTaskExecutionLog;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * TbTaskExecutionLog 类的简要描述
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Repository
+public interface TbTaskExecutionLogDao extends BaseMapper<TbTaskExecutionLog> {
+
+    /**
+     * 某个任务最近的执行记录，按开始时间倒序
+     */
+    default List<TbTaskExecutionLog> selectRecent(String taskName, int limit) {
+        LambdaQueryWrapper<TbTaskExecutionLog> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(TbTaskExecutionLog::getTaskName, taskName)
+                .orderByDesc(TbTaskExecutionLog::getStartTime)
+                .last("LIMIT " + limit);
+        return selectList(wrapper);
+    }
+}
@@ -0,0 +1,54 @@
+package com.liyang.dao;
+
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.liyang.entity.TbTaskLock;
+import org.springframework.stereotype.Repository;
+
+/**
+ * TbTaskLock 类的简要描述
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Repository
+public interface TbTaskLockDao extends BaseMapper<TbTaskLock> {
+
+    /**
+     * 锁已过期时接管：一条带条件的 UPDATE，由数据库行锁保证只有一个节点更新成功
+     *
+     * @return 更新行数，1 表示抢到
+     */
+    default int takeOverExpired(String lockKey, String owner, long now, long expireAt) {
+        LambdaUpdateWrapper<TbTaskLock> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.set(TbTaskLock::getOwner, owner)
+                .set(TbTaskLock::getExpireAt, expireAt)
+                .set(TbTaskLock::getLastRunTime, now)
+                .eq(TbTaskLock::getLockKey, lockKey)
+                .lt(TbTaskLock::getExpireAt, now);
+        return update(null, wrapper);
+    }
+
+    /**
+     * 持有者释放：租期置 0 并记录耗时
+     */
+    default int releaseIfOwner(String lockKey, String owner, long duration) {
+        LambdaUpdateWrapper<TbTaskLock> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.set(TbTaskLock::getExpireAt, 0L)
+                .set(TbTaskLock::getLastDuration, duration)
+                .eq(TbTaskLock::getLockKey, lockKey)
+                .eq(TbTaskLock::getOwner, owner);
+        return update(null, wrapper);
+    }
+
+    /**
+     * 持有者续期
+     */
+    default int renewIfOwner(String lockKey, String owner, long expireAt) {
+        LambdaUpdateWrapper<TbTaskLock> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.set(TbTaskLock::getExpireAt, expireAt)
+                .eq(TbTaskLock::getLockKey, lockKey)
+                .eq(TbTaskLock::getOwner, owner);
+        return update(null, wrapper);
+    }
+}
@@ -53,6 +53,42 @@ public class TbScheduledTaskConfig {
     @TableColumn(description = "定时任务初始延迟")
     private Long initialDelay;
 
+    @TableField("task_partition")
+    @TableColumn(description = "执行分区，对应 ly-job.partition.pools 下的线程池，为空时使用 default")
+    private String partition;
+
+    @TableField("shard_count")
+    @TableColumn(description = "分片数，大于0时所有存活节点领取分片共同执行同一次触发，为空或0表示单节点执行")
+    private Integer shardCount;
+
+    @TableField("overlap_policy")
+    @TableColumn(description = "前一次未执行完时新触发的处理：SKIP（默认）、COALESCE_ONE、PARALLEL_N")
+    private String overlapPolicy;
+
+    @TableField("max_concurrency")
+    @TableColumn(description = "PARALLEL_N 时本节点最多同时执行的次数，为空按1处理")
+    private Integer maxConcurrency;
+
+    @TableField("lock_provider")
+    @TableColumn(description = "调度锁实现：local / jdbc / redis，为空时使用 ly-job.lock.provider")
+    private String lockProvider;
+
+    @TableField("limit_group")
+    @TableColumn(description = "限制组，组内任务共享集群级并发与频率限制；为空时按任务自身限制或与分区同名的组")
+    private String limitGroup;
+
+    @TableField("limit_concurrency")
+    @TableColumn(description = "全集群最多同时执行次数，ly-job.limit.groups 中未声明该组时生效，为空或0不限制")
+    private Integer limitConcurrency;
+
+    @TableField("limit_rate")
+    @TableColumn(description = "全集群每秒最多触发次数（令牌桶），ly-job.limit.groups 中未声明该组时生效，为空或0不限制")
+    private Double limitRate;
+
+    @TableField("upstream_task_ids")
+    @TableColumn(description = "上游任务ID，逗号分隔；配置后不再按自身执行时间触发，而是在上游全部执行成功后触发")
+    private String upstreamTaskIds;
+
     @TableField("last_modified_time")
     @TableColumn(description = "最后修改时间")
     private Date lastModifiedTime;
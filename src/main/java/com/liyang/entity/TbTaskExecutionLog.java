@@ -0,0 +1,68 @@
+package com.liyang.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * 任务执行历史，每次实际执行一行
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Data
+@TableName("tb_task_execution_log")
+@CreateTable
+public class TbTaskExecutionLog {
+
+    public static final String STATUS_SUCCESS = "SUCCESS";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @TableId(value = "id", type = IdType.AUTO)
+    @TableColumn(description = "主键")
+    private Long id;
+
+    @TableField("trace_id")
+    @TableColumn(description = "链路id，与日志中的 traceId 一致")
+    private String traceId;
+
+    @TableField("task_name")
+    @TableColumn(description = "任务名，类名.方法名")
+    private String taskName;
+
+    @TableField("node")
+    @TableColumn(description = "执行节点，pid@host")
+    private String node;
+
+    @TableField("shard_index")
+    @TableColumn(description = "分片序号，非分片任务为空")
+    private Integer shardIndex;
+
+    @TableField("shard_total")
+    @TableColumn(description = "分片总数，非分片任务为空")
+    private Integer shardTotal;
+
+    @TableField("start_time")
+    @TableColumn(description = "开始时间")
+    private Date startTime;
+
+    @TableField("end_time")
+    @TableColumn(description = "结束时间")
+    private Date endTime;
+
+    @TableField("duration_ms")
+    @TableColumn(description = "耗时(ms)")
+    private Long durationMs;
+
+    @TableField("status")
+    @TableColumn(description = "执行结果，SUCCESS/FAILED")
+    private String status;
+
+    @TableField("error_message")
+    @TableColumn(description = "失败时的异常信息")
+    private String errorMessage;
+}
@@ -0,0 +1,39 @@
+package com.liyang.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+/**
+ * JDBC 调度锁，每把锁一行，抢锁和释放都是带条件的单行更新
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Data
+@TableName("tb_task_lock")
+@CreateTable
+public class TbTaskLock {
+
+    @TableId(value = "lock_key", type = IdType.INPUT)
+    @TableColumn(description = "锁 key")
+    private String lockKey;
+
+    @TableField("owner")
+    @TableColumn(description = "持有者，本次触发的 traceId")
+    private String owner;
+
+    @TableField("expire_at")
+    @TableColumn(description = "租期到期时间(ms)，小于当前时间表示锁空闲")
+    private Long expireAt;
+
+    @TableField("last_run_time")
+    @TableColumn(description = "最近一次抢到锁的时间(ms)")
+    private Long lastRunTime;
+
+    @TableField("last_duration")
+    @TableColumn(description = "最近一次执行耗时(ms)")
+    private Long lastDuration;
+}
@@ -0,0 +1,50 @@
+package com.liyang.operation;
+
+import com.liyang.utils.CompiledCron;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.TriggerContext;
+
+import java.util.Date;
+
+/**
+ * 基于 {@link CompiledCron} 的触发器，计算规则与 Spring 的 CronTrigger 相同：
+ * 以上次完成时间为基准，若上次完成早于计划时间（提前执行）则以计划时间为基准
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+final class CompiledCronTrigger implements Trigger {
+    private final CompiledCron cron;
+    /**
+     * 最近一次计算出的计划触发时间；两种触发引擎都在本次执行返回后才计算下一次，触发线程读到的就是本次的计划时间
+     */
+    private volatile long plannedTime = -1;
+
+    CompiledCronTrigger(String expression) {
+        this.cron = CompiledCron.of(expression);
+    }
+
+    @Override
+    public Date nextExecutionTime(TriggerContext triggerContext) {
+        Date completion = triggerContext.lastCompletionTime();
+        long base;
+        if (completion != null) {
+            Date scheduled = triggerContext.lastScheduledExecutionTime();
+            base = scheduled != null && completion.before(scheduled) ? scheduled.getTime() : completion.getTime();
+        } else {
+            base = triggerContext.getClock().millis();
+        }
+        long next = cron.next(base);
+        plannedTime = next;
+        return next < 0 ? null : new Date(next);
+    }
+
+    long getPlannedTime() {
+        return plannedTime;
+    }
+
+    @Override
+    public String toString() {
+        return cron.getExpression();
+    }
+}
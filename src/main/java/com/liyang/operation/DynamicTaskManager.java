@@ -3,39 +3,65 @@ package com.liyang.operation;
 import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.baomidou.mybatisplus.extension.toolkit.Db;
+import com.liyang.config.PartitionProperties;
+import com.liyang.core.cluster.ClusterMembership;
+import com.liyang.core.dag.DagRun;
+import com.liyang.core.limit.ClusterLimiter;
+import com.liyang.core.task.FiringOutcome;
+import com.liyang.core.task.OverlapPolicy;
+import com.liyang.core.task.ScheduledMethodRegistry;
+import com.liyang.core.task.TaskDescriptor;
+import com.liyang.core.task.TaskDescriptorRegistry;
+import com.liyang.core.task.TaskInvoker;
 import com.liyang.dao.TbScheduledTaskConfigDao;
 import com.liyang.entity.TbScheduledTaskConfig;
-import io.github.classgraph.ClassGraph;
-import io.github.classgraph.ScanResult;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.ApplicationContext;
 import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
-import org.springframework.scheduling.support.CronTrigger;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
-import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
+import java.beans.PropertyDescriptor;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 
 @Component
 @Slf4j
 @Order(999)
-public class DynamicTaskManager {
+public class DynamicTaskManager implements SmartInitializingSingleton {
 
+    /**
+     * 触发引擎，由 ly-job.trigger.engine 决定是线程池堆还是时间轮
+     */
     @Resource
-    private ThreadPoolTaskScheduler threadPoolTaskScheduler;
+    private TaskScheduler taskScheduler;
 
     @Resource
     private ApplicationContext applicationContext;
@@ -43,28 +69,82 @@ public class DynamicTaskManager {
     @Resource
     private TbScheduledTaskConfigDao scheduledTaskConfigDao;
 
+    @Resource
+    private PartitionExecutors partitionExecutors;
+
+    @Resource
+    private TaskDescriptorRegistry descriptorRegistry;
+
+    @Resource
+    private ScheduledMethodRegistry scheduledMethodRegistry;
+
+    @Resource
+    private TaskConfigSync taskConfigSync;
+
+    @Resource
+    private SchedulerMetrics schedulerMetrics;
+
+    @Resource
+    private TaskDagScheduler taskDag;
+
+    @Resource
+    private ClusterLimiter clusterLimiter;
+
+    @Resource
+    private TaskStatusBoard statusBoard;
+
+    /**
+     * 仅在 ly-job.cluster.mode=ownership 时存在，为空表示每个节点都装填所有任务
+     */
+    @Autowired(required = false)
+    private ClusterMembership clusterMembership;
+
     @Value("${spring.application.name}")
     private String  appName;
 
     private final Map<String, ScheduledFuture<?>> runningTasks = new ConcurrentHashMap<>();
     private final Map<String, TbScheduledTaskConfig> taskConfigs = new ConcurrentHashMap<>();
+    /**
+     * 在本节点被手动暂停的任务，成员变化重新分配时不会被自动装填
+     */
+    private final Set<String> pausedTasks = ConcurrentHashMap.newKeySet();
+    /**
+     * 每个任务的本地并发闸门，重新装填时策略不变则沿用
+     */
+    private final Map<String, OverlapGuard> overlapGuards = new ConcurrentHashMap<>();
 
 
+    /**
+     * 所有单例创建完成后再初始化任务，此时 ScheduledMethodRegistry 已经收集到全部 @Scheduled 方法
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        initAllTasks();
+    }
+
     /**
      * 应用启动时初始化所有任务
      */
-    @PostConstruct
     public void initAllTasks() {
-        updateTaskConfig();
-        // 从数据库加载所有配置
-        List<TbScheduledTaskConfig> configs = scheduledTaskConfigDao.selectList(null);
+        // 同步时的那一次查询结果就是全部配置，不再重新查询
+        List<TbScheduledTaskConfig> configs = updateTaskConfig();
 
         for (TbScheduledTaskConfig config : configs) {
             taskConfigs.put(config.getTaskId(), config);
+        }
+        // 先确定依赖关系，由上游触发的任务不装填触发器
+        taskDag.rebuild(taskConfigs.values());
+        taskDag.start(this::launchDagNode);
+        for (TbScheduledTaskConfig config : configs) {
             if (config.getEnabled()) {
-                startTask(config.getTaskId());
+                armTask(config.getTaskId());
             }
         }
+        if (clusterMembership != null) {
+            clusterMembership.addListener(this::rebalance);
+        }
+        taskConfigSync.start(configs, this::applyConfig);
+        statusBoard.start(this::collectStatus);
         // 打印已存在的任务
         log.info("已加载的定时任务列表：");
         for (Map.Entry<String, TbScheduledTaskConfig> entry : taskConfigs.entrySet()) {
@@ -76,61 +156,78 @@ public class DynamicTaskManager {
         }
     }
 
-    public void updateTaskConfig() {
-        // 获取 Spring Boot 主类
+    /**
+     * 把容器中的 @Scheduled 方法同步到配置表：一次查询全部配置，缺失的一次批量插入；
+     * 已存在的行保持不变，其中可能有人工修改过的执行时间
+     *
+     * @return 同步后的全部配置
+     */
+    public List<TbScheduledTaskConfig> updateTaskConfig() {
+        List<TbScheduledTaskConfig> configs = new ArrayList<>(scheduledTaskConfigDao.selectList(null));
+        // 获取 Spring Boot 主类，只同步主类所在包下的任务
         Class<?> springBootClass = getSpringBootMainClass();
         if (springBootClass == null) {
             log.error("未找到 Spring Boot 主类");
-            return;
+            return configs;
         }
-
-        String basePackage = springBootClass.getPackage().getName();
-
-        try (ScanResult scanResult = new ClassGraph().whitelistPackages(basePackage).enableMethodInfo().enableAnnotationInfo().disableRuntimeInvisibleAnnotations() // 可选优化
-                .ignoreClassVisibility()              // 可选
-                .scan()) {
-
-            for (Class<?> beanClass : scanResult.getAllClasses().loadClasses()) {
-                for (Method method : beanClass.getDeclaredMethods()) {
-                    if (method.isAnnotationPresent(Scheduled.class)) {
-                        Scheduled annotation = method.getAnnotation(Scheduled.class);
-
-                        TbScheduledTaskConfig config = new TbScheduledTaskConfig();
-                        // 使用更唯一的任务名
-                        config.setTaskId(appName + "." + beanClass.getSimpleName() + "." + method.getName());
-                        config.setTaskName(method.getName() + "Of" + beanClass.getSimpleName());
-                        config.setTaskBean(applicationContext.getBeanNamesForType(beanClass)[0]);
-                        config.setTaskMethod(method.getName());
-
-                        // 安全设置 cron 表达式
-                        String cron = annotation.cron();
-                        config.setCronExpression(StringUtils.hasText(cron) ? cron : null);
-
-                        // 安全设置数值型参数
-                        config.setFixedRate(parseDelayOrRate(annotation.fixedRateString()));
-                        config.setFixedDelay(parseDelayOrRate(annotation.fixedDelayString()));
-                        if (config.getFixedRate() == null) {
-                            config.setFixedRate(annotation.fixedRate());
-                        }
-                        if (config.getFixedDelay() == null) {
-                            config.setFixedDelay(annotation.fixedDelay());
-                        }
-                        config.setInitialDelay(parseDelayOrRate(annotation.initialDelayString()));
-
-                        config.setEnabled(true);
-
-                        // 检查数据库是否存在该任务配置
-                        TbScheduledTaskConfig existing = scheduledTaskConfigDao.getOneByName(config.getTaskId());
-                        if (existing == null) {
-                            scheduledTaskConfigDao.insert(config);
-                        }
-                    }
-                }
+        String basePackage = springBootClass.getPackage().getName() + ".";
+
+        Set<String> existingIds = new HashSet<>();
+        configs.forEach(config -> existingIds.add(config.getTaskId()));
+        List<TbScheduledTaskConfig> missing = new ArrayList<>();
+        for (ScheduledMethodRegistry.ScheduledMethod scheduledMethod : scheduledMethodRegistry.getScheduledMethods()) {
+            if (!scheduledMethod.getTargetClass().getName().startsWith(basePackage)) {
+                continue;
             }
+            TbScheduledTaskConfig config = buildTaskConfig(scheduledMethod);
+            if (existingIds.add(config.getTaskId())) {
+                missing.add(config);
+            }
+        }
+        if (missing.isEmpty()) {
+            return configs;
+        }
+        try {
+            Db.saveBatch(missing);
+            configs.addAll(missing);
+            log.info("新增 {} 个定时任务配置", missing.size());
         } catch (Exception e) {
-            log.error("扫描 @Scheduled 方法时发生异常", e);
+            log.error("批量插入定时任务配置时发生异常", e);
+        }
+        return configs;
+    }
+
+    private TbScheduledTaskConfig buildTaskConfig(ScheduledMethodRegistry.ScheduledMethod scheduledMethod) {
+        Class<?> beanClass = scheduledMethod.getTargetClass();
+        Method method = scheduledMethod.getMethod();
+        Scheduled annotation = scheduledMethod.getScheduled();
+
+        TbScheduledTaskConfig config = new TbScheduledTaskConfig();
+        // 使用更唯一的任务名
+        config.setTaskId(appName + "." + beanClass.getSimpleName() + "." + method.getName());
+        config.setTaskName(method.getName() + "Of" + beanClass.getSimpleName());
+        config.setTaskBean(scheduledMethod.getBeanName());
+        config.setTaskMethod(method.getName());
+
+        // 安全设置 cron 表达式
+        String cron = annotation.cron();
+        config.setCronExpression(StringUtils.hasText(cron) ? cron : null);
+
+        // 安全设置数值型参数
+        config.setFixedRate(parseDelayOrRate(annotation.fixedRateString()));
+        config.setFixedDelay(parseDelayOrRate(annotation.fixedDelayString()));
+        if (config.getFixedRate() == null) {
+            config.setFixedRate(annotation.fixedRate());
+        }
+        if (config.getFixedDelay() == null) {
+            config.setFixedDelay(annotation.fixedDelay());
         }
+        config.setInitialDelay(parseDelayOrRate(annotation.initialDelayString()));
 
+        config.setEnabled(true);
+        config.setPartition(PartitionProperties.DEFAULT_PARTITION);
+        config.setLastModifiedTime(new Date());
+        return config;
     }
 
     // 辅助方法：安全解析字符串为 Long
@@ -147,41 +244,114 @@ public class DynamicTaskManager {
     }
 
     /**
-     * 启动任务
+     * 启动任务：持久化启用状态并广播，本节点负责该任务时立即装填。与批量操作、配置同步在同一个监视器上串行
      *
      * @param taskId 任务名称
      * @return 是否启动成功
      */
-    public boolean startTask(String taskId) {
+    public synchronized boolean startTask(String taskId) {
+        TbScheduledTaskConfig config = taskConfigs.get(taskId);
+        if (config == null) {
+            return false;
+        }
+        pausedTasks.remove(taskId);
+        if (!Boolean.TRUE.equals(config.getEnabled())) {
+            TbScheduledTaskConfig enabled = new TbScheduledTaskConfig();
+            enabled.setTaskId(taskId);
+            enabled.setEnabled(true);
+            enabled.setLastModifiedTime(new Date());
+            scheduledTaskConfigDao.updateById(enabled);
+            config.setEnabled(true);
+            config.setLastModifiedTime(enabled.getLastModifiedTime());
+            taskConfigSync.publish(taskId);
+            statusBoard.markChanged();
+        }
+        if (runningTasks.containsKey(taskId)) {
+            return false;
+        }
+        // 集群归属模式下由主节点装填，本节点不负责也算启动成功；由上游触发的任务没有触发器，启用即成功
+        return armTask(taskId) || !isArmedHere(config) || taskDag.isDependent(taskId);
+    }
+
+    /**
+     * 在本节点装填触发器
+     */
+    private boolean armTask(String taskId) {
         TbScheduledTaskConfig config = taskConfigs.get(taskId);
         if (config == null || runningTasks.containsKey(taskId)) {
             return false;
         }
+        if (taskDag.isDependent(taskId)) {
+            log.info("任务[{}]由上游任务完成后触发，不装填触发器", taskId);
+            return false;
+        }
+        if (!isArmedHere(config)) {
+            log.info("任务[{}]归属节点[{}]，本节点不装填", taskId, clusterMembership.ownerOf(taskId));
+            return false;
+        }
 
         try {
             Object bean = applicationContext.getBean(config.getTaskBean());
-            Method method = bean.getClass().getMethod(config.getTaskMethod());
-            Runnable task = () -> {
+            // 注册时一次性解析描述符和调用器，触发时不再反射
+            int shardCount = config.getShardCount() == null ? 0 : config.getShardCount();
+            TaskDescriptor descriptor = descriptorRegistry.register(bean, config.getTaskMethod(), shardCount,
+                    config.getLockProvider());
+            clusterLimiter.bind(descriptor.getTaskName(), config);
+            TaskInvoker invoker = descriptor.getInvoker();
+            Runnable job = () -> {
+                boolean succeeded = false;
+                FiringOutcome.clear();
                 try {
-                    method.invoke(bean);
-                } catch (Exception e) {
-                    e.printStackTrace();
+                    invoker.invoke();
+                    succeeded = true;
+                } catch (Throwable e) {
+                    log.error("任务[{}]执行出错", taskId, e);
+                }
+                // 未抢到锁时任务体没有在本节点执行，由抢到锁的节点发起下游
+                if (!FiringOutcome.takeSkipped() && succeeded) {
+                    taskDag.onCompleted(taskId);
                 }
             };
+            // 触发线程只做分发，任务体在所属分区的线程池中执行
+            String partition = partitionExecutors.resolve(config.getPartition());
+            String taskName = descriptor.getTaskName();
+            OverlapPolicy policy = OverlapPolicy.parse(config.getOverlapPolicy());
+            int maxConcurrency = config.getMaxConcurrency() == null ? 1 : config.getMaxConcurrency();
+            OverlapGuard guard = overlapGuards.compute(taskId, (k, previous) ->
+                    previous != null && previous.matches(policy, maxConcurrency) ? previous
+                            : new OverlapGuard(policy, maxConcurrency, previous));
 
             ScheduledFuture<?> future;
             if (config.getCronExpression() != null && !config.getCronExpression().isEmpty()) {
-                future = threadPoolTaskScheduler.schedule(task, new CronTrigger(config.getCronExpression()));
+                CompiledCronTrigger trigger = new CompiledCronTrigger(config.getCronExpression());
+                future = taskScheduler.schedule(dispatcher(taskName, guard, partition, job, null, trigger::getPlannedTime), trigger);
             } else if (config.getFixedRate() != null && config.getFixedRate() > 0) {
-                future = threadPoolTaskScheduler.scheduleAtFixedRate(task, config.getFixedRate());
+                long rate = config.getFixedRate();
+                long firstTime = System.currentTimeMillis();
+                // 固定频率的第 n 次计划时间是首次时间 + n * rate，落后时引擎会连续补触发，不会跳过
+                AtomicLong plannedTime = new AtomicLong(firstTime);
+                future = taskScheduler.scheduleAtFixedRate(dispatcher(taskName, guard, partition, job, null,
+                        () -> plannedTime.getAndAdd(rate)), new Date(firstTime), rate);
             } else if (config.getFixedDelay() != null && config.getFixedDelay() > 0) {
                 Date startTime = new Date(System.currentTimeMillis() + (config.getInitialDelay() == null ? 0 : config.getInitialDelay()));
-                future = threadPoolTaskScheduler.scheduleWithFixedDelay(task, startTime, config.getFixedDelay());
+                // fixedDelay 需要在任务执行完成后才装填下一次
+                FixedDelayTaskFuture delayFuture = new FixedDelayTaskFuture(taskScheduler, config.getFixedDelay());
+                Runnable rearmingJob = () -> {
+                    try {
+                        job.run();
+                    } finally {
+                        delayFuture.rearm();
+                    }
+                };
+                delayFuture.start(dispatcher(taskName, guard, partition, rearmingJob, delayFuture::rearm,
+                        delayFuture::getPlannedTime), startTime);
+                future = delayFuture;
             } else {
                 return false;
             }
 
             runningTasks.put(taskId, future);
+            statusBoard.markChanged();
             return true;
         } catch (Exception e) {
             e.printStackTrace();
@@ -189,29 +359,137 @@ public class DynamicTaskManager {
         }
     }
 
+    /**
+     * 触发时执行的分发动作：先过本地并发闸门，前一次未结束的重叠触发在这里就被跳过或合并，不投递分区也不抢锁；
+     * 通过后读取本次计划时间，把任务体投递到分区，开始执行时记录触发延迟，被分区丢弃时记为跳过
+     *
+     * @param plannedTime 本次的计划触发时间，在触发线程上读取
+     */
+    private Runnable dispatcher(String taskName, OverlapGuard guard, String partition, Runnable job, Runnable onDropped,
+                                LongSupplier plannedTime) {
+        return () -> {
+            long planned = plannedTime.getAsLong();
+            SchedulerMetrics.TaskMeters meters = schedulerMetrics.forTask(taskName);
+            OverlapGuard.Admission admission = guard.tryEnter();
+            if (admission != OverlapGuard.Admission.ENTERED) {
+                if (admission == OverlapGuard.Admission.SKIPPED) {
+                    meters.skipped();
+                    if (onDropped != null) {
+                        onDropped.run();
+                    }
+                }
+                return;
+            }
+            partitionExecutors.execute(partition, () -> {
+                if (planned > 0) {
+                    meters.recordLag(System.currentTimeMillis() - planned);
+                }
+                // COALESCE_ONE 下执行期间合并进来的那一次由当前线程接着执行
+                do {
+                    try {
+                        job.run();
+                    } catch (RuntimeException | Error e) {
+                        guard.abandon();
+                        throw e;
+                    }
+                } while (guard.exit());
+            }, () -> {
+                guard.abandon();
+                meters.skipped();
+                if (onDropped != null) {
+                    onDropped.run();
+                }
+            });
+        };
+    }
+
+    /**
+     * 执行 DAG 运行中的一个任务：同样经过切面抢锁、记录历史，投递到任务所属分区；
+     * 任务已停止、在本节点暂停或被分区丢弃时记为跳过
+     */
+    private void launchDagNode(String taskId, String runId, Consumer<DagRun.NodeStatus> onDone) {
+        TbScheduledTaskConfig config = taskConfigs.get(taskId);
+        if (config == null || !Boolean.TRUE.equals(config.getEnabled()) || pausedTasks.contains(taskId)) {
+            onDone.accept(DagRun.NodeStatus.SKIPPED);
+            return;
+        }
+        TaskInvoker invoker;
+        try {
+            Object bean = applicationContext.getBean(config.getTaskBean());
+            // 描述符按类和方法登记，与装填时使用同样的分片数，不能替换掉触发器正在使用的描述符
+            int shardCount = config.getShardCount() == null ? 0 : config.getShardCount();
+            TaskDescriptor descriptor = descriptorRegistry.register(bean, config.getTaskMethod(), shardCount,
+                    config.getLockProvider());
+            clusterLimiter.bind(descriptor.getTaskName(), config);
+            invoker = descriptor.getInvoker();
+        } catch (Exception e) {
+            log.error("DAG 运行[{}]中任务[{}]注册失败", runId, taskId, e);
+            onDone.accept(DagRun.NodeStatus.FAILED);
+            return;
+        }
+        partitionExecutors.execute(config.getPartition(), () -> {
+            DagRun.NodeStatus outcome = DagRun.NodeStatus.FAILED;
+            FiringOutcome.clear();
+            try {
+                invoker.invoke();
+                outcome = DagRun.NodeStatus.SUCCESS;
+            } catch (Throwable e) {
+                log.error("DAG 运行[{}]中任务[{}]执行出错", runId, taskId, e);
+            }
+            onDone.accept(FiringOutcome.takeSkipped() ? DagRun.NodeStatus.SKIPPED : outcome);
+        }, () -> onDone.accept(DagRun.NodeStatus.SKIPPED));
+    }
+
+    /**
+     * 手动从某个任务开始一次 DAG 运行，该任务和它的全部下游按依赖顺序执行
+     *
+     * @return 运行 id，任务不存在或是分片任务（不参与 DAG）时为空
+     */
+    public String triggerDag(String taskId) {
+        TbScheduledTaskConfig config = taskConfigs.get(taskId);
+        if (config == null || (config.getShardCount() != null && config.getShardCount() > 0)) {
+            return null;
+        }
+        return taskDag.trigger(taskId);
+    }
+
     /**
      * 停止任务
      *
      * @param taskId 任务名称
      * @return 是否停止成功
      */
-    public boolean stopTask(String taskId) {
+    public synchronized boolean stopTask(String taskId) {
         boolean paused = this.pauseTask(taskId);
         log.info("暂停任务{}，开始持久化停止", paused ? "成功" : "失败");
         TbScheduledTaskConfig scheduledTaskConfig = new TbScheduledTaskConfig();
         scheduledTaskConfig.setEnabled(false);
         scheduledTaskConfig.setTaskId(taskId);
+        scheduledTaskConfig.setLastModifiedTime(new Date());
         UpdateWrapper<TbScheduledTaskConfig> wrapper = new UpdateWrapper<>();
         wrapper.setEntity(scheduledTaskConfig);
         scheduledTaskConfigDao.updateById(scheduledTaskConfig);
+        TbScheduledTaskConfig cached = taskConfigs.get(taskId);
+        if (cached != null) {
+            cached.setEnabled(false);
+            cached.setLastModifiedTime(scheduledTaskConfig.getLastModifiedTime());
+        }
+        taskConfigSync.publish(taskId);
+        statusBoard.markChanged();
         return true;
     }
 
-    public boolean pauseTask(String taskId) {
+    public synchronized boolean pauseTask(String taskId) {
+        pausedTasks.add(taskId);
+        return cancelTask(taskId);
+    }
+
+    private boolean cancelTask(String taskId) {
         ScheduledFuture<?> future = runningTasks.get(taskId);
         if (future != null) {
             future.cancel(false);
             runningTasks.remove(taskId);
+            statusBoard.markChanged();
             return true;
         }
         return false;
@@ -221,45 +499,278 @@ public class DynamicTaskManager {
      * 更新任务执行时间配置
      *
      * @param taskId    任务名称
-     * @param newConfig 新配置
+     * @param newConfig 新配置，非空字段生效
      * @return 是否更新成功
      */
     public boolean updateTaskConfig(String taskId, TbScheduledTaskConfig newConfig) {
-        if (!taskConfigs.containsKey(taskId)) {
-            return false;
+        BulkResult result = updateTasks(Collections.singletonList(taskId), newConfig);
+        return !result.getSucceeded().isEmpty();
+    }
+
+    /**
+     * 批量启动：需要启用的任务一条 UPDATE 持久化、一条消息广播，之后逐个装填
+     */
+    public synchronized BulkResult startTasks(Collection<String> taskIds) {
+        BulkResult result = new BulkResult();
+        List<String> known = filterKnown(taskIds, result);
+        pausedTasks.removeAll(known);
+        List<String> toEnable = new ArrayList<>();
+        for (String taskId : known) {
+            if (!Boolean.TRUE.equals(taskConfigs.get(taskId).getEnabled())) {
+                toEnable.add(taskId);
+            }
+        }
+        persistEnabled(toEnable, true);
+        for (String taskId : known) {
+            TbScheduledTaskConfig config = taskConfigs.get(taskId);
+            boolean started = runningTasks.containsKey(taskId) || armTask(taskId) || !isArmedHere(config)
+                    || taskDag.isDependent(taskId);
+            (started ? result.getSucceeded() : result.getFailed()).add(taskId);
         }
+        return result;
+    }
 
-        // 停止现有任务
-        boolean wasRunning = runningTasks.containsKey(taskId);
-        if (wasRunning) {
-            pauseTask(taskId);
+    /**
+     * 批量停止：先在本节点全部取消，再一条 UPDATE 持久化、一条消息广播
+     */
+    public synchronized BulkResult stopTasks(Collection<String> taskIds) {
+        BulkResult result = new BulkResult();
+        List<String> known = filterKnown(taskIds, result);
+        for (String taskId : known) {
+            pausedTasks.add(taskId);
+            cancelTask(taskId);
         }
-        UpdateWrapper<TbScheduledTaskConfig> wrapper = new UpdateWrapper<>();
-        wrapper.setEntity(newConfig);
-        scheduledTaskConfigDao.updateById(newConfig);
-        // 更新配置
-        newConfig = scheduledTaskConfigDao.getOneByName(taskId);
-        taskConfigs.put(taskId, newConfig);
+        persistEnabled(known, false);
+        result.getSucceeded().addAll(known);
+        return result;
+    }
 
-        // 如果原来在运行，则重新启动
-        if (wasRunning) {
-            return startTask(taskId);
+    /**
+     * 批量暂停，只影响本节点，不写库
+     */
+    public synchronized BulkResult pauseTasks(Collection<String> taskIds) {
+        BulkResult result = new BulkResult();
+        List<String> known = filterKnown(taskIds, result);
+        for (String taskId : known) {
+            pausedTasks.add(taskId);
+            cancelTask(taskId);
         }
+        result.getSucceeded().addAll(known);
+        return result;
+    }
 
-        return true;
+    /**
+     * 批量修改配置：patch 中非空的字段一条 UPDATE 写入所有任务，本地缓存直接合并不再回读；
+     * 依赖图只重建一次，原来在运行或不再依赖上游的任务重新装填
+     *
+     * @param patch 要修改的字段，taskId 忽略
+     */
+    public synchronized BulkResult updateTasks(Collection<String> taskIds, TbScheduledTaskConfig patch) {
+        BulkResult result = new BulkResult();
+        List<String> known = filterKnown(taskIds, result);
+        if (known.isEmpty()) {
+            return result;
+        }
+        TbScheduledTaskConfig changes = new TbScheduledTaskConfig();
+        BeanUtils.copyProperties(patch, changes);
+        changes.setTaskId(null);
+        changes.setLastModifiedTime(new Date());
+
+        Set<String> wasRunning = new HashSet<>();
+        Set<String> wasDependent = new HashSet<>();
+        for (String taskId : known) {
+            if (cancelTask(taskId)) {
+                wasRunning.add(taskId);
+            }
+            if (taskDag.isDependent(taskId)) {
+                wasDependent.add(taskId);
+            }
+        }
+        scheduledTaskConfigDao.updateByTaskIds(changes, known);
+        for (String taskId : known) {
+            taskConfigs.put(taskId, merge(taskConfigs.get(taskId), changes));
+        }
+        taskDag.rebuild(taskConfigs.values());
+        taskConfigSync.publish(known);
+        statusBoard.markChanged();
+
+        for (String taskId : known) {
+            TbScheduledTaskConfig config = taskConfigs.get(taskId);
+            boolean updated = true;
+            // 仍然启用且未暂停时，原来在运行、或者原来由上游触发而现在不再依赖上游的任务重新启动；
+            // 本次更新停用的任务只取消不再装填
+            boolean armable = Boolean.TRUE.equals(config.getEnabled()) && !pausedTasks.contains(taskId);
+            if (armable && (wasRunning.contains(taskId) || wasDependent.contains(taskId))) {
+                updated = armTask(taskId) || !isArmedHere(config) || taskDag.isDependent(taskId);
+            }
+            (updated ? result.getSucceeded() : result.getFailed()).add(taskId);
+        }
+        return result;
+    }
+
+    /**
+     * 按条件选出任务，条件作用在 {@link TaskStatusBoard} 的当前快照上
+     */
+    public List<String> selectTaskIds(TaskStatusBoard.StatusFilter filter) {
+        TaskStatusBoard.StatusPage page = statusBoard.query(filter, 1, Integer.MAX_VALUE);
+        List<String> taskIds = new ArrayList<>(page.getItems().size());
+        page.getItems().forEach(status -> taskIds.add(status.getConfig().getTaskId()));
+        return taskIds;
+    }
+
+    private List<String> filterKnown(Collection<String> taskIds, BulkResult result) {
+        List<String> known = new ArrayList<>();
+        for (String taskId : new LinkedHashSet<>(taskIds)) {
+            (taskConfigs.containsKey(taskId) ? known : result.getFailed()).add(taskId);
+        }
+        return known;
+    }
+
+    private void persistEnabled(List<String> taskIds, boolean enabled) {
+        if (taskIds.isEmpty()) {
+            return;
+        }
+        TbScheduledTaskConfig changes = new TbScheduledTaskConfig();
+        changes.setEnabled(enabled);
+        changes.setLastModifiedTime(new Date());
+        scheduledTaskConfigDao.updateByTaskIds(changes, taskIds);
+        for (String taskId : taskIds) {
+            TbScheduledTaskConfig config = taskConfigs.get(taskId);
+            config.setEnabled(enabled);
+            config.setLastModifiedTime(changes.getLastModifiedTime());
+        }
+        taskConfigSync.publish(taskIds);
+        statusBoard.markChanged();
+    }
+
+    /**
+     * 与 MyBatis-Plus 默认的非空更新策略一致：changes 中非空的字段覆盖到 base 的副本上
+     */
+    private static TbScheduledTaskConfig merge(TbScheduledTaskConfig base, TbScheduledTaskConfig changes) {
+        TbScheduledTaskConfig merged = new TbScheduledTaskConfig();
+        BeanUtils.copyProperties(base, merged);
+        BeanWrapper source = new BeanWrapperImpl(changes);
+        BeanWrapper target = new BeanWrapperImpl(merged);
+        for (PropertyDescriptor property : source.getPropertyDescriptors()) {
+            if (property.getWriteMethod() == null) {
+                continue;
+            }
+            Object value = source.getPropertyValue(property.getName());
+            if (value != null) {
+                target.setPropertyValue(property.getName(), value);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 应用其他节点的配置变更，只重新装填受影响的任务
+     *
+     * @param latest 数据库中的最新配置
+     */
+    public synchronized void applyConfig(TbScheduledTaskConfig latest) {
+        String taskId = latest.getTaskId();
+        TbScheduledTaskConfig previous = taskConfigs.put(taskId, latest);
+        if (previous == null || !Objects.equals(previous.getUpstreamTaskIds(), latest.getUpstreamTaskIds())) {
+            taskDag.rebuild(taskConfigs.values());
+        }
+        statusBoard.markChanged();
+        boolean running = runningTasks.containsKey(taskId);
+        if (!Boolean.TRUE.equals(latest.getEnabled())) {
+            if (running) {
+                cancelTask(taskId);
+                log.info("任务[{}]已在其他节点停止，本节点同步停止", taskId);
+            }
+        } else if (running) {
+            if (previous == null || triggerChanged(previous, latest)) {
+                cancelTask(taskId);
+                armTask(taskId);
+                log.info("任务[{}]执行时间已在其他节点修改，本节点重新装填", taskId);
+            }
+        } else if (!pausedTasks.contains(taskId) && armTask(taskId)) {
+            log.info("任务[{}]已在其他节点启动，本节点同步装填", taskId);
+        }
+    }
+
+    private static boolean triggerChanged(TbScheduledTaskConfig previous, TbScheduledTaskConfig latest) {
+        return !Objects.equals(previous.getCronExpression(), latest.getCronExpression())
+                || !Objects.equals(previous.getFixedRate(), latest.getFixedRate())
+                || !Objects.equals(previous.getFixedDelay(), latest.getFixedDelay())
+                || !Objects.equals(previous.getInitialDelay(), latest.getInitialDelay())
+                || !Objects.equals(previous.getPartition(), latest.getPartition())
+                || !Objects.equals(previous.getTaskBean(), latest.getTaskBean())
+                || !Objects.equals(previous.getTaskMethod(), latest.getTaskMethod())
+                || !Objects.equals(previous.getShardCount(), latest.getShardCount())
+                || !Objects.equals(previous.getOverlapPolicy(), latest.getOverlapPolicy())
+                || !Objects.equals(previous.getMaxConcurrency(), latest.getMaxConcurrency())
+                || !Objects.equals(previous.getLockProvider(), latest.getLockProvider())
+                || !Objects.equals(previous.getUpstreamTaskIds(), latest.getUpstreamTaskIds())
+                || !Objects.equals(previous.getLimitGroup(), latest.getLimitGroup())
+                || !Objects.equals(previous.getLimitConcurrency(), latest.getLimitConcurrency())
+                || !Objects.equals(previous.getLimitRate(), latest.getLimitRate());
     }
 
     /**
-     * 获取所有任务状态
+     * 本节点是否应当装填该任务：非集群归属模式下都装填；分片任务需要所有存活节点参与，也都装填
+     */
+    private boolean isArmedHere(TbScheduledTaskConfig config) {
+        if (clusterMembership == null || (config.getShardCount() != null && config.getShardCount() > 0)) {
+            return true;
+        }
+        return clusterMembership.isOwner(config.getTaskId());
+    }
+
+    /**
+     * 集群成员变化后重新分配：交出不再归属本节点的任务，装填新归属本节点的任务
+     */
+    public synchronized void rebalance() {
+        int released = 0;
+        int acquired = 0;
+        for (TbScheduledTaskConfig config : taskConfigs.values()) {
+            String taskId = config.getTaskId();
+            boolean owned = isArmedHere(config);
+            if (!owned && runningTasks.containsKey(taskId)) {
+                cancelTask(taskId);
+                released++;
+            } else if (owned && !runningTasks.containsKey(taskId) && Boolean.TRUE.equals(config.getEnabled())
+                    && !pausedTasks.contains(taskId) && armTask(taskId)) {
+                acquired++;
+            }
+        }
+        // 归属节点变了，即使本节点没有交出或接管任务
+        statusBoard.markChanged();
+        log.info("任务重新分配完成：交出 {} 个，接管 {} 个，本节点运行 {} 个", released, acquired, runningTasks.size());
+    }
+
+    /**
+     * 获取所有任务状态，读取的是 {@link TaskStatusBoard} 的快照，不会每次重新采集
      *
-     * @return 任务状态映射
+     * @return 任务状态映射，只读
      */
     public Map<String, TaskStatus> getAllTaskStatus() {
+        return statusBoard.current().getStatuses();
+    }
+
+    /**
+     * 采集全部任务的当前状态；配置复制一份，之后对缓存配置的原地修改不会影响已生成的快照
+     */
+    private Map<String, TaskStatus> collectStatus() {
         Map<String, TaskStatus> statusMap = new HashMap<>();
         taskConfigs.forEach((name, config) -> {
+            TbScheduledTaskConfig copy = new TbScheduledTaskConfig();
+            BeanUtils.copyProperties(config, copy);
             TaskStatus status = new TaskStatus();
-            status.setConfig(config);
+            status.setConfig(copy);
             status.setRunning(runningTasks.containsKey(name));
+            status.setDependent(taskDag.isDependent(name));
+            status.setOwner(clusterMembership == null ? null : clusterMembership.ownerOf(name));
+            OverlapGuard guard = overlapGuards.get(name);
+            status.setOverlapPolicy(guard == null ? OverlapPolicy.parse(config.getOverlapPolicy()) : guard.getPolicy());
+            if (guard != null) {
+                status.setInFlight(guard.getInFlight());
+                status.setSkippedCount(guard.getSkipped());
+                status.setCoalescedCount(guard.getCoalesced());
+            }
             statusMap.put(name, status);
         });
         return statusMap;
@@ -270,10 +781,44 @@ public class DynamicTaskManager {
     public static class TaskStatus {
         private TbScheduledTaskConfig config;
         private boolean running;
+        /**
+         * 由上游任务完成后触发，没有自己的触发器
+         */
+        private boolean dependent;
+        /**
+         * 归属节点，非集群归属模式下为空
+         */
+        private String owner;
+        private OverlapPolicy overlapPolicy;
+        /**
+         * 本节点正在执行的次数
+         */
+        private int inFlight;
+        /**
+         * 因前一次未执行完被本地跳过的触发次数，这些触发没有访问 Redis
+         */
+        private long skippedCount;
+        /**
+         * COALESCE_ONE 下被合并的触发次数
+         */
+        private long coalescedCount;
+        /**
+         * 该任务状态最后一次变化时的快照版本
+         */
+        private long version;
 
         // getters and setters
     }
 
+    /**
+     * 批量操作的结果，不存在的任务计入失败
+     */
+    @Data
+    public static class BulkResult {
+        private List<String> succeeded = new ArrayList<>();
+        private List<String> failed = new ArrayList<>();
+    }
+
     /**
      * 获取 Spring Boot 主类（带有 @SpringBootApplication 的类）
      */
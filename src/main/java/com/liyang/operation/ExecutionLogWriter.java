@@ -0,0 +1,173 @@
+package com.liyang.operation;
+
+import com.baomidou.mybatisplus.extension.toolkit.Db;
+import com.liyang.entity.TbTaskExecutionLog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 执行历史异步批量写入
+ * <p>
+ * 任务线程只把记录放进有界队列，不访问数据库；后台写线程攒够一批或等待超过 flush-ms 后一次 JDBC 批量插入。
+ * 队列满时按 offer-wait-ms 短暂等待，仍然放不进去就丢弃并计数，保证任务线程不会被数据库拖慢。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Component
+@Slf4j
+public class ExecutionLogWriter implements DisposableBean {
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    @Value("${ly-job.execution-log.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ly-job.execution-log.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${ly-job.execution-log.batch-size:500}")
+    private int batchSize;
+
+    @Value("${ly-job.execution-log.flush-ms:1000}")
+    private long flushMillis;
+
+    @Value("${ly-job.execution-log.offer-wait-ms:0}")
+    private long offerWaitMillis;
+
+    private final String node = ManagementFactory.getRuntimeMXBean().getName();
+
+    private BlockingQueue<TbTaskExecutionLog> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writer = new Thread(this::drainLoop, "ly-job-execution-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * 记录一次执行，只入队，不阻塞（offer-wait-ms 为 0 时）
+     *
+     * @param error 执行异常，成功时为 null
+     */
+    public void record(String traceId, String taskName, long startTime, long endTime, Throwable error) {
+        record(traceId, taskName, startTime, endTime, error, null, null);
+    }
+
+    /**
+     * 记录分片任务的一个分片
+     */
+    public void record(String traceId, String taskName, long startTime, long endTime, Throwable error,
+                       Integer shardIndex, Integer shardTotal) {
+        if (queue == null) {
+            return;
+        }
+        TbTaskExecutionLog entry = new TbTaskExecutionLog();
+        entry.setTraceId(traceId);
+        entry.setTaskName(taskName);
+        entry.setNode(node);
+        entry.setShardIndex(shardIndex);
+        entry.setShardTotal(shardTotal);
+        entry.setStartTime(new Date(startTime));
+        entry.setEndTime(new Date(endTime));
+        entry.setDurationMs(endTime - startTime);
+        entry.setStatus(error == null ? TbTaskExecutionLog.STATUS_SUCCESS : TbTaskExecutionLog.STATUS_FAILED);
+        if (error != null) {
+            String message = error.getClass().getName() + ": " + error.getMessage();
+            entry.setErrorMessage(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+        }
+        boolean accepted;
+        try {
+            accepted = offerWaitMillis > 0 ? queue.offer(entry, offerWaitMillis, TimeUnit.MILLISECONDS) : queue.offer(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (accepted) {
+            enqueued.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    private void drainLoop() {
+        List<TbTaskExecutionLog> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                TbTaskExecutionLog first = queue.poll(flushMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void flush(List<TbTaskExecutionLog> batch) {
+        try {
+            Db.saveBatch(batch, batchSize);
+            written.add(batch.size());
+            batches.increment();
+        } catch (Exception e) {
+            // 写库失败不重试，避免故障期间队列无限堆积
+            failed.add(batch.size());
+            log.warn("执行历史批量写入失败，丢弃 {} 条：{}", batch.size(), e.getMessage());
+        } finally {
+            batch.clear();
+        }
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("queued", queue == null ? 0L : queue.size());
+        stats.put("enqueued", enqueued.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("written", written.sum());
+        stats.put("failed", failed.sum());
+        stats.put("batches", batches.sum());
+        return stats;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        // 不中断写线程，避免打断进行中的批量插入；最多等一个 flush 周期后写完剩余记录
+        running = false;
+        writer.join(flushMillis + TimeUnit.SECONDS.toMillis(5));
+    }
+}
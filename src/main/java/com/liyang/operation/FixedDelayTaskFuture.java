@@ -0,0 +1,118 @@
+package com.liyang.operation;
+
+import org.springframework.scheduling.TaskScheduler;
+
+import java.util.Date;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * fixedDelay 任务的句柄
+ * <p>
+ * 触发线程只负责把任务投递到分区，任务在分区线程执行完成（或被丢弃）后才按 delay 装填下一次，
+ * 从而保留"上次结束到下次开始"的语义。每次装填都是一次性调度，取消时取消当前那一次即可。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+final class FixedDelayTaskFuture implements ScheduledFuture<Object> {
+    private final TaskScheduler scheduler;
+    private final long delay;
+    private Runnable dispatcher;
+    private volatile ScheduledFuture<?> current;
+    private volatile long plannedTime;
+    private volatile boolean cancelled;
+
+    FixedDelayTaskFuture(TaskScheduler scheduler, long delay) {
+        this.scheduler = scheduler;
+        this.delay = delay;
+    }
+
+    void start(Runnable dispatcher, Date startTime) {
+        this.dispatcher = dispatcher;
+        arm(startTime);
+    }
+
+    /**
+     * 本次执行结束，按 delay 装填下一次
+     */
+    void rearm() {
+        arm(new Date(System.currentTimeMillis() + delay));
+    }
+
+    private synchronized void arm(Date time) {
+        if (!cancelled) {
+            plannedTime = time.getTime();
+            current = scheduler.schedule(dispatcher, time);
+        }
+    }
+
+    /**
+     * 当前这一次的计划触发时间
+     */
+    long getPlannedTime() {
+        return plannedTime;
+    }
+
+    @Override
+    public synchronized boolean cancel(boolean mayInterruptIfRunning) {
+        if (cancelled) {
+            return false;
+        }
+        cancelled = true;
+        if (current != null) {
+            current.cancel(mayInterruptIfRunning);
+        }
+        // 唤醒等待 get 的线程
+        notifyAll();
+        return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public boolean isDone() {
+        return cancelled;
+    }
+
+    /**
+     * 与 scheduleWithFixedDelay 返回的句柄一致：周期任务没有结果，一直等到被取消后抛出 CancellationException
+     */
+    @Override
+    public synchronized Object get() throws InterruptedException {
+        while (!cancelled) {
+            wait();
+        }
+        throw new CancellationException();
+    }
+
+    @Override
+    public synchronized Object get(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!cancelled) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException();
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        throw new CancellationException();
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        ScheduledFuture<?> future = current;
+        return future == null ? 0 : future.getDelay(unit);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+        return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+    }
+}
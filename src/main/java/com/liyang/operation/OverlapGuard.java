@@ -0,0 +1,140 @@
+package com.liyang.operation;
+
+import com.liyang.core.task.OverlapPolicy;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个任务的本地并发闸门
+ * <p>
+ * 在触发线程上、投递分区和抢锁之前判断：前一次还在执行时，重叠的触发只做一次 CAS 就被拒绝或合并，不访问 Redis。
+ * 状态只有一个原子整数：
+ * <ul>
+ *     <li>SKIP / PARALLEL_N：正在执行的次数，达到上限即跳过</li>
+ *     <li>COALESCE_ONE：0 空闲，1 执行中，2 执行中且有一次待执行</li>
+ * </ul>
+ * 集群锁仍然生效：锁模式下同一时刻全集群只有一个节点在执行，PARALLEL_N 的本地并发在归属模式下才有意义。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+final class OverlapGuard {
+    private static final int IDLE = 0;
+    private static final int RUNNING = 1;
+    private static final int RUNNING_WITH_PENDING = 2;
+
+    private final OverlapPolicy policy;
+    private final int maxConcurrency;
+    private final AtomicInteger state = new AtomicInteger();
+    private final LongAdder skipped;
+    private final LongAdder coalesced;
+
+    /**
+     * @param previous 策略变更前的闸门，沿用其累计的跳过、合并次数；仍在执行的旧触发结束时归还到旧闸门
+     */
+    OverlapGuard(OverlapPolicy policy, int maxConcurrency, OverlapGuard previous) {
+        this.policy = policy;
+        this.maxConcurrency = policy == OverlapPolicy.PARALLEL_N ? Math.max(1, maxConcurrency) : 1;
+        this.skipped = previous == null ? new LongAdder() : previous.skipped;
+        this.coalesced = previous == null ? new LongAdder() : previous.coalesced;
+    }
+
+    boolean matches(OverlapPolicy policy, int maxConcurrency) {
+        return this.policy == policy
+                && this.maxConcurrency == (policy == OverlapPolicy.PARALLEL_N ? Math.max(1, maxConcurrency) : 1);
+    }
+
+    enum Admission {
+        /**
+         * 可以执行，执行结束后必须调用 {@link #exit()}
+         */
+        ENTERED,
+        /**
+         * 已合并到当前执行之后，由当前执行的线程接着执行
+         */
+        COALESCED,
+        SKIPPED
+    }
+
+    /**
+     * 触发时调用
+     */
+    Admission tryEnter() {
+        if (policy == OverlapPolicy.COALESCE_ONE) {
+            for (; ; ) {
+                int current = state.get();
+                if (current == IDLE) {
+                    if (state.compareAndSet(IDLE, RUNNING)) {
+                        return Admission.ENTERED;
+                    }
+                } else if (current == RUNNING) {
+                    if (state.compareAndSet(RUNNING, RUNNING_WITH_PENDING)) {
+                        coalesced.increment();
+                        return Admission.COALESCED;
+                    }
+                } else {
+                    skipped.increment();
+                    return Admission.SKIPPED;
+                }
+            }
+        }
+        for (; ; ) {
+            int current = state.get();
+            if (current >= maxConcurrency) {
+                skipped.increment();
+                return Admission.SKIPPED;
+            }
+            if (state.compareAndSet(current, current + 1)) {
+                return Admission.ENTERED;
+            }
+        }
+    }
+
+    /**
+     * 一次执行结束
+     *
+     * @return true 表示有合并的一次待执行，调用方应在当前线程立即再执行一次（之后仍需调用 exit）
+     */
+    boolean exit() {
+        for (; ; ) {
+            int current = state.get();
+            if (current == RUNNING_WITH_PENDING && policy == OverlapPolicy.COALESCE_ONE) {
+                if (state.compareAndSet(RUNNING_WITH_PENDING, RUNNING)) {
+                    return true;
+                }
+            } else if (current <= IDLE || state.compareAndSet(current, current - 1)) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 已进入但没能执行完（被分区丢弃或执行抛出异常），归还名额；合并的那一次也一起放弃
+     */
+    void abandon() {
+        for (; ; ) {
+            int current = state.get();
+            int next = policy == OverlapPolicy.COALESCE_ONE ? IDLE : Math.max(IDLE, current - 1);
+            if (state.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    OverlapPolicy getPolicy() {
+        return policy;
+    }
+
+    int getInFlight() {
+        return policy == OverlapPolicy.COALESCE_ONE ? Math.min(state.get(), RUNNING) : state.get();
+    }
+
+    long getSkipped() {
+        return skipped.sum();
+    }
+
+    long getCoalesced() {
+        return coalesced.sum();
+    }
+}
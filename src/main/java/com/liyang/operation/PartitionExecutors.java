@@ -0,0 +1,171 @@
+package com.liyang.operation;
+
+import com.liyang.config.PartitionProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 分区执行器
+ * <p>
+ * 触发线程只负责把任务投递到所属分区，任务体在分区自己的有界线程池中执行。
+ * 各分区的线程、队列、拒绝策略互相隔离，低优先级分区被打满不会影响高优先级分区的延迟。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Component
+@Slf4j
+public class PartitionExecutors {
+
+    @Resource
+    private PartitionProperties partitionProperties;
+
+    private final Map<String, Partition> partitions = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        Map<String, PartitionProperties.Pool> pools = new LinkedHashMap<>(partitionProperties.getPools());
+        pools.putIfAbsent(PartitionProperties.DEFAULT_PARTITION, new PartitionProperties.Pool());
+        pools.forEach((name, pool) -> {
+            partitions.put(name, new Partition(name, pool));
+            log.info("初始化执行分区[{}]，线程 {}-{}，队列 {}，拒绝策略 {}", name, pool.getCoreSize(),
+                    Math.max(pool.getCoreSize(), pool.getMaxSize()), pool.getQueueCapacity(), pool.getRejectPolicy());
+        });
+    }
+
+    /**
+     * 解析任务所属分区，未配置或不存在的分区归入 default
+     */
+    public String resolve(String partition) {
+        if (StringUtils.hasText(partition) && partitions.containsKey(partition)) {
+            return partition;
+        }
+        return PartitionProperties.DEFAULT_PARTITION;
+    }
+
+    /**
+     * 投递任务到分区
+     *
+     * @param partition 分区名
+     * @param task      任务体
+     * @param onDropped 任务因队列满被丢弃时的回调，可为空
+     * @return 是否投递成功（DISCARD_OLDEST 丢弃的是更早的任务，本次仍视为成功）
+     */
+    public boolean execute(String partition, Runnable task, Runnable onDropped) {
+        Partition target = partitions.get(resolve(partition));
+        try {
+            target.executor.execute(new PartitionTask(task, onDropped));
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("分区[{}]已满，拒绝本次触发", target.name);
+            return false;
+        }
+    }
+
+    public Map<String, ThreadPoolExecutor> getExecutors() {
+        Map<String, ThreadPoolExecutor> executors = new LinkedHashMap<>();
+        partitions.forEach((name, partition) -> executors.put(name, partition.executor));
+        return Collections.unmodifiableMap(executors);
+    }
+
+    public long getRejectedCount(String partition) {
+        Partition target = partitions.get(partition);
+        return target == null ? 0 : target.rejected.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        partitions.values().forEach(partition -> partition.executor.shutdown());
+    }
+
+    private static final class Partition {
+        private final String name;
+        private final ThreadPoolExecutor executor;
+        private final LongAdder rejected = new LongAdder();
+
+        Partition(String name, PartitionProperties.Pool pool) {
+            this.name = name;
+            int core = Math.max(1, pool.getCoreSize());
+            this.executor = new ThreadPoolExecutor(core, Math.max(core, pool.getMaxSize()),
+                    pool.getKeepAliveSeconds(), TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, pool.getQueueCapacity())),
+                    new CustomizableThreadFactory("partition-" + name + "-"),
+                    rejectHandler(pool.getRejectPolicy()));
+        }
+
+        private RejectedExecutionHandler rejectHandler(PartitionProperties.RejectPolicy policy) {
+            switch (policy) {
+                case CALLER_RUNS:
+                    return (r, e) -> {
+                        rejected.increment();
+                        if (!e.isShutdown()) {
+                            r.run();
+                        }
+                    };
+                case DISCARD:
+                    return (r, e) -> {
+                        rejected.increment();
+                        dropped(r);
+                    };
+                case DISCARD_OLDEST:
+                    return (r, e) -> {
+                        rejected.increment();
+                        if (e.isShutdown()) {
+                            dropped(r);
+                            return;
+                        }
+                        dropped(e.getQueue().poll());
+                        e.execute(r);
+                    };
+                default:
+                    return (r, e) -> {
+                        rejected.increment();
+                        dropped(r);
+                        throw new RejectedExecutionException("partition " + name + " is full");
+                    };
+            }
+        }
+
+        private static void dropped(Runnable r) {
+            if (r instanceof PartitionTask) {
+                ((PartitionTask) r).onDropped();
+            }
+        }
+    }
+
+    private static final class PartitionTask implements Runnable {
+        private final Runnable task;
+        private final Runnable onDropped;
+
+        PartitionTask(Runnable task, Runnable onDropped) {
+            this.task = task;
+            this.onDropped = onDropped;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+        void onDropped() {
+            if (onDropped != null) {
+                onDropped.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.liyang.operation;
+
+import com.liyang.core.wheel.WheelTaskScheduler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 调度器埋点，经 Actuator 暴露（/actuator/prometheus）
+ * <ul>
+ *     <li>ly.job.fire.lag：计划触发时间到任务体在分区线程真正开始执行的延迟，包含分区排队时间</li>
+ *     <li>ly.job.lock.acquire：一次抢锁往返的耗时</li>
+ *     <li>ly.job.lock.result：抢锁结果，won / lost，以及没有走到执行的 skipped（分区已满被丢弃、抢锁出错）</li>
+ *     <li>ly.job.execution：任务执行耗时，按 outcome 区分成功失败</li>
+ *     <li>ly.job.scheduler.active / queue：触发引擎的活跃线程数与已装填待触发数</li>
+ *     <li>ly.job.partition.active / queue：各执行分区的活跃线程数与排队数</li>
+ * </ul>
+ * 按任务的计量器在第一次触发时创建并缓存，触发路径上只有一次 Map 查找和计量器自身的原子累加；
+ * 线程池类指标是拉取式的 Gauge，只在采集时计算。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Component
+public class SchedulerMetrics {
+
+    private final MeterRegistry registry;
+
+    private final Map<String, TaskMeters> tasks = new ConcurrentHashMap<>();
+
+    @Resource
+    private TaskScheduler taskScheduler;
+
+    @Resource
+    private PartitionExecutors partitionExecutors;
+
+    public SchedulerMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @PostConstruct
+    public void bindGauges() {
+        if (taskScheduler instanceof ThreadPoolTaskScheduler) {
+            ThreadPoolTaskScheduler scheduler = (ThreadPoolTaskScheduler) taskScheduler;
+            Gauge.builder("ly.job.scheduler.active", scheduler, s -> s.getScheduledThreadPoolExecutor().getActiveCount())
+                    .tag("engine", "pool").description("触发线程池活跃线程数").register(registry);
+            Gauge.builder("ly.job.scheduler.queue", scheduler, s -> s.getScheduledThreadPoolExecutor().getQueue().size())
+                    .tag("engine", "pool").description("已装填待触发的任务数").register(registry);
+        } else if (taskScheduler instanceof WheelTaskScheduler) {
+            WheelTaskScheduler scheduler = (WheelTaskScheduler) taskScheduler;
+            Gauge.builder("ly.job.scheduler.active", scheduler, s -> s.getExecutor().getActiveCount())
+                    .tag("engine", "wheel").description("触发线程池活跃线程数").register(registry);
+            Gauge.builder("ly.job.scheduler.queue", scheduler, s -> s.getTimer().pendingTimeouts())
+                    .tag("engine", "wheel").description("已装填待触发的任务数").register(registry);
+        }
+        partitionExecutors.getExecutors().forEach((partition, executor) -> {
+            Gauge.builder("ly.job.partition.active", executor, ThreadPoolExecutor::getActiveCount)
+                    .tag("partition", partition).description("分区活跃线程数").register(registry);
+            Gauge.builder("ly.job.partition.queue", executor, e -> e.getQueue().size())
+                    .tag("partition", partition).description("分区排队任务数").register(registry);
+        });
+    }
+
+    /**
+     * 任务的计量器，不存在时创建
+     *
+     * @param taskName 任务名，与切面中的描述符任务名一致（类名.方法名）
+     */
+    public TaskMeters forTask(String taskName) {
+        TaskMeters meters = tasks.get(taskName);
+        return meters != null ? meters : tasks.computeIfAbsent(taskName, name -> new TaskMeters(registry, name));
+    }
+
+    public static final class TaskMeters {
+        private final Timer fireLag;
+        private final Timer lockAcquire;
+        private final Counter lockWon;
+        private final Counter lockLost;
+        private final Counter skipped;
+        private final Timer succeeded;
+        private final Timer failed;
+
+        TaskMeters(MeterRegistry registry, String task) {
+            fireLag = Timer.builder("ly.job.fire.lag").tag("task", task)
+                    .description("计划触发时间到开始执行的延迟").register(registry);
+            lockAcquire = Timer.builder("ly.job.lock.acquire").tag("task", task)
+                    .description("抢锁耗时").register(registry);
+            lockWon = lockResult(registry, task, "won");
+            lockLost = lockResult(registry, task, "lost");
+            skipped = lockResult(registry, task, "skipped");
+            succeeded = execution(registry, task, "success");
+            failed = execution(registry, task, "failure");
+        }
+
+        private static Counter lockResult(MeterRegistry registry, String task, String result) {
+            return Counter.builder("ly.job.lock.result").tag("task", task).tag("result", result)
+                    .description("抢锁结果").register(registry);
+        }
+
+        private static Timer execution(MeterRegistry registry, String task, String outcome) {
+            return Timer.builder("ly.job.execution").tag("task", task).tag("outcome", outcome)
+                    .description("任务执行耗时").register(registry);
+        }
+
+        /**
+         * @param lagMillis 实际开始时间 - 计划触发时间，提前执行记为 0
+         */
+        public void recordLag(long lagMillis) {
+            fireLag.record(Math.max(0, lagMillis), TimeUnit.MILLISECONDS);
+        }
+
+        public void recordLockAcquire(long nanos) {
+            lockAcquire.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        public void lockWon() {
+            lockWon.increment();
+        }
+
+        public void lockLost() {
+            lockLost.increment();
+        }
+
+        /**
+         * 本次触发没有执行：分区已满被丢弃，或抢锁本身出错
+         */
+        public void skipped() {
+            skipped.increment();
+        }
+
+        public void recordExecution(long durationMillis, boolean failure) {
+            (failure ? failed : succeeded).record(Math.max(0, durationMillis), TimeUnit.MILLISECONDS);
+        }
+    }
+}
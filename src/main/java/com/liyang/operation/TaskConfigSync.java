@@ -0,0 +1,216 @@
+package com.liyang.operation;
+
+import com.liyang.core.wheel.HashedWheelTimer;
+import com.liyang.dao.TbScheduledTaskConfigDao;
+import com.liyang.entity.TbScheduledTaskConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 任务配置在集群内的增量传播
+ * <p>
+ * 本节点修改配置后 INCR 一个全局版本号并通过 Redis pub/sub 广播 {@code 版本|来源节点|taskId,taskId...}；
+ * 其他节点收到后只按主键读取这些行并应用差异。版本号出现跳跃（漏收消息）或定时轮询时，
+ * 按 last_modified_time 水位增量拉取变更行。应用差异是幂等的，重复收到同一变更没有副作用。
+ * <p>
+ * 所有读库和应用差异都在单个同步线程上串行执行，不占用 Redisson 的事件线程。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Component
+@Slf4j
+public class TaskConfigSync implements DisposableBean {
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    @Resource
+    private TbScheduledTaskConfigDao scheduledTaskConfigDao;
+
+    @Resource
+    private HashedWheelTimer deferredTimer;
+
+    @Value("${spring.application.name}")
+    private String appName;
+
+    @Value("${ly-job.config-sync.poll-ms:30000}")
+    private long pollMillis;
+
+    /**
+     * 各节点写入 last_modified_time 用的是本地时钟，轮询时水位回退这么多以容忍时钟偏差
+     */
+    @Value("${ly-job.config-sync.overlap-ms:5000}")
+    private long overlapMillis;
+
+    private final String nodeId = UUID.randomUUID().toString().replace("-", "");
+    private final ExecutorService syncExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("ly-job-config-sync-"));
+
+    private final AtomicLong lastVersion = new AtomicLong();
+    private volatile long watermark;
+    private volatile boolean running;
+
+    private RAtomicLong version;
+    private RTopic topic;
+    private Consumer<TbScheduledTaskConfig> applier;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder polls = new LongAdder();
+    private final LongAdder applied = new LongAdder();
+
+    /**
+     * 开始接收其他节点的变更
+     *
+     * @param loaded  启动时已加载的全部配置，用于确定轮询水位
+     * @param applier 应用单行配置差异，在同步线程上调用
+     */
+    public void start(Collection<TbScheduledTaskConfig> loaded, Consumer<TbScheduledTaskConfig> applier) {
+        this.applier = applier;
+        this.version = redissonClient.getAtomicLong("ly-job:config-version:" + appName);
+        this.topic = redissonClient.getTopic("ly-job:config-changes:" + appName, StringCodec.INSTANCE);
+        long maxModified = 0;
+        for (TbScheduledTaskConfig config : loaded) {
+            if (config.getLastModifiedTime() != null) {
+                maxModified = Math.max(maxModified, config.getLastModifiedTime().getTime());
+            }
+        }
+        watermark = maxModified;
+        lastVersion.set(version.get());
+        topic.addListener(String.class, (channel, message) -> onMessage(message));
+        running = true;
+        schedulePoll();
+    }
+
+    /**
+     * 广播本节点的一次配置变更，调用前数据库必须已经写入
+     */
+    public void publish(String taskId) {
+        publish(Collections.singletonList(taskId));
+    }
+
+    /**
+     * 批量变更只广播一条消息、占用一个版本号，接收方一次按主键批量读取
+     */
+    public void publish(Collection<String> taskIds) {
+        if (topic == null || taskIds.isEmpty()) {
+            return;
+        }
+        try {
+            long current = version.incrementAndGet();
+            topic.publish(current + "|" + nodeId + "|" + String.join(",", taskIds));
+            published.increment();
+        } catch (Exception e) {
+            // 广播失败时其他节点由轮询兜底
+            log.warn("任务{}配置变更广播失败，等待其他节点轮询：{}", taskIds, e.getMessage());
+        }
+    }
+
+    private void onMessage(String message) {
+        String[] parts = message.split("\\|", 3);
+        if (parts.length < 3) {
+            return;
+        }
+        received.increment();
+        long messageVersion = Long.parseLong(parts[0]);
+        long previous = lastVersion.getAndAccumulate(messageVersion, Math::max);
+        boolean gap = messageVersion > previous + 1;
+        boolean fromSelf = nodeId.equals(parts[1]);
+        List<String> taskIds = Arrays.asList(parts[2].split(","));
+        syncExecutor.execute(() -> {
+            if (gap) {
+                // 中间有消息没收到，按水位补齐
+                poll();
+            }
+            if (!fromSelf) {
+                scheduledTaskConfigDao.selectBatchIds(taskIds).forEach(this::applyRow);
+            }
+        });
+    }
+
+    private void schedulePoll() {
+        if (!running) {
+            return;
+        }
+        deferredTimer.newTimeout(() -> syncExecutor.execute(() -> {
+            try {
+                poll();
+            } finally {
+                schedulePoll();
+            }
+        }), pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 增量拉取水位之后修改过的行
+     */
+    private void poll() {
+        try {
+            polls.increment();
+            List<TbScheduledTaskConfig> changed = scheduledTaskConfigDao.selectModifiedSince(new Date(watermark - overlapMillis));
+            for (TbScheduledTaskConfig config : changed) {
+                applyRow(config);
+            }
+        } catch (Exception e) {
+            log.warn("任务配置增量轮询失败：{}", e.getMessage());
+        }
+    }
+
+    private void applyRow(TbScheduledTaskConfig config) {
+        if (config == null) {
+            return;
+        }
+        if (config.getLastModifiedTime() != null) {
+            watermark = Math.max(watermark, config.getLastModifiedTime().getTime());
+        }
+        try {
+            applier.accept(config);
+            applied.increment();
+        } catch (Exception e) {
+            log.error("应用任务[{}]配置变更出错", config.getTaskId(), e);
+        }
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("version", lastVersion.get());
+        stats.put("watermark", watermark);
+        stats.put("published", published.sum());
+        stats.put("received", received.sum());
+        stats.put("polls", polls.sum());
+        stats.put("applied", applied.sum());
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        if (topic != null) {
+            topic.removeAllListeners();
+        }
+        syncExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,178 @@
+package com.liyang.operation;
+
+import com.liyang.core.dag.DagRun;
+import com.liyang.core.dag.TaskDag;
+import com.liyang.entity.TbScheduledTaskConfig;
+import com.liyang.utils.TraceIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 任务依赖触发
+ * <p>
+ * 任务配置 upstream_task_ids 后不再装填自己的触发器，只在上游完成后触发。没有上游、但有下游的任务按自己的执行时间触发，
+ * 在本节点执行成功后发起一次 DAG 运行：下游任务在本次运行内的全部上游成功后投递到各自的分区执行，
+ * 互不依赖的分支同时投递，在分区线程池中并行执行。运行状态只保存在发起节点的内存中，保留最近 ly-job.dag.history 次。
+ * <p>
+ * 分片任务每个节点都会执行，无法确定由哪个节点发起下游，不参与依赖关系。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Component
+@Slf4j
+public class TaskDagScheduler {
+
+    /**
+     * 执行 DAG 中的一个任务，结束（含被丢弃）时必须回调一次结果
+     */
+    @FunctionalInterface
+    public interface NodeLauncher {
+        void launch(String taskId, String runId, Consumer<DagRun.NodeStatus> onDone);
+    }
+
+    @Value("${ly-job.dag.history:200}")
+    private int historySize;
+
+    private volatile TaskDag dag = TaskDag.EMPTY;
+    private volatile NodeLauncher launcher;
+
+    private final Map<String, DagRun> runs = new LinkedHashMap<String, DagRun>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DagRun> eldest) {
+            return size() > historySize;
+        }
+    };
+
+    public void start(NodeLauncher launcher) {
+        this.launcher = launcher;
+    }
+
+    /**
+     * 按全部任务配置重建依赖图
+     */
+    public void rebuild(Collection<TbScheduledTaskConfig> configs) {
+        Map<String, Set<String>> declared = new LinkedHashMap<>();
+        Set<String> sharded = new LinkedHashSet<>();
+        for (TbScheduledTaskConfig config : configs) {
+            declared.put(config.getTaskId(), parseIds(config.getUpstreamTaskIds()));
+            if (config.getShardCount() != null && config.getShardCount() > 0) {
+                sharded.add(config.getTaskId());
+            }
+        }
+        for (String taskId : sharded) {
+            if (!declared.get(taskId).isEmpty()) {
+                log.warn("分片任务[{}]不支持依赖触发，忽略其上游配置", taskId);
+                declared.put(taskId, Collections.emptySet());
+            }
+        }
+        declared.forEach((taskId, ups) -> {
+            if (ups.removeAll(sharded)) {
+                log.warn("任务[{}]的上游中包含分片任务，已忽略", taskId);
+            }
+        });
+        TaskDag built = TaskDag.build(declared);
+        if (!built.getCyclic().isEmpty()) {
+            log.error("任务依赖存在环，以下任务的依赖已忽略并按各自执行时间触发：{}", built.getCyclic());
+        }
+        dag = built;
+    }
+
+    static Set<String> parseIds(String upstreamTaskIds) {
+        Set<String> ids = new LinkedHashSet<>();
+        if (!StringUtils.hasText(upstreamTaskIds)) {
+            return ids;
+        }
+        for (String id : upstreamTaskIds.split(",")) {
+            if (StringUtils.hasText(id)) {
+                ids.add(id.trim());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * 是否由上游触发，这样的任务不装填触发器
+     */
+    public boolean isDependent(String taskId) {
+        return dag.isDependent(taskId);
+    }
+
+    /**
+     * 任务按自己的执行时间在本节点执行成功，有下游时发起一次 DAG 运行
+     */
+    public void onCompleted(String taskId) {
+        TaskDag current = dag;
+        if (current.hasDownstream(taskId)) {
+            begin(current, taskId, true);
+        }
+    }
+
+    /**
+     * 手动从某个任务开始一次 DAG 运行，该任务本身也在本次运行中执行
+     *
+     * @return 运行 id
+     */
+    public String trigger(String taskId) {
+        return begin(dag, taskId, false).getRunId();
+    }
+
+    private DagRun begin(TaskDag current, String rootTaskId, boolean rootCompleted) {
+        long now = System.currentTimeMillis();
+        DagRun run = new DagRun(TraceIdGenerator.next(), rootTaskId, current, now);
+        synchronized (runs) {
+            runs.put(run.getRunId(), run);
+        }
+        log.info("任务[{}]发起 DAG 运行[{}]，涉及 {} 个任务", rootTaskId, run.getRunId(), run.getNodes().size());
+        launchAll(run, run.start(rootCompleted, now));
+        return run;
+    }
+
+    private void launchAll(DagRun run, List<String> ready) {
+        for (String taskId : ready) {
+            run.markRunning(taskId, System.currentTimeMillis());
+            launcher.launch(taskId, run.getRunId(), outcome -> {
+                List<String> next = run.complete(taskId, outcome, System.currentTimeMillis());
+                if (run.getStatus() != DagRun.Status.RUNNING) {
+                    log.info("DAG 运行[{}]结束：{}，耗时 {} ms", run.getRunId(), run.getStatus(),
+                            run.getEndTime() - run.getStartTime());
+                }
+                launchAll(run, next);
+            });
+        }
+    }
+
+    public TaskDag getDag() {
+        return dag;
+    }
+
+    /**
+     * 最近的运行，新的在前
+     */
+    public List<DagRun> getRuns(int limit) {
+        List<DagRun> recent;
+        synchronized (runs) {
+            recent = new ArrayList<>(runs.values());
+        }
+        Collections.reverse(recent);
+        return recent.size() > limit ? recent.subList(0, limit) : recent;
+    }
+
+    public DagRun getRun(String runId) {
+        synchronized (runs) {
+            return runs.get(runId);
+        }
+    }
+}
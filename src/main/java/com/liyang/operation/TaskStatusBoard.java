@@ -0,0 +1,336 @@
+package com.liyang.operation;
+
+import com.liyang.config.PartitionProperties;
+import com.liyang.core.wheel.HashedWheelTimer;
+import com.liyang.core.wheel.WheelTimeout;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 任务状态快照
+ * <p>
+ * 状态查询不再每次遍历全部任务，而是读同一份不可变快照。任务被装填、取消、配置变化时标记快照过期，
+ * 下一次查询时重建；执行计数等随执行变化的字段最多 ly-job.status.refresh-ms 刷新一次。
+ * 重建时逐个任务与上一份比较，有变化的任务记下新的快照版本号，只有变化时版本号才增加：
+ * 版本号即 ETag，客户端也可以只取某个版本之后变化的任务，或挂起等待下一次变化（长轮询）。
+ * 版本号只在内存中递增，重启后从头开始，因此同时带上本次启动的纪元：纪元不同的版本号之间没有可比性。
+ * <p>
+ * 长轮询的等待和超时都登记在共享时间轮上，不占用请求线程。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Component
+@Slf4j
+public class TaskStatusBoard {
+
+    @Resource
+    private HashedWheelTimer deferredTimer;
+
+    @Value("${ly-job.status.refresh-ms:1000}")
+    private long refreshMillis;
+
+    /**
+     * 本次启动的纪元，重启后变化
+     */
+    private final long epoch = System.currentTimeMillis();
+
+    private volatile Supplier<Map<String, DynamicTaskManager.TaskStatus>> source = Collections::emptyMap;
+    private volatile Snapshot snapshot = new Snapshot(0, new TreeMap<>(), 0);
+    private volatile boolean dirty = true;
+
+    /**
+     * 等待变化的长轮询，在 waiters 上同步，polling 同样
+     */
+    private final List<Waiter> waiters = new ArrayList<>();
+    private boolean polling;
+
+    /**
+     * @param source 采集全部任务的当前状态，返回的状态不能再被修改
+     */
+    public void start(Supplier<Map<String, DynamicTaskManager.TaskStatus>> source) {
+        this.source = source;
+        markChanged();
+    }
+
+    /**
+     * 任务的装填状态或配置发生了变化
+     */
+    public void markChanged() {
+        dirty = true;
+        boolean waiting;
+        synchronized (waiters) {
+            waiting = !waiters.isEmpty();
+        }
+        if (waiting) {
+            deferredTimer.newTimeout(this::notifyWaiters, 0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * 当前快照，过期时重建
+     */
+    public Snapshot current() {
+        Snapshot current = snapshot;
+        if (!dirty && System.currentTimeMillis() - current.builtAt < refreshMillis) {
+            return current;
+        }
+        return refresh();
+    }
+
+    private synchronized Snapshot refresh() {
+        Snapshot previous = snapshot;
+        long now = System.currentTimeMillis();
+        if (!dirty && now - previous.builtAt < refreshMillis) {
+            // 等锁期间已被其他线程重建
+            return previous;
+        }
+        dirty = false;
+        long version = previous.version + 1;
+        boolean changed = false;
+        TreeMap<String, DynamicTaskManager.TaskStatus> statuses = new TreeMap<>(source.get());
+        for (Map.Entry<String, DynamicTaskManager.TaskStatus> entry : statuses.entrySet()) {
+            DynamicTaskManager.TaskStatus status = entry.getValue();
+            DynamicTaskManager.TaskStatus old = previous.statuses.get(entry.getKey());
+            if (old != null) {
+                status.setVersion(old.getVersion());
+                if (old.equals(status)) {
+                    continue;
+                }
+            }
+            status.setVersion(version);
+            changed = true;
+        }
+        // 任务只会新增不会删除，数量变化一定伴随新任务
+        Snapshot rebuilt = new Snapshot(changed ? version : previous.version, statuses, now);
+        snapshot = rebuilt;
+        return rebuilt;
+    }
+
+    /**
+     * 分页查询，任务按 taskId 排序
+     *
+     * @param page 从 1 开始
+     */
+    public StatusPage query(StatusFilter filter, int page, int size) {
+        Snapshot current = current();
+        List<DynamicTaskManager.TaskStatus> matched = new ArrayList<>();
+        Iterable<DynamicTaskManager.TaskStatus> candidates = StringUtils.hasText(filter.getPrefix())
+                ? current.statuses.subMap(filter.getPrefix(), filter.getPrefix() + Character.MAX_VALUE).values()
+                : current.statuses.values();
+        for (DynamicTaskManager.TaskStatus status : candidates) {
+            if (filter.matches(status)) {
+                matched.add(status);
+            }
+        }
+        StatusPage result = new StatusPage();
+        result.setEpoch(epoch);
+        result.setVersion(current.version);
+        result.setTotal(matched.size());
+        result.setPage(page);
+        result.setSize(size);
+        int from = (int) Math.min((long) (page - 1) * size, matched.size());
+        result.setItems(new ArrayList<>(matched.subList(from, Math.min(from + size, matched.size()))));
+        return result;
+    }
+
+    /**
+     * 某个版本之后变化过的任务；纪元不同（节点重启过）或 since 为 0 时返回全部任务
+     *
+     * @param sinceEpoch 客户端上次拿到的纪元
+     */
+    public StatusDelta changesSince(long sinceEpoch, long since) {
+        return delta(current(), sinceEpoch, since);
+    }
+
+    private StatusDelta delta(Snapshot current, long sinceEpoch, long since) {
+        StatusDelta delta = new StatusDelta();
+        delta.setEpoch(epoch);
+        delta.setVersion(current.version);
+        delta.setFull(sinceEpoch != epoch || since <= 0 || since > current.version);
+        List<DynamicTaskManager.TaskStatus> changed = new ArrayList<>();
+        for (DynamicTaskManager.TaskStatus status : current.statuses.values()) {
+            if (delta.isFull() || status.getVersion() > since) {
+                changed.add(status);
+            }
+        }
+        delta.setChanged(changed);
+        return delta;
+    }
+
+    /**
+     * 长轮询：版本已经新于 since 时立即回调，否则等到有变化或超时，超时回调的 changed 为空
+     */
+    public void awaitChanges(long sinceEpoch, long since, long waitMillis, Consumer<StatusDelta> callback) {
+        Snapshot current = current();
+        if (sinceEpoch != epoch || since <= 0 || current.version != since) {
+            callback.accept(delta(current, sinceEpoch, since));
+            return;
+        }
+        Waiter waiter = new Waiter(since, callback);
+        synchronized (waiters) {
+            waiters.add(waiter);
+            if (!polling) {
+                polling = true;
+                deferredTimer.newTimeout(this::poll, refreshMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        waiter.timeout = deferredTimer.newTimeout(() -> {
+            synchronized (waiters) {
+                if (!waiters.remove(waiter)) {
+                    return;
+                }
+            }
+            callback.accept(delta(snapshot, epoch, since));
+        }, waitMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 有长轮询等待时按刷新间隔检查执行计数等字段的变化
+     */
+    private void poll() {
+        notifyWaiters();
+        synchronized (waiters) {
+            if (waiters.isEmpty()) {
+                polling = false;
+                return;
+            }
+        }
+        deferredTimer.newTimeout(this::poll, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void notifyWaiters() {
+        Snapshot current;
+        try {
+            current = current();
+        } catch (RuntimeException e) {
+            log.warn("刷新任务状态快照失败", e);
+            return;
+        }
+        List<Waiter> ready = new ArrayList<>();
+        synchronized (waiters) {
+            for (Iterator<Waiter> it = waiters.iterator(); it.hasNext(); ) {
+                Waiter waiter = it.next();
+                if (current.version != waiter.since) {
+                    it.remove();
+                    ready.add(waiter);
+                }
+            }
+        }
+        for (Waiter waiter : ready) {
+            if (waiter.timeout != null) {
+                waiter.timeout.cancel();
+            }
+            waiter.callback.accept(delta(current, epoch, waiter.since));
+        }
+    }
+
+    public static final class Snapshot {
+        private final long version;
+        private final TreeMap<String, DynamicTaskManager.TaskStatus> statuses;
+        private final long builtAt;
+        private Map<String, DynamicTaskManager.TaskStatus> view;
+
+        private Snapshot(long version, TreeMap<String, DynamicTaskManager.TaskStatus> statuses, long builtAt) {
+            this.version = version;
+            this.statuses = statuses;
+            this.builtAt = builtAt;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * 全部任务状态，只读
+         */
+        public Map<String, DynamicTaskManager.TaskStatus> getStatuses() {
+            Map<String, DynamicTaskManager.TaskStatus> map = view;
+            if (map == null) {
+                map = Collections.unmodifiableMap(statuses);
+                view = map;
+            }
+            return map;
+        }
+    }
+
+    /**
+     * 查询条件，未设置的条件不过滤
+     */
+    @Data
+    public static class StatusFilter {
+        private Boolean enabled;
+        private Boolean running;
+        private String partition;
+        /**
+         * taskId 前缀
+         */
+        private String prefix;
+
+        boolean matches(DynamicTaskManager.TaskStatus status) {
+            if (enabled != null && !enabled.equals(Boolean.TRUE.equals(status.getConfig().getEnabled()))) {
+                return false;
+            }
+            if (running != null && running != status.isRunning()) {
+                return false;
+            }
+            if (StringUtils.hasText(partition)) {
+                String taskPartition = status.getConfig().getPartition();
+                return Objects.equals(partition, StringUtils.hasText(taskPartition) ? taskPartition
+                        : PartitionProperties.DEFAULT_PARTITION);
+            }
+            return true;
+        }
+    }
+
+    @Data
+    public static class StatusPage {
+        private long epoch;
+        private long version;
+        private int total;
+        private int page;
+        private int size;
+        private List<DynamicTaskManager.TaskStatus> items;
+    }
+
+    @Data
+    public static class StatusDelta {
+        private long epoch;
+        private long version;
+        /**
+         * 为 true 时 changed 是全部任务，客户端应整体替换
+         */
+        private boolean full;
+        private List<DynamicTaskManager.TaskStatus> changed;
+    }
+
+    private static final class Waiter {
+        private final long since;
+        private final Consumer<StatusDelta> callback;
+        private volatile WheelTimeout timeout;
+
+        private Waiter(long since, Consumer<StatusDelta> callback) {
+            this.since = since;
+            this.callback = callback;
+        }
+    }
+}
@@ -0,0 +1,490 @@
+package com.liyang.utils;
+
+import org.springframework.scheduling.support.CronExpression;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 编译后的 cron 表达式，按表达式字符串缓存
+ * <p>
+ * 每个字段编译成一个位图（秒/分 60 位，时 24 位，日 1-31，月 1-12，周 0-6，0 为周日），
+ * 计算下一次/上一次触发时间时直接在本地时间的秒数上按位跳转，日期换算用纯整数运算，不创建任何对象。
+ * 日与周同时限定时两者都要满足，与 Spring 的 {@link CronExpression} 一致。
+ * 夏令时按墙上时间匹配：跳过的本地时间不触发，回拨后重复的本地时间按实际经过的时刻各触发一次。
+ * <p>
+ * 支持 5 位（自动补秒）和 6 位表达式中的 *、?、数字、a-b、a/n、a-b/n、列表以及月份和星期的英文缩写；
+ * L、W、# 和 @daily 之类的宏交给 Spring 的 {@link CronExpression} 处理；它只能向后计算，
+ * 上一次触发时间通过向前成倍扩大窗口、再在窗口内二分查找得到，每次调用几十次 next。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+public final class CompiledCron {
+
+    private static final Map<String, CompiledCron> CACHE = new ConcurrentHashMap<>();
+
+    private static final String[] MONTH_NAMES = {"JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC"};
+    private static final String[] DAY_NAMES = {"SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT"};
+
+    private static final long SECONDS_PER_DAY = 86400;
+    private static final long MILLIS_PER_DAY = SECONDS_PER_DAY * 1000;
+    /**
+     * 最多向前/向后搜索的天数，覆盖 2 月 29 日这类四年一次的表达式
+     */
+    private static final long MAX_SEARCH_DAYS = 366 * 8;
+
+    private final String expression;
+    private final long seconds;
+    private final long minutes;
+    private final long hours;
+    private final long daysOfMonth;
+    private final long months;
+    private final long daysOfWeek;
+    /**
+     * 固定间隔(ms)，不能按固定间隔理解时为 -1
+     */
+    private final long fixedInterval;
+    /**
+     * 含 L/W/# 等本类不支持的语法时使用
+     */
+    private final CronExpression fallback;
+    private final TimeZone timeZone;
+
+    private CompiledCron(String expression, String[] fields, TimeZone timeZone) {
+        this.expression = expression;
+        this.timeZone = timeZone;
+        this.seconds = parseField(fields[0], 0, 59, null);
+        this.minutes = parseField(fields[1], 0, 59, null);
+        this.hours = parseField(fields[2], 0, 23, null);
+        this.daysOfMonth = parseField(fields[3], 1, 31, null);
+        this.months = parseField(fields[4], 1, 12, MONTH_NAMES);
+        long dow = parseField(fields[5], 0, 7, DAY_NAMES);
+        // 7 也表示周日
+        this.daysOfWeek = (dow & ~(1L << 7)) | ((dow >>> 7) & 1L);
+        this.fixedInterval = computeFixedInterval(fields);
+        this.fallback = null;
+    }
+
+    private CompiledCron(String expression, CronExpression fallback, long fixedInterval, TimeZone timeZone) {
+        this.expression = expression;
+        this.timeZone = timeZone;
+        this.seconds = 0;
+        this.minutes = 0;
+        this.hours = 0;
+        this.daysOfMonth = 0;
+        this.months = 0;
+        this.daysOfWeek = 0;
+        this.fixedInterval = fixedInterval;
+        this.fallback = fallback;
+    }
+
+    /**
+     * 取得编译结果，同一表达式只编译一次
+     *
+     * @throws IllegalArgumentException 表达式无效
+     */
+    public static CompiledCron of(String expression) {
+        CompiledCron cached = CACHE.get(expression);
+        if (cached != null) {
+            return cached;
+        }
+        return CACHE.computeIfAbsent(expression, e -> compile(e, TimeZone.getDefault()));
+    }
+
+    /**
+     * 不经过缓存，按指定时区编译
+     */
+    public static CompiledCron compile(String expression, TimeZone timeZone) {
+        String trimmed = expression.trim();
+        String[] fields = trimmed.split("\\s+");
+        if (fields.length == 5) {
+            // 添加秒字段
+            String[] withSeconds = new String[6];
+            withSeconds[0] = "0";
+            System.arraycopy(fields, 0, withSeconds, 1, 5);
+            fields = withSeconds;
+        } else if (fields.length != 6 && !trimmed.startsWith("@")) {
+            throw new IllegalArgumentException("Cron expression must have 5 or 6 fields: " + expression);
+        }
+        if (trimmed.startsWith("@") || hasUnsupportedSyntax(fields)) {
+            CronExpression fallback = CronExpression.parse(fields.length == 6 ? String.join(" ", fields) : trimmed);
+            return new CompiledCron(expression, fallback, -1, timeZone);
+        }
+        return new CompiledCron(expression, fields, timeZone);
+    }
+
+    private static boolean hasUnsupportedSyntax(String[] fields) {
+        for (int i = 3; i < fields.length; i++) {
+            String field = fields[i].toUpperCase();
+            if (field.contains("L") && !field.contains("JUL") || field.contains("W") && !field.contains("WED")
+                    || field.contains("#")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 把一个字段编译成位图，第 n 位为 1 表示 n 匹配
+     */
+    private static long parseField(String field, int min, int max, String[] names) {
+        long bits = 0;
+        for (String part : field.split(",")) {
+            if (part.isEmpty()) {
+                throw new IllegalArgumentException("Empty element in cron field: " + field);
+            }
+            int step = 1;
+            int slash = part.indexOf('/');
+            String range = part;
+            if (slash >= 0) {
+                step = Integer.parseInt(part.substring(slash + 1));
+                if (step <= 0) {
+                    throw new IllegalArgumentException("Step must be positive: " + field);
+                }
+                range = part.substring(0, slash);
+            }
+            int start;
+            int end;
+            if ("*".equals(range) || "?".equals(range)) {
+                start = min;
+                end = max;
+            } else {
+                int dash = range.indexOf('-');
+                if (dash > 0) {
+                    start = parseValue(range.substring(0, dash), names, min);
+                    end = parseValue(range.substring(dash + 1), names, min);
+                } else {
+                    start = parseValue(range, names, min);
+                    end = slash >= 0 ? max : start;
+                }
+            }
+            if (start < min || end > max || start > end) {
+                throw new IllegalArgumentException("Value out of range [" + min + "," + max + "]: " + field);
+            }
+            for (int i = start; i <= end; i += step) {
+                bits |= 1L << i;
+            }
+        }
+        return bits;
+    }
+
+    private static int parseValue(String value, String[] names, int min) {
+        if (names != null) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equalsIgnoreCase(value)) {
+                    // 月份从 1 开始，星期从 0 开始
+                    return i + min;
+                }
+            }
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cron value: " + value, e);
+        }
+    }
+
+    /**
+     * 与 CronExpressionParser 以前按正则判断的规则相同：秒/分/时/日中第一个非 0 的字段为 0/x 或 * /x，且更低位的字段都为 0
+     */
+    private static long computeFixedInterval(String[] fields) {
+        TimeUnit[] units = {TimeUnit.SECONDS, TimeUnit.MINUTES, TimeUnit.HOURS, TimeUnit.DAYS};
+        for (int i = 0; i < units.length; i++) {
+            String field = fields[i];
+            if ((field.startsWith("*/") || field.startsWith("0/")) && field.length() > 2 && isDigits(field.substring(2))) {
+                return units[i].toMillis(Integer.parseInt(field.substring(2)));
+            }
+            if (!"0".equals(field)) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isDigits(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return 严格晚于 fromMillis 的下一次触发时间(ms)，不存在时返回 -1
+     */
+    public long next(long fromMillis) {
+        if (fallback != null) {
+            ZonedDateTime next = fallback.next(ZonedDateTime.ofInstant(Instant.ofEpochMilli(fromMillis), timeZone.toZoneId()));
+            return next == null ? -1 : next.toInstant().toEpochMilli();
+        }
+        long next = searchNext(fromMillis, timeZone.getOffset(fromMillis));
+        if (next >= 0) {
+            int offset = timeZone.getOffset(next);
+            if (offset != timeZone.getOffset(fromMillis)) {
+                // 中间跨过了偏移变化（如夏令时回拨后重复的一小时），按变化后的偏移再找一次，取较早的
+                long other = searchNext(fromMillis, offset);
+                if (other >= 0 && other < next) {
+                    return other;
+                }
+            }
+        }
+        return next;
+    }
+
+    private long searchNext(long fromMillis, int offset) {
+        long t = Math.floorDiv(fromMillis + offset, 1000) + 1;
+        long limit = t + MAX_SEARCH_DAYS * SECONDS_PER_DAY;
+        while (t < limit) {
+            long days = Math.floorDiv(t, SECONDS_PER_DAY);
+            int secondOfDay = (int) (t - days * SECONDS_PER_DAY);
+            long yearMonthDay = civilFromDays(days);
+            int year = (int) (yearMonthDay >> 9);
+            int month = (int) ((yearMonthDay >> 5) & 0xF);
+            int day = (int) (yearMonthDay & 0x1F);
+            if ((months & (1L << month)) == 0) {
+                t = (month == 12 ? daysFromCivil(year + 1, 1, 1) : daysFromCivil(year, month + 1, 1)) * SECONDS_PER_DAY;
+                continue;
+            }
+            if ((daysOfMonth & (1L << day)) == 0 || (daysOfWeek & (1L << dayOfWeek(days))) == 0) {
+                t = (days + 1) * SECONDS_PER_DAY;
+                continue;
+            }
+            int hour = secondOfDay / 3600;
+            int nextHour = nextBit(hours, hour);
+            if (nextHour < 0) {
+                t = (days + 1) * SECONDS_PER_DAY;
+                continue;
+            }
+            if (nextHour > hour) {
+                t = days * SECONDS_PER_DAY + nextHour * 3600L;
+                continue;
+            }
+            int minute = secondOfDay / 60 % 60;
+            int nextMinute = nextBit(minutes, minute);
+            if (nextMinute < 0) {
+                t = days * SECONDS_PER_DAY + (hour + 1) * 3600L;
+                continue;
+            }
+            if (nextMinute > minute) {
+                t = days * SECONDS_PER_DAY + hour * 3600L + nextMinute * 60L;
+                continue;
+            }
+            int second = secondOfDay % 60;
+            int nextSecond = nextBit(seconds, second);
+            if (nextSecond < 0) {
+                t = days * SECONDS_PER_DAY + hour * 3600L + (minute + 1) * 60L;
+                continue;
+            }
+            t += nextSecond - second;
+            long utc = toUtc(t * 1000, fromMillis, true);
+            if (utc >= 0) {
+                return utc;
+            }
+            // 夏令时跳过的本地时间不存在，或对应的时刻都不晚于起点，继续向后找
+            t++;
+        }
+        return -1;
+    }
+
+    /**
+     * @return 严格早于 fromMillis 的上一次触发时间(ms)，不存在时返回 -1
+     */
+    public long previous(long fromMillis) {
+        if (fallback != null) {
+            return fallbackPrevious(fromMillis);
+        }
+        long previous = searchPrevious(fromMillis, timeZone.getOffset(fromMillis));
+        if (previous >= 0) {
+            int offset = timeZone.getOffset(previous);
+            if (offset != timeZone.getOffset(fromMillis)) {
+                long other = searchPrevious(fromMillis, offset);
+                if (other > previous) {
+                    return other;
+                }
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * 找到含有触发时间的窗口 [lo, fromMillis) 后二分：始终保持 [lo, fromMillis) 内有触发、[hi, fromMillis) 内没有
+     */
+    private long fallbackPrevious(long fromMillis) {
+        long limit = fromMillis - MAX_SEARCH_DAYS * SECONDS_PER_DAY * 1000;
+        long window = 1000;
+        long lo = fromMillis - window;
+        while (!firesWithin(lo, fromMillis)) {
+            if (lo <= limit) {
+                return -1;
+            }
+            window <<= 1;
+            lo = Math.max(fromMillis - window, limit);
+        }
+        long hi = fromMillis;
+        while (hi - lo > 1) {
+            long mid = lo + (hi - lo) / 2;
+            if (firesWithin(mid, fromMillis)) {
+                lo = mid;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * [fromMillis, toMillis) 内是否有触发时间
+     */
+    private boolean firesWithin(long fromMillis, long toMillis) {
+        ZonedDateTime next = fallback.next(ZonedDateTime.ofInstant(Instant.ofEpochMilli(fromMillis - 1), timeZone.toZoneId()));
+        return next != null && next.toInstant().toEpochMilli() < toMillis;
+    }
+
+    private long searchPrevious(long fromMillis, int offset) {
+        long t = Math.floorDiv(fromMillis + offset - 1, 1000);
+        long limit = t - MAX_SEARCH_DAYS * SECONDS_PER_DAY;
+        while (t > limit) {
+            long days = Math.floorDiv(t, SECONDS_PER_DAY);
+            int secondOfDay = (int) (t - days * SECONDS_PER_DAY);
+            long yearMonthDay = civilFromDays(days);
+            int year = (int) (yearMonthDay >> 9);
+            int month = (int) ((yearMonthDay >> 5) & 0xF);
+            int day = (int) (yearMonthDay & 0x1F);
+            if ((months & (1L << month)) == 0) {
+                t = daysFromCivil(year, month, 1) * SECONDS_PER_DAY - 1;
+                continue;
+            }
+            if ((daysOfMonth & (1L << day)) == 0 || (daysOfWeek & (1L << dayOfWeek(days))) == 0) {
+                t = days * SECONDS_PER_DAY - 1;
+                continue;
+            }
+            int hour = secondOfDay / 3600;
+            int prevHour = previousBit(hours, hour);
+            if (prevHour < 0) {
+                t = days * SECONDS_PER_DAY - 1;
+                continue;
+            }
+            if (prevHour < hour) {
+                t = days * SECONDS_PER_DAY + prevHour * 3600L + 3599;
+                continue;
+            }
+            int minute = secondOfDay / 60 % 60;
+            int prevMinute = previousBit(minutes, minute);
+            if (prevMinute < 0) {
+                t = days * SECONDS_PER_DAY + hour * 3600L - 1;
+                continue;
+            }
+            if (prevMinute < minute) {
+                t = days * SECONDS_PER_DAY + hour * 3600L + prevMinute * 60L + 59;
+                continue;
+            }
+            int second = secondOfDay % 60;
+            int prevSecond = previousBit(seconds, second);
+            if (prevSecond < 0) {
+                t = days * SECONDS_PER_DAY + hour * 3600L + minute * 60L - 1;
+                continue;
+            }
+            t -= second - prevSecond;
+            long utc = toUtc(t * 1000, fromMillis, false);
+            if (utc >= 0) {
+                return utc;
+            }
+            t--;
+        }
+        return -1;
+    }
+
+    /**
+     * 固定间隔(ms)，规则与 CronExpressionParser.parseCronToInterval 以前按正则判断的一致；不能按固定间隔理解时返回 -1
+     */
+    public long getFixedInterval() {
+        return fixedInterval;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    private long toLocal(long utcMillis) {
+        return utcMillis + timeZone.getOffset(utcMillis);
+    }
+
+    /**
+     * 本地时间换算为 UTC。夏令时回拨时同一本地时间对应两个时刻，跳过时不对应任何时刻；
+     * 用前后各一天的偏移求出候选时刻，返回严格晚于（after 为 true）或早于 boundMillis 的最近一个，没有时返回 -1
+     */
+    private long toUtc(long localMillis, long boundMillis, boolean after) {
+        long approx = localMillis - timeZone.getRawOffset();
+        long first = localMillis - timeZone.getOffset(approx - MILLIS_PER_DAY);
+        long second = localMillis - timeZone.getOffset(approx + MILLIS_PER_DAY);
+        long early = Math.min(first, second);
+        long late = Math.max(first, second);
+        if (after) {
+            if (early > boundMillis && toLocal(early) == localMillis) {
+                return early;
+            }
+            return late > boundMillis && toLocal(late) == localMillis ? late : -1;
+        }
+        if (late < boundMillis && toLocal(late) == localMillis) {
+            return late;
+        }
+        return early < boundMillis && toLocal(early) == localMillis ? early : -1;
+    }
+
+    private static int nextBit(long bits, int from) {
+        long candidates = bits & (-1L << from);
+        return candidates == 0 ? -1 : Long.numberOfTrailingZeros(candidates);
+    }
+
+    private static int previousBit(long bits, int from) {
+        long candidates = bits & (-1L >>> (63 - from));
+        return candidates == 0 ? -1 : 63 - Long.numberOfLeadingZeros(candidates);
+    }
+
+    /**
+     * 1970-01-01 是周四，返回 0-6，0 为周日
+     */
+    private static int dayOfWeek(long epochDay) {
+        return (int) Math.floorMod(epochDay + 4, 7);
+    }
+
+    /**
+     * 纪元日转公历日期（Howard Hinnant 的 civil_from_days），结果打包为 year << 9 | month << 5 | day
+     */
+    private static long civilFromDays(long epochDay) {
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        long day = doy - (153 * mp + 2) / 5 + 1;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return year << 9 | month << 5 | day;
+    }
+
+    /**
+     * 公历日期转纪元日（days_from_civil）
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yoe = y - era * 400;
+        long mp = month > 2 ? month - 3 : month + 9;
+        long doy = (153 * mp + 2) / 5 + day - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
@@ -0,0 +1,19 @@
+package com.liyang.utils;
+
+import lombok.Data;
+
+/**
+ * 任务执行耗时快照，分位数基于最近窗口，count 与 max 为累计值
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+@Data
+public class DurationSnapshot {
+    private long count;
+    private int windowSize;
+    private long p50;
+    private long p95;
+    private long p99;
+    private long max;
+}
@@ -0,0 +1,97 @@
+package com.liyang.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * 单个任务的执行耗时窗口
+ * <p>
+ * 定长 long 环形缓冲区保存最近 {@link #CAPACITY} 次耗时，写入只有一次原子自增加一次有序写，无锁、无装箱、无分配；
+ * 分位数只在读取时对窗口做一次拷贝排序。累计次数和历史最大值单独维护，不受窗口大小限制。
+ * 每次触发都要读取的 p99（计算锁租期）按样本数缓存，每新增 {@link #P99_REFRESH_SAMPLES} 个样本才重新排序一次。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
+public final class DurationWindow {
+    static final int CAPACITY = 128;
+    private static final int MASK = CAPACITY - 1;
+    static final int P99_REFRESH_SAMPLES = 16;
+
+    private final AtomicLongArray samples = new AtomicLongArray(CAPACITY);
+    private final AtomicLong cursor = new AtomicLong();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+    /**
+     * 缓存的 p99 及计算时的样本数；两个字段之间的竞争只会让读到的值稍旧，不影响租期的正确性
+     */
+    private volatile long cachedP99 = -1;
+    private volatile long cachedP99Count;
+
+    public void record(long duration) {
+        long index = cursor.getAndIncrement();
+        samples.lazySet((int) (index & MASK), duration);
+        max.accumulate(duration);
+    }
+
+    public long count() {
+        return cursor.get();
+    }
+
+    /**
+     * 最近窗口内的分位数
+     *
+     * @return 分位数耗时(ms)，没有记录时返回 -1
+     */
+    public long percentile(double percentile) {
+        long[] sorted = sortedWindow();
+        return sorted.length == 0 ? -1 : percentile(sorted, percentile);
+    }
+
+    /**
+     * 缓存的 p99，样本较少时样本数翻倍就重算，之后每 {@link #P99_REFRESH_SAMPLES} 个样本重算一次
+     *
+     * @return p99 耗时(ms)，没有记录时返回 -1
+     */
+    public long p99() {
+        long count = cursor.get();
+        long computedAt = cachedP99Count;
+        if (count == computedAt || count - computedAt < Math.min(P99_REFRESH_SAMPLES, computedAt)) {
+            return cachedP99;
+        }
+        long p99 = percentile(0.99);
+        cachedP99 = p99;
+        cachedP99Count = count;
+        return p99;
+    }
+
+    public DurationSnapshot snapshot() {
+        long[] sorted = sortedWindow();
+        DurationSnapshot snapshot = new DurationSnapshot();
+        snapshot.setCount(cursor.get());
+        snapshot.setMax(max.get());
+        snapshot.setWindowSize(sorted.length);
+        if (sorted.length > 0) {
+            snapshot.setP50(percentile(sorted, 0.50));
+            snapshot.setP95(percentile(sorted, 0.95));
+            snapshot.setP99(percentile(sorted, 0.99));
+        }
+        return snapshot;
+    }
+
+    private long[] sortedWindow() {
+        int size = (int) Math.min(cursor.get(), CAPACITY);
+        long[] window = new long[size];
+        for (int i = 0; i < size; i++) {
+            window[i] = samples.get(i);
+        }
+        Arrays.sort(window);
+        return window;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
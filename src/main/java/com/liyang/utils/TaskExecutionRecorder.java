@@ -1,32 +1,55 @@
 package com.liyang.utils;
 
-import java.util.Collections;
-import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 public class TaskExecutionRecorder {
-    // key: taskName -> list of durations (ms)
-    private static final Map<String, List<Long>> RECORDS = new ConcurrentHashMap<>();
+    // key: taskName -> 最近执行耗时窗口 (ms)
+    private static final Map<String, DurationWindow> RECORDS = new ConcurrentHashMap<>();
+    private static final long DEFAULT_LEASE_TIME = 30_000;
+    private static final long MAX_LEASE_TIME = 3_600_000;
 
     public static void record(String taskName, long duration) {
-        RECORDS.computeIfAbsent(taskName, k -> new CopyOnWriteArrayList<>());
-        List<Long> durations = RECORDS.get(taskName);
-        durations.add(duration);
-
-        // 只保留最近30条
-        if (durations.size() > 30) {
-            durations.remove(0);
+        DurationWindow window = RECORDS.get(taskName);
+        if (window == null) {
+            window = RECORDS.computeIfAbsent(taskName, k -> new DurationWindow());
         }
+        window.record(duration);
     }
 
+    /**
+     * 根据最近执行耗时的分位数计算锁租期：p99 的 1.5 倍，不低于默认 30s，不超过 1h。
+     * 租期只需覆盖绝大多数执行，更长的执行由看门狗续期。每次触发都会调用，p99 取窗口缓存的值，不做排序。
+     */
     public static long getLeaseTime(String taskName) {
-        List<Long> durations = RECORDS.getOrDefault(taskName, Collections.emptyList());
-        if (durations.isEmpty()) {
-            return 30_000; // 默认 30s
+        DurationWindow window = RECORDS.get(taskName);
+        long p99 = window == null ? -1 : window.p99();
+        if (p99 < 0) {
+            return DEFAULT_LEASE_TIME;
         }
-        long maxDuration = durations.stream().mapToLong(Long::longValue).max().orElse(30_000);
-        return maxDuration + 30_000; // 最大值基础上再加 30s
+        long leaseTime = p99 + p99 / 2;
+        return Math.min(MAX_LEASE_TIME, Math.max(DEFAULT_LEASE_TIME, leaseTime));
+    }
+
+    /**
+     * 最近执行耗时的分位数
+     *
+     * @return 分位数耗时(ms)，没有记录时返回 -1
+     */
+    public static long getPercentile(String taskName, double percentile) {
+        DurationWindow window = RECORDS.get(taskName);
+        return window == null ? -1 : window.percentile(percentile);
+    }
+
+    public static DurationSnapshot snapshot(String taskName) {
+        DurationWindow window = RECORDS.get(taskName);
+        return window == null ? null : window.snapshot();
+    }
+
+    public static Map<String, DurationSnapshot> snapshots() {
+        Map<String, DurationSnapshot> snapshots = new TreeMap<>();
+        RECORDS.forEach((taskName, window) -> snapshots.put(taskName, window.snapshot()));
+        return snapshots;
     }
 }
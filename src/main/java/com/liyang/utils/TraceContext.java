@@ -1,10 +1,36 @@
 package com.liyang.utils;
 
+import org.slf4j.MDC;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+/**
+ * 当前线程的链路id，同步写入 SLF4J MDC（key 为 traceId），日志格式中用 %X{traceId} 输出
+ * <p>
+ * 任务把工作交给其他线程时，用 {@link #wrap(Runnable)} / {@link #wrap(Executor)} 包装，链路id随任务一起传递；
+ * Spring 管理的 ThreadPoolTaskExecutor（含 @Async）已通过 TaskDecorator 自动包装。
+ *
+ * @author liyang
+ * @since 2026/10/18
+ */
 public class TraceContext {
+    public static final String MDC_KEY = "traceId";
+
     private static final ThreadLocal<String> CONTEXT = new ThreadLocal<>();
 
+    /**
+     * 生成新的链路id并设置到当前线程
+     */
+    public static String begin() {
+        String traceId = TraceIdGenerator.next();
+        setTraceId(traceId);
+        return traceId;
+    }
+
     public static void setTraceId(String traceId) {
         CONTEXT.set(traceId);
+        MDC.put(MDC_KEY, traceId);
     }
 
     public static String getTraceId() {
@@ -13,5 +39,56 @@ public class TraceContext {
 
     public static void clear() {
         CONTEXT.remove();
+        MDC.remove(MDC_KEY);
+    }
+
+    /**
+     * 捕获当前线程的链路id，在执行线程上恢复，执行完还原执行线程原来的链路id
+     */
+    public static Runnable wrap(Runnable task) {
+        String traceId = CONTEXT.get();
+        if (traceId == null) {
+            return task;
+        }
+        return () -> {
+            String previous = CONTEXT.get();
+            setTraceId(traceId);
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    public static <V> Callable<V> wrap(Callable<V> task) {
+        String traceId = CONTEXT.get();
+        if (traceId == null) {
+            return task;
+        }
+        return () -> {
+            String previous = CONTEXT.get();
+            setTraceId(traceId);
+            try {
+                return task.call();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * 包装任务自己创建的线程池，提交时捕获提交线程的链路id，可直接用于 CompletableFuture.xxxAsync
+     */
+    public static Executor wrap(Executor executor) {
+        return command -> executor.execute(wrap(command));
+    }
+
+    private static void restore(String previous) {
+        if (previous == null) {
+            clear();
+        } else {
+            setTraceId(previous);
+        }
     }
 }
@@ -0,0 +1,98 @@
+package com.liyang.core.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClusterMembershipTest {
+
+    private static final long TTL = 10_000;
+
+    private final InMemoryMembershipStore store = new InMemoryMembershipStore();
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+
+    private ClusterMembership node(String nodeId) {
+        return new ClusterMembership(store, nodeId, TTL, 64, clock::get);
+    }
+
+    @Test
+    void everyTaskHasExactlyOneOwner() {
+        ClusterMembership[] nodes = {node("a"), node("b"), node("c")};
+        for (ClusterMembership node : nodes) {
+            node.refresh();
+        }
+        for (ClusterMembership node : nodes) {
+            node.refresh();
+        }
+        Map<String, Integer> perNode = new HashMap<>();
+        for (int i = 0; i < 300; i++) {
+            String taskId = "task-" + i;
+            int owners = 0;
+            for (ClusterMembership node : nodes) {
+                if (node.isOwner(taskId)) {
+                    owners++;
+                    perNode.merge(node.getNodeId(), 1, Integer::sum);
+                }
+            }
+            assertEquals(1, owners, taskId);
+        }
+        // 64 个虚拟节点时分布不至于严重倾斜
+        perNode.values().forEach(count -> assertTrue(count > 50, perNode.toString()));
+    }
+
+    @Test
+    void onlyTasksOfDepartedNodeMoveOnLeave() {
+        ClusterMembership a = node("a");
+        ClusterMembership b = node("b");
+        ClusterMembership c = node("c");
+        a.refresh();
+        b.refresh();
+        c.refresh();
+        a.refresh();
+
+        Map<String, String> before = new HashMap<>();
+        for (int i = 0; i < 300; i++) {
+            before.put("task-" + i, a.ownerOf("task-" + i));
+        }
+
+        AtomicInteger changes = new AtomicInteger();
+        a.addListener(changes::incrementAndGet);
+        c.stop();
+        assertTrue(a.refresh());
+        assertEquals(1, changes.get());
+
+        before.forEach((taskId, owner) -> {
+            if (!"c".equals(owner)) {
+                assertEquals(owner, a.ownerOf(taskId), taskId);
+            } else {
+                assertFalse("c".equals(a.ownerOf(taskId)), taskId);
+            }
+        });
+    }
+
+    @Test
+    void expiredHeartbeatIsEvicted() {
+        ClusterMembership a = node("a");
+        ClusterMembership b = node("b");
+        a.refresh();
+        b.refresh();
+        a.refresh();
+        assertEquals(2, a.getMembers().size());
+
+        // b 停止心跳，超过 TTL 后被 a 摘除，所有任务归 a
+        clock.addAndGet(TTL + 1);
+        assertTrue(a.refresh());
+        assertEquals(1, a.getMembers().size());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(a.isOwner("task-" + i));
+        }
+        assertFalse(a.refresh());
+    }
+}
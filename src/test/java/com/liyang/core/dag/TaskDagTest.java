@@ -0,0 +1,81 @@
+package com.liyang.core.dag;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskDagTest {
+
+    private static Map<String, Set<String>> graph(String... edges) {
+        Map<String, Set<String>> declared = new LinkedHashMap<>();
+        for (String edge : edges) {
+            String[] parts = edge.split(">");
+            declared.computeIfAbsent(parts[0], k -> new HashSet<>());
+            if (parts.length > 1) {
+                declared.computeIfAbsent(parts[1], k -> new HashSet<>()).add(parts[0]);
+            }
+        }
+        return declared;
+    }
+
+    @Test
+    void cycleEdgesAreDropped() {
+        // a -> b -> c -> b 成环，d 只是环的下游
+        TaskDag dag = TaskDag.build(graph("a>b", "b>c", "c>b", "c>d", "a>e"));
+        assertEquals(new HashSet<>(Arrays.asList("b", "c")), dag.getCyclic());
+        assertFalse(dag.isDependent("b"));
+        assertFalse(dag.isDependent("d"));
+        assertTrue(dag.isDependent("e"));
+        assertEquals(Collections.singletonList("e"), dag.downstreamOf("a"));
+    }
+
+    @Test
+    void unknownUpstreamIsIgnored() {
+        Map<String, Set<String>> declared = graph("a>b");
+        declared.get("b").add("missing");
+        declared.get("a").add("a");
+        TaskDag dag = TaskDag.build(declared);
+        assertFalse(dag.isDependent("a"));
+        assertEquals(Collections.singleton("a"), dag.upstreamOf("b"));
+    }
+
+    @Test
+    void joinWaitsForAllUpstreams() {
+        // a 分叉到 b、c，d 等 b、c 都完成
+        TaskDag dag = TaskDag.build(graph("a>b", "a>c", "b>d", "c>d"));
+        DagRun run = new DagRun("r1", "a", dag, 0);
+        List<String> ready = run.start(true, 0);
+        assertEquals(Arrays.asList("b", "c"), ready);
+        assertTrue(run.complete("b", DagRun.NodeStatus.SUCCESS, 1).isEmpty());
+        assertEquals(Collections.singletonList("d"), run.complete("c", DagRun.NodeStatus.SUCCESS, 2));
+        assertEquals(DagRun.Status.RUNNING, run.getStatus());
+        run.complete("d", DagRun.NodeStatus.SUCCESS, 3);
+        assertEquals(DagRun.Status.SUCCESS, run.getStatus());
+        assertEquals(3, run.getEndTime());
+    }
+
+    @Test
+    void failureSkipsDownstreamAfterJoin() {
+        TaskDag dag = TaskDag.build(graph("a>b", "a>c", "b>d", "c>d", "d>e"));
+        DagRun run = new DagRun("r2", "a", dag, 0);
+        run.start(false, 0);
+        run.complete("a", DagRun.NodeStatus.SUCCESS, 1);
+        assertTrue(run.complete("b", DagRun.NodeStatus.FAILED, 2).isEmpty());
+        // c 仍在执行时 d 不能提前结束
+        assertEquals(DagRun.NodeStatus.WAITING, run.getNodes().get("d").getStatus());
+        assertTrue(run.complete("c", DagRun.NodeStatus.SUCCESS, 3).isEmpty());
+        assertEquals(DagRun.NodeStatus.SKIPPED, run.getNodes().get("d").getStatus());
+        assertEquals(DagRun.NodeStatus.SKIPPED, run.getNodes().get("e").getStatus());
+        assertEquals(DagRun.Status.FAILED, run.getStatus());
+    }
+}
@@ -0,0 +1,53 @@
+package com.liyang.core.redis.aop;
+
+import com.liyang.core.task.FiringOutcome;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StandbySchedulerTest {
+
+    /**
+     * 模拟接管时再次抢锁失败：切面标记跳过后直接返回
+     */
+    public static class LockLostJob {
+        public void run() {
+            FiringOutcome.markSkipped();
+        }
+    }
+
+    @Test
+    void takeoverDoesNotLeakSkippedFlagToNextFiring() throws Exception {
+        StandbyScheduler scheduler = new StandbyScheduler();
+        // 单线程模拟分区线程被复用：先执行一次接管，再执行一次成功的受管触发
+        ExecutorService partition = Executors.newSingleThreadExecutor();
+        try {
+            partition.submit(() -> scheduler.takeover("lockLostJob", new LockLostJob(),
+                    LockLostJob.class.getMethod("run"))).get();
+            boolean skipped = partition.submit(() -> {
+                Runnable job = () -> {
+                };
+                job.run();
+                return FiringOutcome.takeSkipped();
+            }).get();
+            assertFalse(skipped);
+        } finally {
+            partition.shutdown();
+        }
+    }
+
+    @Test
+    void managedFiringReadsItsOwnOutcome() {
+        FiringOutcome.markSkipped();
+        // 调用前清除，之前的残留不会被当作本次结果
+        FiringOutcome.clear();
+        assertFalse(FiringOutcome.takeSkipped());
+        FiringOutcome.markSkipped();
+        assertTrue(FiringOutcome.takeSkipped());
+        assertFalse(FiringOutcome.takeSkipped());
+    }
+}
@@ -0,0 +1,68 @@
+package com.liyang.core.tracelog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TraceLogStoreTest {
+
+    private static final long HOUR = 3600_000L;
+
+    private static final String A = "0190a1b2c3d4aaaaaa000001";
+    private static final String B = "0190a1b2c3d4aaaaaa000002";
+
+    @TempDir
+    Path dir;
+
+    private TraceLogStore open(long maxSegmentBytes) throws IOException {
+        return new TraceLogStore(dir, maxSegmentBytes, HOUR, Long.MAX_VALUE, 1000 * HOUR);
+    }
+
+    private static void append(TraceLogStore store, String traceId, String text) throws IOException {
+        store.append(traceId, System.currentTimeMillis(), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void readsAcrossSealedAndActiveSegments() throws IOException {
+        // 每个段只能放下两条，写入过程中多次封存
+        TraceLogStore store = open(120);
+        for (int i = 0; i < 5; i++) {
+            append(store, A, "a" + i + "\n");
+            append(store, B, "b" + i + "\n");
+        }
+        assertTrue(store.getStats().get("segments") > 2);
+        assertEquals(Arrays.asList("a0\n", "a1\n", "a2\n", "a3\n", "a4\n"), store.read(A, 1024));
+        assertEquals(Collections.singletonList("b0\n"), store.read(B, 3).subList(0, 1));
+        assertTrue(store.read("0190a1b2c3d4aaaaaa000003", 1024).isEmpty());
+        store.close();
+    }
+
+    @Test
+    void rebuildsIndexOfUnsealedSegment() throws IOException {
+        TraceLogStore store = open(1 << 20);
+        append(store, A, "first\n");
+        append(store, B, "other\n");
+        append(store, A, "second\n");
+        store.flush();
+        // 模拟异常退出：不封存，末尾留下写了一半的记录
+        Files.write(dir.resolve("0000000000.seg"), new byte[]{0, 0, 0, 100, 1, 2}, StandardOpenOption.APPEND);
+
+        TraceLogStore reopened = open(1 << 20);
+        List<String> lines = reopened.read(A, 1024);
+        assertEquals(Arrays.asList("first\n", "second\n"), lines);
+        append(reopened, A, "third\n");
+        assertEquals(Arrays.asList("first\n", "second\n", "third\n"), reopened.read(A, 1024));
+        reopened.close();
+    }
+}
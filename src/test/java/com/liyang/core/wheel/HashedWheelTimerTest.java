@@ -0,0 +1,56 @@
+package com.liyang.core.wheel;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedWheelTimerTest {
+
+    // 4 个槽位、1ms 一个 tick：第 1 层 4ms、第 2 层 16ms，很快就会发生下沉
+    private final HashedWheelTimer timer = new HashedWheelTimer("test-wheel", 1, TimeUnit.MILLISECONDS, 4, Runnable::run);
+
+    @AfterEach
+    void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    void firesAcrossLevelsNotBeforeDeadline() throws InterruptedException {
+        int[] delays = {0, 3, 7, 20, 90, 300};
+        CountDownLatch latch = new CountDownLatch(delays.length);
+        AtomicInteger early = new AtomicInteger();
+        for (int delay : delays) {
+            long planned = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+            timer.newTimeout(() -> {
+                if (System.nanoTime() < planned) {
+                    early.incrementAndGet();
+                }
+                latch.countDown();
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertEquals(0, early.get());
+        assertEquals(0, timer.pendingTimeouts());
+    }
+
+    @Test
+    void cancelledTimeoutNeverFires() throws InterruptedException {
+        AtomicInteger fired = new AtomicInteger();
+        WheelTimeout timeout = timer.newTimeout(fired::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+
+        CountDownLatch latch = new CountDownLatch(1);
+        timer.newTimeout(latch::countDown, 100, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertEquals(0, fired.get());
+        assertTrue(timeout.isCancelled());
+    }
+}
@@ -0,0 +1,92 @@
+package com.liyang.operation;
+
+import com.liyang.core.task.OverlapPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OverlapGuardTest {
+
+    @Test
+    void skipRejectsWhileRunning() {
+        OverlapGuard guard = new OverlapGuard(OverlapPolicy.SKIP, 5, null);
+        assertEquals(OverlapGuard.Admission.ENTERED, guard.tryEnter());
+        assertEquals(OverlapGuard.Admission.SKIPPED, guard.tryEnter());
+        assertEquals(OverlapGuard.Admission.SKIPPED, guard.tryEnter());
+        assertFalse(guard.exit());
+        assertEquals(OverlapGuard.Admission.ENTERED, guard.tryEnter());
+        assertEquals(2, guard.getSkipped());
+    }
+
+    @Test
+    void coalesceKeepsOnePending() {
+        OverlapGuard guard = new OverlapGuard(OverlapPolicy.COALESCE_ONE, 1, null);
+        assertEquals(OverlapGuard.Admission.ENTERED, guard.tryEnter());
+        assertEquals(OverlapGuard.Admission.COALESCED, guard.tryEnter());
+        assertEquals(OverlapGuard.Admission.SKIPPED, guard.tryEnter());
+        assertEquals(1, guard.getInFlight());
+        // 当前这次结束，合并的一次接着执行，再结束后空闲
+        assertTrue(guard.exit());
+        assertFalse(guard.exit());
+        assertEquals(0, guard.getInFlight());
+        assertEquals(1, guard.getCoalesced());
+        assertEquals(1, guard.getSkipped());
+    }
+
+    @Test
+    void parallelAllowsUpToLimit() {
+        OverlapGuard guard = new OverlapGuard(OverlapPolicy.PARALLEL_N, 3, null);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(OverlapGuard.Admission.ENTERED, guard.tryEnter());
+        }
+        assertEquals(OverlapGuard.Admission.SKIPPED, guard.tryEnter());
+        guard.abandon();
+        assertEquals(2, guard.getInFlight());
+        assertEquals(OverlapGuard.Admission.ENTERED, guard.tryEnter());
+    }
+
+    @Test
+    void replacedGuardKeepsCounters() {
+        OverlapGuard previous = new OverlapGuard(OverlapPolicy.SKIP, 1, null);
+        previous.tryEnter();
+        previous.tryEnter();
+        OverlapGuard guard = new OverlapGuard(OverlapPolicy.PARALLEL_N, 2, previous);
+        assertTrue(guard.matches(OverlapPolicy.PARALLEL_N, 2));
+        assertFalse(guard.matches(OverlapPolicy.SKIP, 2));
+        assertEquals(1, guard.getSkipped());
+        assertEquals(0, guard.getInFlight());
+    }
+
+    @Test
+    void concurrentFiringsNeverExceedLimit() throws InterruptedException {
+        OverlapGuard guard = new OverlapGuard(OverlapPolicy.PARALLEL_N, 2, null);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxSeen = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch done = new CountDownLatch(8);
+        for (int t = 0; t < 8; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    if (guard.tryEnter() == OverlapGuard.Admission.ENTERED) {
+                        maxSeen.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        running.decrementAndGet();
+                        guard.exit();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertTrue(maxSeen.get() <= 2);
+        assertEquals(0, guard.getInFlight());
+    }
+}
@@ -0,0 +1,103 @@
+package com.liyang.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.support.CronExpression;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CompiledCronTest {
+
+    private static final String[] EXPRESSIONS = {
+            "0/5 * * * * ?", "*/7 * * * * *", "0 0/15 * * * ?", "0 30 2 * * ?", "0 0 1-3 * * *",
+            "15 10 * * * MON-FRI", "0 0 0 29 2 ?", "0 0 12 * * SUN", "10,20,30 5 * ? * *", "0 */2 9-17 * * 1-5",
+            "0 0 0 1 JAN-MAR *", "0 0/30 * * *", "30 1 1,15 * *", "0 0 0 L * ?", "0 0 10 ? * 2#1"
+    };
+
+    private static final String[] ZONES = {"UTC", "Asia/Shanghai", "America/New_York", "Europe/London"};
+
+    @Test
+    void nextMatchesSpringCronExpression() {
+        Random random = new Random(42);
+        // 夏令时切换附近两者的取舍不同，单独在 daylightSavingTransitions 中验证
+        for (String zoneId : new String[]{"UTC", "Asia/Shanghai"}) {
+            TimeZone timeZone = TimeZone.getTimeZone(zoneId);
+            ZoneId zone = timeZone.toZoneId();
+            for (String expression : EXPRESSIONS) {
+                CompiledCron compiled = CompiledCron.compile(expression, timeZone);
+                CronExpression spring = CronExpression.parse(expression.trim().split("\\s+").length == 5 ? "0 " + expression : expression);
+                for (int i = 0; i < 200; i++) {
+                    long from = 1_700_000_000_000L + (long) (random.nextDouble() * 4 * 365 * 86_400_000L);
+                    ZonedDateTime expected = spring.next(ZonedDateTime.ofInstant(Instant.ofEpochMilli(from), zone));
+                    long expectedMillis = expected == null ? -1 : expected.toInstant().toEpochMilli();
+                    assertEquals(expectedMillis, compiled.next(from), zoneId + " " + expression + " from " + from);
+                }
+            }
+        }
+    }
+
+    @Test
+    void previousIsInverseOfNext() {
+        Random random = new Random(7);
+        for (String zoneId : ZONES) {
+            TimeZone timeZone = TimeZone.getTimeZone(zoneId);
+            for (String expression : EXPRESSIONS) {
+                CompiledCron compiled = CompiledCron.compile(expression, timeZone);
+                for (int i = 0; i < 200; i++) {
+                    long from = 1_700_000_000_000L + (long) (random.nextDouble() * 4 * 365 * 86_400_000L);
+                    long previous = compiled.previous(from);
+                    // 上一次触发之后的下一次触发不会早于基准时间
+                    long next = compiled.next(previous);
+                    assertEquals(true, next >= from, zoneId + " " + expression + " from " + from);
+                    assertEquals(previous, compiled.previous(next), zoneId + " " + expression + " from " + from);
+                }
+            }
+        }
+    }
+
+    @Test
+    void daylightSavingTransitions() {
+        TimeZone newYork = TimeZone.getTimeZone("America/New_York");
+        // 2024-03-10 02:00 跳到 03:00，02:30 不存在，顺延到次日
+        assertEquals(millis("2024-03-11T06:30:00Z"),
+                CompiledCron.compile("0 30 2 * * ?", newYork).next(millis("2024-03-10T05:00:00Z")));
+        // 2024-11-03 02:00 回拨到 01:00，01:00 出现两次
+        CompiledCron oneAm = CompiledCron.compile("0 0 1 * * ?", newYork);
+        assertEquals(millis("2024-11-03T05:00:00Z"), oneAm.next(millis("2024-11-03T04:00:00Z")));
+        assertEquals(millis("2024-11-03T06:00:00Z"), oneAm.next(millis("2024-11-03T05:00:00Z")));
+        assertEquals(millis("2024-11-03T05:00:00Z"), oneAm.previous(millis("2024-11-03T06:00:00Z")));
+        // 固定间隔的任务在重复的一小时内照常触发
+        CompiledCron everyFiveSeconds = CompiledCron.compile("0/5 * * * * ?", newYork);
+        assertEquals(millis("2024-11-03T06:00:00Z"), everyFiveSeconds.next(millis("2024-11-03T05:59:58Z")));
+        assertEquals(millis("2024-11-03T05:59:55Z"), everyFiveSeconds.previous(millis("2024-11-03T06:00:00Z")));
+    }
+
+    private static long millis(String instant) {
+        return Instant.parse(instant).toEpochMilli();
+    }
+
+    @Test
+    void fixedIntervalFollowsLegacyRules() {
+        assertEquals(5_000, CompiledCron.of("0/5 * * * * ?").getFixedInterval());
+        assertEquals(15 * 60_000, CompiledCron.of("0 0/15 * * * ?").getFixedInterval());
+        assertEquals(2 * 3_600_000, CompiledCron.of("0 0 */2 * * ?").getFixedInterval());
+        assertEquals(3 * 60_000, CompiledCron.of("*/3 * * * *").getFixedInterval());
+        assertEquals(-1, CompiledCron.of("0 30 2 * * ?").getFixedInterval());
+        assertEquals(-1, CompiledCron.of("5/10 * * * * ?").getFixedInterval());
+    }
+
+    @Test
+    void cachedPerExpressionAndRejectsInvalid() {
+        assertSame(CompiledCron.of("0 0 12 * * ?"), CompiledCron.of("0 0 12 * * ?"));
+        assertThrows(IllegalArgumentException.class, () -> CompiledCron.of("0 0 25 * * ?"));
+        assertThrows(IllegalArgumentException.class, () -> CompiledCron.of("* * * *"));
+        assertEquals(-1, CompiledCron.compile("0 0 0 30 2 ?", TimeZone.getTimeZone("UTC")).next(0));
+    }
+}
@@ -0,0 +1,63 @@
+package com.liyang.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TraceContextTest {
+
+    @AfterEach
+    void tearDown() {
+        TraceContext.clear();
+    }
+
+    @Test
+    void idsAreSortableByTime() throws InterruptedException {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(TraceIdGenerator.next());
+            Thread.sleep(2);
+        }
+        for (int i = 1; i < ids.size(); i++) {
+            assertEquals(24, ids.get(i).length());
+            assertTrue(ids.get(i - 1).compareTo(ids.get(i)) < 0);
+        }
+        long timestamp = TraceIdGenerator.timestampOf(ids.get(0));
+        assertTrue(Math.abs(System.currentTimeMillis() - timestamp) < 10_000);
+    }
+
+    @Test
+    void beginWritesMdc() {
+        String traceId = TraceContext.begin();
+        assertEquals(traceId, MDC.get(TraceContext.MDC_KEY));
+        TraceContext.clear();
+        assertNull(MDC.get(TraceContext.MDC_KEY));
+    }
+
+    @Test
+    void wrappedTaskCarriesTraceAndRestoresWorker() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> TraceContext.setTraceId("worker")).get();
+            String traceId = TraceContext.begin();
+            Future<String> seen = executor.submit(TraceContext.wrap(() -> MDC.get(TraceContext.MDC_KEY)));
+            assertEquals(traceId, seen.get());
+            // 执行完还原工作线程原来的链路id
+            assertEquals("worker", executor.submit(TraceContext::getTraceId).get());
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+}